@@ -90,6 +90,11 @@ public interface Configuration {
      */
     boolean failOnCyclicPackageDependencies();
 
+    /**
+     * @return Whether or not to build class diagrams directly from the model instead of parsing their PlantUML source.
+     */
+    boolean classDiagramsFromModel();
+
     /**
      * Resolves an external link to the specified type.
      *
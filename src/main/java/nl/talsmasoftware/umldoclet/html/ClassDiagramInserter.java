@@ -106,6 +106,11 @@ final class ClassDiagramInserter extends DiagramFile {
             return line;
         }
 
+        @Override
+        boolean isComplete() {
+            return clearRightAdded;
+        }
+
         /**
          * @return The {@code <img>} tag for this diagram including styling,
          * or an {@code <object>} tag for {@code SVG} diagrams to enable their links.
@@ -19,6 +19,7 @@ import nl.talsmasoftware.umldoclet.configuration.Configuration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -26,6 +27,7 @@ import java.util.Collection;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_REPLACING_BY;
 import static nl.talsmasoftware.umldoclet.logging.Message.DEBUG_SKIPPING_FILE;
 import static nl.talsmasoftware.umldoclet.logging.Message.INFO_ADD_DIAGRAM_TO_FILE;
@@ -51,12 +53,10 @@ final class HtmlFile {
     }
 
     boolean process(Collection<DiagramFile> diagrams) {
-        return diagrams.stream()
+        final List<DiagramFile> matching = diagrams.stream()
                 .filter(diagram -> diagram.matches(this))
-                .map(diagram -> new Postprocessor(this, diagram))
-                .map(this::process)
-                .reduce(Boolean.FALSE, Boolean::logicalOr)
-                || skip();
+                .collect(toList());
+        return (!matching.isEmpty() && process(new Postprocessor(this, matching))) || skip();
     }
 
     private boolean skip() {
@@ -76,10 +76,13 @@ final class HtmlFile {
         return false; // should log skip after all diagram types were processed
     }
 
-    public List<String> readLines() throws IOException {
-        return Files.readAllLines(path, config.htmlCharset());
-    }
-
+    /**
+     * Creates a new temporary file in the same directory as this HTML file,
+     * so it can {@linkplain #replaceBy(File) replace} it by an atomic rename.
+     *
+     * @return The new (empty) temporary file.
+     * @throws IOException if the temporary file could not be created.
+     */
     File createNewTempFile() throws IOException {
         final String fileName = path.getFileName().toString();
         final int lastDot = fileName.lastIndexOf('.');
@@ -89,12 +92,16 @@ final class HtmlFile {
             suffix = fileName.substring(lastDot);
         }
         prefix += "---".substring(0, Math.max(1, 3 - prefix.length())); // Make sure the prefix is at least 3 chars.
-        return File.createTempFile(prefix, suffix);
+        return File.createTempFile(prefix, suffix, path.toAbsolutePath().getParent().toFile());
     }
 
     public void replaceBy(File tempFile) throws IOException {
         if (tempFile != null && tempFile.isFile()) {
-            Files.move(tempFile.toPath(), path, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(tempFile.toPath(), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(tempFile.toPath(), path, StandardCopyOption.REPLACE_EXISTING);
+            }
             config.logger().debug(DEBUG_REPLACING_BY, path, tempFile);
         }
     }
@@ -17,59 +17,261 @@ package nl.talsmasoftware.umldoclet.html;
 
 import nl.talsmasoftware.umldoclet.util.FileUtils;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import static java.util.Collections.unmodifiableList;
 import static nl.talsmasoftware.umldoclet.util.FileUtils.fileNameOf;
 
+/**
+ * Inserts all matching diagrams into a single HTML file in one pass.
+ *
+ * <p>
+ * The HTML is streamed through a {@link FileChannel} with a bounded buffer and is only decoded
+ * until every {@link Inserter} has passed its insertion point.
+ * The remainder of the file is transferred to the target unchanged without being decoded.
+ * It is only searched byte-wise for the names of diagrams that were not found in the scanned part,
+ * so a diagram that is already present further down is not inserted again.
+ * If none of the diagrams need to be inserted, nothing is written at all.
+ *
+ * @author Sjoerd Talsma
+ */
 final class Postprocessor implements Callable<Boolean> {
+    private static final int BUFFER_SIZE = 8192;
 
     private final HtmlFile htmlFile;
-    private final DiagramFile umlDiagram;
-    private final String relativePath;
-    private final String diagramFileName;
+    private final List<Diagram> diagrams;
 
-    Postprocessor(HtmlFile htmlFile, DiagramFile umlDiagram) {
+    Postprocessor(HtmlFile htmlFile, Collection<DiagramFile> umlDiagrams) {
         this.htmlFile = htmlFile;
-        this.umlDiagram = umlDiagram;
-        this.relativePath = FileUtils.relativePath(htmlFile.path.toFile(), umlDiagram.diagramFile);
-        this.diagramFileName = fileNameOf(relativePath);
+        List<Diagram> diagrams = new ArrayList<>(umlDiagrams.size());
+        for (DiagramFile umlDiagram : umlDiagrams) diagrams.add(new Diagram(htmlFile, umlDiagram));
+        this.diagrams = unmodifiableList(diagrams);
     }
 
     @Override
     public Boolean call() throws IOException {
         synchronized (htmlFile) {
-            File tempFile = htmlFile.createNewTempFile();
-            List<String> html = htmlFile.readLines();
-            boolean alreadyContainsDiagram = false;
-            final Inserter inserter = umlDiagram.newInserter(relativePath);
-            try (Writer writer = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(tempFile)), htmlFile.config.htmlCharset())) {
-                boolean written = false;
-                for (String line : html) {
-                    if (line.contains(diagramFileName)) {
-                        alreadyContainsDiagram = true;
-                        break;
+            final Charset charset = htmlFile.config.htmlCharset();
+            final List<Line> head = new ArrayList<>();
+            final long headLength;
+            final long fileLength;
+            try (FileChannel in = FileChannel.open(htmlFile.path, StandardOpenOption.READ)) {
+                fileLength = in.size();
+                headLength = scanHead(in, charset, head);
+                if (headLength < fileLength) scanTail(in, headLength, fileLength, charset);
+
+                final List<Diagram> toInsert = new ArrayList<>(diagrams.size());
+                for (Diagram diagram : diagrams) if (!diagram.alreadyContained) toInsert.add(diagram);
+                final byte[] processedHead = processHead(head, toInsert, charset);
+                if (processedHead == null) return false;
+
+                File tempFile = htmlFile.createNewTempFile();
+                try (FileChannel out = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                    ByteBuffer headBuffer = ByteBuffer.wrap(processedHead);
+                    while (headBuffer.hasRemaining()) out.write(headBuffer);
+                    for (long pos = headLength; pos < fileLength; ) {
+                        pos += in.transferTo(pos, fileLength - pos, out);
                     }
-                    if (written) writer.write(System.lineSeparator());
-                    writer.write(inserter.process(line));
-                    written = true;
+                } catch (IOException | RuntimeException e) {
+                    if (!tempFile.delete()) e.addSuppressed(new IllegalStateException("Could not delete " + tempFile));
+                    throw e;
                 }
+                htmlFile.replaceBy(tempFile);
+                return true;
             }
+        }
+    }
 
-            boolean result = false;
-            if (!alreadyContainsDiagram && inserter.inserted) {
-                htmlFile.replaceBy(tempFile);
-                result = true;
-            } else if (!tempFile.delete()) {
-                throw new IllegalStateException("Could not delete " + tempFile + " after postprocessing!");
+    /**
+     * Reads lines until all inserters are complete or all diagrams turn out to be present already.
+     *
+     * @param in      The channel to read the HTML from.
+     * @param charset The character set of the HTML.
+     * @param head    The list to add the read lines to.
+     * @return The number of bytes that were read into the head.
+     */
+    private long scanHead(FileChannel in, Charset charset, List<Line> head) throws IOException {
+        if (!isAsciiCompatible(charset)) { // Can't split on newline bytes; read everything.
+            final byte[] all = readFully(in);
+            final List<Inserter> scanners = new ArrayList<>(diagrams.size());
+            for (Diagram diagram : diagrams) scanners.add(diagram.newInserter());
+            for (String line : new String(all, charset).split("(?<=\n)")) scanLine(toLine(line), head, scanners);
+            return all.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        final List<Inserter> scanners = new ArrayList<>(diagrams.size());
+        for (Diagram diagram : diagrams) scanners.add(diagram.newInserter());
+        long consumed = 0L;
+
+        while (in.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                line.write(b);
+                if (b == '\n') {
+                    consumed += line.size();
+                    if (scanLine(toLine(new String(line.toByteArray(), charset)), head, scanners)) return consumed;
+                    line.reset();
+                }
             }
-            return result;
+            buffer.clear();
+        }
+        if (line.size() > 0) {
+            consumed += line.size();
+            scanLine(toLine(new String(line.toByteArray(), charset)), head, scanners);
+        }
+        return consumed;
+    }
+
+    /**
+     * Searches the part of the file after the head for the file names of diagrams not found yet,
+     * without decoding it.
+     * This requires an ASCII-compatible charset, which is always the case when there is a remaining part.
+     *
+     * @param in      The channel to read the HTML from.
+     * @param from    The position where the head ends.
+     * @param to      The length of the file.
+     * @param charset The character set of the HTML.
+     */
+    private void scanTail(FileChannel in, long from, long to, Charset charset) throws IOException {
+        final List<Diagram> pending = new ArrayList<>(diagrams.size());
+        final List<byte[]> names = new ArrayList<>(diagrams.size());
+        int overlap = 0;
+        for (Diagram diagram : diagrams) {
+            if (!diagram.alreadyContained) {
+                final byte[] name = diagram.fileName.getBytes(charset);
+                pending.add(diagram);
+                names.add(name);
+                overlap = Math.max(overlap, name.length - 1);
+            }
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE + overlap);
+        long pos = from;
+        while (!pending.isEmpty() && pos < to) {
+            final int read = in.read(buffer, pos);
+            if (read <= 0) break;
+            pos += read;
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                if (indexOf(buffer.array(), buffer.position(), names.get(i)) >= 0) {
+                    pending.remove(i).alreadyContained = true;
+                    names.remove(i);
+                }
+            }
+            // Keep the last bytes, a name may continue in the next read.
+            final int keep = Math.min(overlap, buffer.position());
+            System.arraycopy(buffer.array(), buffer.position() - keep, buffer.array(), 0, keep);
+            buffer.position(keep);
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int length, byte[] name) {
+        outer:
+        for (int i = 0; i <= length - name.length; i++) {
+            for (int j = 0; j < name.length; j++) if (bytes[i + j] != name[j]) continue outer;
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Scans a single line of the head, updating the state of the diagrams and their inserters.
+     *
+     * @return {@code true} when further scanning is unnecessary.
+     */
+    private boolean scanLine(Line line, List<Line> head, List<Inserter> scanners) {
+        head.add(line);
+        String processed = line.content;
+        boolean complete = true;
+        for (int i = 0; i < diagrams.size(); i++) {
+            final Diagram diagram = diagrams.get(i);
+            if (!diagram.alreadyContained && line.content.contains(diagram.fileName)) {
+                diagram.alreadyContained = true;
+            }
+            if (!diagram.alreadyContained) {
+                final Inserter scanner = scanners.get(i);
+                processed = scanner.process(processed);
+                complete &= scanner.isComplete();
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Replays the scanned head lines through fresh inserters for the diagrams that must be inserted.
+     *
+     * @return The encoded processed head, or {@code null} if no diagram got inserted.
+     */
+    private static byte[] processHead(List<Line> head, List<Diagram> toInsert, Charset charset) {
+        if (toInsert.isEmpty()) return null;
+        final List<Inserter> inserters = new ArrayList<>(toInsert.size());
+        for (Diagram diagram : toInsert) inserters.add(diagram.newInserter());
+        final StringBuilder result = new StringBuilder();
+        for (Line line : head) {
+            String processed = line.content;
+            for (Inserter inserter : inserters) processed = inserter.process(processed);
+            result.append(processed).append(line.terminator);
+        }
+        for (Inserter inserter : inserters) if (inserter.inserted) return result.toString().getBytes(charset);
+        return null;
+    }
+
+    private static Line toLine(String raw) {
+        int end = raw.length();
+        if (end > 0 && raw.charAt(end - 1) == '\n') end--;
+        if (end > 0 && raw.charAt(end - 1) == '\r') end--;
+        return new Line(raw.substring(0, end), raw.substring(end));
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        final byte[] newline = "\r\n<".getBytes(charset);
+        return newline.length == 3 && newline[0] == '\r' && newline[1] == '\n' && newline[2] == '<';
+    }
+
+    private static byte[] readFully(FileChannel in) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(in.size(), Integer.MAX_VALUE));
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (in.read(buffer) >= 0) {
+            bytes.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class Line {
+        private final String content, terminator;
+
+        private Line(String content, String terminator) {
+            this.content = content;
+            this.terminator = terminator;
+        }
+    }
+
+    private static final class Diagram {
+        private final DiagramFile umlDiagram;
+        private final String relativePath;
+        private final String fileName;
+        private boolean alreadyContained = false;
+
+        private Diagram(HtmlFile htmlFile, DiagramFile umlDiagram) {
+            this.umlDiagram = umlDiagram;
+            this.relativePath = FileUtils.relativePath(htmlFile.path.toFile(), umlDiagram.diagramFile);
+            this.fileName = fileNameOf(relativePath);
+        }
+
+        private Inserter newInserter() {
+            return umlDiagram.newInserter(relativePath);
         }
     }
 
@@ -82,6 +284,13 @@ final class Postprocessor implements Callable<Boolean> {
         }
 
         abstract String process(String line);
+
+        /**
+         * @return Whether this inserter is done and won't change any of the following lines anymore.
+         */
+        boolean isComplete() {
+            return inserted;
+        }
     }
 
 }
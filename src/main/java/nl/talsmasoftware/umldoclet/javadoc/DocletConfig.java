@@ -120,6 +120,8 @@ public class DocletConfig implements Configuration {
 
     boolean failOnCyclicPackageDependencies = false;
 
+    boolean classDiagramsFromModel = false;
+
     List<ExternalLink> externalLinks = new ArrayList<>();
 
     List<String> customPlantumlDirectives = new ArrayList<>();
@@ -194,6 +196,11 @@ public class DocletConfig implements Configuration {
         return failOnCyclicPackageDependencies;
     }
 
+    @Override
+    public boolean classDiagramsFromModel() {
+        return classDiagramsFromModel;
+    }
+
     @Override
     public Optional<URI> resolveExternalLinkToType(String packageName, String type) {
         return externalLinks.stream()
@@ -93,6 +93,8 @@ final class UMLOptions {
                 args -> config.customPlantumlDirectives.add(args.get(0))));
         this.options.add(new Option("--fail-on-cyclic-package-dependencies -failOnCyclicPackageDependencies", 1, Kind.STANDARD,
                 args -> config.failOnCyclicPackageDependencies = asBoolean(args.get(0))));
+        this.options.add(new Option("--uml-class-diagrams-from-model -umlClassDiagramsFromModel", 1, Kind.STANDARD,
+                args -> config.classDiagramsFromModel = asBoolean(args.get(0))));
         this.options.add(new Option("--uml-java-bean-properties-as-fields -umlJavaBeanPropertiesAsFields", 0, Kind.STANDARD,
                 args -> config.methodConfig.javaBeanPropertiesAsFields = true));
         this.options.add(new Option("--uml-timeout -umlTimeout", 1, Kind.STANDARD, this::setTimeout));
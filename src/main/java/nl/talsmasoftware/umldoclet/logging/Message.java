@@ -42,6 +42,7 @@ public enum Message {
     DEBUG_CANNOT_READ_ELEMENT_LIST,
     DEBUG_LIVE_PACKAGE_URL_NOT_FOUND,
     DEBUG_PACKAGE_VISITED_BUT_UNDOCUMENTED,
+    DEBUG_PARSING_PLANTUML_SOURCE,
     INFO_GENERATING_FILE,
     INFO_ADD_DIAGRAM_TO_FILE,
     WARNING_UNRECOGNIZED_IMAGE_FORMAT,
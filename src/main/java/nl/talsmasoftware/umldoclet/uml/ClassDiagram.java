@@ -53,6 +53,12 @@ public class ClassDiagram extends Diagram {
         return super.writeChildrenTo(output);
     }
 
+    @Override
+    protected net.sourceforge.plantuml.core.Diagram createPlantumlDiagram(String plantumlSource) {
+        if (!getConfiguration().classDiagramsFromModel()) return null;
+        return new ClassDiagramBridge(this, plantumlSource).createDiagram();
+    }
+
     @Override
     protected File getPlantUmlFile() {
         if (pumlFile == null) {
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import net.sourceforge.plantuml.FontParam;
+import net.sourceforge.plantuml.LineLocationImpl;
+import net.sourceforge.plantuml.StringLocated;
+import net.sourceforge.plantuml.UrlBuilder;
+import net.sourceforge.plantuml.classdiagram.ClassDiagramFactory;
+import net.sourceforge.plantuml.core.Diagram;
+import net.sourceforge.plantuml.core.UmlSource;
+import net.sourceforge.plantuml.cucadiagram.Code;
+import net.sourceforge.plantuml.cucadiagram.Display;
+import net.sourceforge.plantuml.cucadiagram.IEntity;
+import net.sourceforge.plantuml.cucadiagram.ILeaf;
+import net.sourceforge.plantuml.cucadiagram.Ident;
+import net.sourceforge.plantuml.cucadiagram.LeafType;
+import net.sourceforge.plantuml.cucadiagram.Link;
+import net.sourceforge.plantuml.cucadiagram.LinkDecor;
+import net.sourceforge.plantuml.cucadiagram.LinkType;
+import net.sourceforge.plantuml.cucadiagram.Stereotype;
+import net.sourceforge.plantuml.descdiagram.command.StringWithArrow;
+import net.sourceforge.plantuml.graphic.color.Colors;
+import net.sourceforge.plantuml.skin.VisibilityModifier;
+import nl.talsmasoftware.umldoclet.logging.Message;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static net.sourceforge.plantuml.StringUtils.trin;
+
+/**
+ * Builds the PlantUML class diagram directly from the doclet model instead of parsing the rendered source.
+ *
+ * <p>
+ * Types and references are added to the PlantUML diagram the same way the PlantUML class diagram commands
+ * add them after matching the lines that were rendered for them.
+ * Only the remaining lines (the custom directives, the diagram header and the footer)
+ * are executed by PlantUML itself.
+ * The rendered source is still attached to the diagram, because it is embedded in the generated images.
+ *
+ * <p>
+ * Whenever the diagram contains anything this bridge does not know about,
+ * {@link #createDiagram()} returns {@code null} and the rendered source will be parsed instead.
+ *
+ * @author Sjoerd Talsma
+ */
+final class ClassDiagramBridge {
+    private static final int HEADER_LINES = 4;
+
+    private final ClassDiagram model;
+    private final String plantumlSource;
+
+    ClassDiagramBridge(ClassDiagram model, String plantumlSource) {
+        this.model = model;
+        this.plantumlSource = plantumlSource;
+    }
+
+    /**
+     * @return The PlantUML class diagram, or {@code null} if the rendered source must be parsed instead.
+     */
+    Diagram createDiagram() {
+        final List<String> directives = model.getConfiguration().customPlantumlDirectives();
+        if (plantumlSource == null || !directives.stream().allMatch(ClassDiagramBridge::isPlainDirective)) {
+            return null;
+        }
+        try {
+            return createDiagram(readLines(plantumlSource), 1 + directives.size());
+        } catch (RuntimeException unsupported) {
+            model.getConfiguration().logger().debug(Message.DEBUG_PARSING_PLANTUML_SOURCE,
+                    model.getType().getName().qualified, unsupported);
+            return null;
+        }
+    }
+
+    private Diagram createDiagram(List<StringLocated> source, int header) {
+        final int end = source.size() - 1;
+        if (end <= header + HEADER_LINES || !"@enduml".equals(trin(source.get(end).getString()))
+                || !"set namespaceSeparator none".equals(trin(source.get(header).getString()))) {
+            return null;
+        }
+
+        final List<Consumer<net.sourceforge.plantuml.classdiagram.ClassDiagram>> additions = new ArrayList<>();
+        int pos = header + HEADER_LINES;
+        for (UMLNode child : model.getChildren()) {
+            if (child instanceof Type || child instanceof Reference) {
+                while (pos < end && trin(source.get(pos).getString()).isEmpty()) pos++;
+                final StringLocated first = source.get(pos++);
+                if (child instanceof Type) {
+                    final Type type = (Type) child;
+                    if (!trin(first.getString()).startsWith(type.getClassfication().toUml() + ' ')) return null;
+                    List<StringLocated> body = null;
+                    if (trin(first.getString()).endsWith("{")) {
+                        final int bodyStart = pos;
+                        while (pos < end && !"}".equals(trin(source.get(pos).getString()))) pos++;
+                        if (pos++ == end) return null;
+                        body = source.subList(bodyStart, pos - 1);
+                    }
+                    final List<StringLocated> members = body;
+                    additions.add(diagram -> addType(diagram, type, first, members));
+                } else {
+                    final Reference reference = (Reference) child;
+                    if (!reference.notes.isEmpty() || !trin(first.getString()).equals(
+                            reference.from + " " + reference.type + " " + reference.to)) return null;
+                    additions.add(diagram -> addReference(diagram, reference, first));
+                }
+            } else if (!child.toString().trim().isEmpty()) {
+                return null;
+            }
+        }
+
+        final List<StringLocated> frame = new ArrayList<>(source.subList(0, header + HEADER_LINES));
+        frame.addAll(source.subList(pos, end));
+        final Diagram system = new ClassDiagramFactory(null).createSystem(new UmlSource(frame, true));
+        if (!(system instanceof net.sourceforge.plantuml.classdiagram.ClassDiagram)) return null;
+        final net.sourceforge.plantuml.classdiagram.ClassDiagram diagram =
+                (net.sourceforge.plantuml.classdiagram.ClassDiagram) system;
+        if (diagram.V1972() || diagram.getNamespaceSeparator() != null) return null;
+
+        additions.forEach(addition -> addition.accept(diagram));
+        if (diagram.checkFinalError() != null) return null;
+        diagram.makeDiagramReady();
+        if (!diagram.isOk()) return null;
+        diagram.setSource(new UmlSource(source, true, source));
+        return diagram;
+    }
+
+    /**
+     * Adds the type like the {@code CommandCreateClass} and {@code CommandCreateClassMultilines} commands do.
+     */
+    private static void addType(net.sourceforge.plantuml.classdiagram.ClassDiagram diagram,
+                                Type type, StringLocated first, List<StringLocated> body) {
+        final String umlName = type.getUmlName();
+        final int genericsIdx = umlName.indexOf('<');
+        final String idShort = genericsIdx < 0 ? umlName : umlName.substring(0, genericsIdx);
+        final String generic = genericsIdx < 0 ? null : umlName.substring(genericsIdx + 1, umlName.length() - 1);
+        if (!isCode(idShort) || (generic != null && (!umlName.endsWith(">") || !isGeneric(generic)))) {
+            throw new IllegalStateException("Unsupported type name: " + umlName);
+        }
+
+        final LeafType leafType = LeafType.getLeafType(type.getClassfication().toUml());
+        final Ident ident = diagram.buildLeafIdent(idShort);
+        final Code code = diagram.buildCode(idShort);
+        final ILeaf entity;
+        if (diagram.leafExist(code)) {
+            entity = diagram.getOrCreateLeaf(ident, code, body == null ? leafType : null, null);
+            if (!entity.muteToType(leafType, null)) throw new IllegalStateException("Bad name: " + idShort);
+        } else {
+            entity = diagram.createLeaf(ident, code, Display.getWithNewlines(type.getDisplayName()), leafType, null);
+        }
+        if (body != null) entity.setVisibilityModifier(null);
+        if (type.isDeprecated()) {
+            entity.setStereotype(new Stereotype("<<deprecated>>", diagram.getSkinParam().getCircledCharacterRadius(),
+                    diagram.getSkinParam().getFont(null, false, FontParam.CIRCLED_CHARACTER),
+                    diagram.getSkinParam().getIHtmlColorSet()));
+        }
+        final String url = type.link().toString();
+        if (!url.isEmpty()) {
+            entity.addUrl(new UrlBuilder(diagram.getSkinParam().getValue("topurl"), UrlBuilder.ModeUrl.STRICT).getUrl(url));
+        }
+        entity.setColors(Colors.empty());
+        if (generic != null) entity.setGeneric(generic);
+        entity.setCodeLine(first.getLocation());
+
+        if (body != null) addMembers(diagram, entity, body);
+    }
+
+    /**
+     * Adds the members like {@code CommandCreateClassMultilines} does,
+     * skipping comment lines and removing the indentation of the first member from each line.
+     */
+    private static void addMembers(net.sourceforge.plantuml.classdiagram.ClassDiagram diagram,
+                                   ILeaf entity, List<StringLocated> body) {
+        int indentation = -1;
+        for (StringLocated line : body) {
+            String member = line.getString();
+            if (trin(member).startsWith("'")) continue;
+            int i = 0;
+            if (indentation < 0) {
+                while (i < member.length() && isSpaceOrTab(member.charAt(i))) i++;
+                indentation = i;
+            } else {
+                while (i < indentation && i < member.length() && isSpaceOrTab(member.charAt(i))) i++;
+            }
+            member = member.substring(i);
+            if (member.length() > 0 && VisibilityModifier.isVisibilityCharacter(member)) {
+                diagram.setVisibilityModifierPresent(true);
+            }
+            entity.getBodier().addFieldOrMethod(member);
+        }
+    }
+
+    /**
+     * Adds the reference like the {@code CommandLinkClass} command does for the arrows used in class diagrams.
+     */
+    private static void addReference(net.sourceforge.plantuml.classdiagram.ClassDiagram diagram,
+                                     Reference reference, StringLocated line) {
+        final LinkDecor decor;
+        switch (reference.type) {
+            case "<|--":
+            case "<|..":
+                decor = LinkDecor.EXTENDS;
+                break;
+            case "+--":
+                decor = LinkDecor.PLUS;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported reference type: " + reference.type);
+        }
+        LinkType linkType = new LinkType(LinkDecor.NONE, decor);
+        if (reference.type.indexOf('.') >= 0) linkType = linkType.goDashed();
+
+        final String name1 = reference.from.toString();
+        final String name2 = reference.to.toString();
+        final Ident ident1 = identOf(diagram, name1);
+        final Ident ident2 = identOf(diagram, name2);
+        final Code code1 = diagram.buildCode(name1);
+        final Code code2 = diagram.buildCode(name2);
+        if (isOtherGroup(diagram, code1) && isOtherGroup(diagram, code2)) {
+            throw new IllegalStateException("Unsupported reference between packages: " + reference);
+        }
+        final IEntity from = isOtherGroup(diagram, code1) ? diagram.getGroup(code1)
+                : diagram.getOrCreateLeaf(ident1, code1, null, null);
+        final IEntity to = isOtherGroup(diagram, code2) ? diagram.getGroup(code2)
+                : diagram.getOrCreateLeaf(ident2, code2, null, null);
+
+        final StringWithArrow label = new StringWithArrow(null);
+        final Link link = new Link(from, to, linkType, label.getDisplay(), 2, null, null,
+                diagram.getLabeldistance(), diagram.getLabelangle(), diagram.getSkinParam().getCurrentStyleBuilder());
+        link.setPortMembers(null, null);
+        link.setLinkArrow(label.getLinkArrow());
+        link.setColors(Colors.empty());
+        link.applyStyle(null);
+        link.setCodeLine(line.getLocation());
+        diagram.addLink(link);
+    }
+
+    private static Ident identOf(net.sourceforge.plantuml.classdiagram.ClassDiagram diagram, String name) {
+        if (!isCode(name) || name.startsWith(".") || name.endsWith(".") || name.contains("..")) {
+            throw new IllegalStateException("Unsupported reference to " + name);
+        }
+        final Ident ident = diagram.buildLeafIdentSpecial(name);
+        if (!diagram.leafExist(ident)) {
+            final Ident withoutMember = ident.removeMemberPart();
+            if (withoutMember != null && diagram.leafExist(withoutMember.toCode(diagram))) {
+                throw new IllegalStateException("Unsupported reference to member " + name);
+            }
+        }
+        return ident;
+    }
+
+    private static boolean isOtherGroup(net.sourceforge.plantuml.classdiagram.ClassDiagram diagram, Code code) {
+        return !diagram.getCurrentGroup().getCodeGetName().equals(code.getName()) && diagram.isGroup(code);
+    }
+
+    /**
+     * Reads the lines like the {@code SourceStringReader} does, numbering them from the {@code @startuml} line.
+     */
+    private static List<StringLocated> readLines(String plantumlSource) {
+        final List<StringLocated> lines = new ArrayList<>();
+        LineLocationImpl location = new LineLocationImpl("string", null);
+        try (BufferedReader reader = new BufferedReader(new StringReader(plantumlSource))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                location = location.oneLineRead();
+                if (line.startsWith("\uFEFF")) line = line.substring(1);
+                lines.add(new StringLocated(line.replace('\u2013', '-'), location));
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return lines;
+    }
+
+    /**
+     * @return Whether the directive passes the PlantUML preprocessor unchanged and takes exactly one line.
+     */
+    private static boolean isPlainDirective(String directive) {
+        final String trimmed = directive.trim();
+        return directive.indexOf('\n') < 0 && directive.indexOf('\r') < 0
+                && directive.indexOf('%') < 0 && directive.indexOf('$') < 0
+                && !trimmed.endsWith("\\") && !trimmed.startsWith("@")
+                && !trimmed.startsWith("'") && !trimmed.startsWith("/'")
+                && (!trimmed.startsWith("!") || trimmed.startsWith("!pragma "));
+    }
+
+    /**
+     * @return Whether the name is matched as a whole by the class name patterns of the PlantUML commands.
+     */
+    private static boolean isCode(String name) {
+        if (name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            final char ch = name.charAt(i);
+            if (ch != '.' && ch != '_' && ch != '$' && !Character.isLetter(ch) && (ch < '0' || ch > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether the generics are matched as a whole by the generic pattern of the PlantUML class commands.
+     */
+    private static boolean isGeneric(String generic) {
+        if (generic.isEmpty() || generic.charAt(0) == '<' || generic.charAt(0) == '>') return false;
+        int depth = 0;
+        for (int i = 0; i < generic.length(); i++) {
+            final char ch = generic.charAt(i);
+            if (ch == '/' || (ch == '<' && ++depth > 4) || (ch == '>' && --depth < 0)) return false;
+        }
+        return depth == 0;
+    }
+
+    private static boolean isSpaceOrTab(char ch) {
+        return ch == ' ' || ch == '\t';
+    }
+
+}
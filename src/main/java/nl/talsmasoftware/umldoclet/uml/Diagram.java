@@ -170,10 +170,25 @@ public abstract class Diagram extends UMLNode {
         config.logger().info(Message.INFO_GENERATING_FILE, diagramFile);
         ensureParentDir(diagramFile);
         try (OutputStream out = new FileOutputStream(diagramFile)) {
-            new SourceStringReader(plantumlSource).outputImage(out, new FileFormatOption(format));
+            net.sourceforge.plantuml.core.Diagram diagram = createPlantumlDiagram(plantumlSource);
+            if (diagram != null) diagram.exportDiagram(out, 0, new FileFormatOption(format));
+            else new SourceStringReader(plantumlSource).outputImage(out, new FileFormatOption(format));
         }
     }
 
+    /**
+     * Creates the PlantUML diagram directly from this model, without parsing the rendered source.
+     *
+     * <p>The default implementation returns {@code null},
+     * meaning the PlantUML source will be parsed to obtain the diagram.
+     *
+     * @param plantumlSource The rendered PlantUML source, embedded in the generated images.
+     * @return The PlantUML diagram, or {@code null} if the source has to be parsed instead.
+     */
+    protected net.sourceforge.plantuml.core.Diagram createPlantumlDiagram(String plantumlSource) {
+        return null;
+    }
+
     @Override
     public String toString() {
         final String name = getDiagramBaseFile().getPath();
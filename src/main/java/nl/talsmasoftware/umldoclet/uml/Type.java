@@ -79,7 +79,7 @@ public class Type extends UMLNode {
         }
     }
 
-    private Link link() {
+    Link link() {
         if (link == null) link = Link.forType(this);
         return link;
     }
@@ -101,17 +101,34 @@ public class Type extends UMLNode {
         return classfication;
     }
 
-    private <IPW extends IndentingPrintWriter> IPW writeNameTo(IPW output) {
+    boolean isDeprecated() {
+        return isDeprecated;
+    }
+
+    /**
+     * @return The display name of this type including its package, or {@code null} if the name is displayed as-is.
+     */
+    String getDisplayName() {
         if (includePackagename && name.qualified.startsWith(this.packageNamespace.name + '.')) {
             String nameInPackage = name.qualified.substring(this.packageNamespace.name.length() + 1);
-            output.append("\"<size:14>").append(nameInPackage)
-                    .append("\\n<size:10>").append(this.packageNamespace.name)
-                    .append("\" as ");
+            return "<size:14>" + nameInPackage + "\\n<size:10>" + this.packageNamespace.name;
         }
+        return null;
+    }
 
+    /**
+     * @return The name of this type as it is referred to in the diagram, including any generics.
+     */
+    String getUmlName() {
         // Namespace aware compensation // TODO Simplify this package logic and make sure all is still needed!
         Namespace namespace = findParent(Namespace.class).orElse(null);
-        output.append(name.toUml(TypeDisplay.QUALIFIED, namespace));
+        return name.toUml(TypeDisplay.QUALIFIED, namespace);
+    }
+
+    private <IPW extends IndentingPrintWriter> IPW writeNameTo(IPW output) {
+        String displayName = getDisplayName();
+        if (displayName != null) output.append('"').append(displayName).append("\" as ");
+        output.append(getUmlName());
         return output;
     }
 
@@ -47,12 +47,6 @@ package gen.lib.common;
 import static gen.lib.cgraph.attr__c.agget;
 import static gen.lib.cgraph.edge__c.aghead;
 import static gen.lib.cgraph.edge__c.agtail;
-import static gen.lib.common.utils__c.dequeue;
-import static gen.lib.common.utils__c.enqueue;
-import static gen.lib.common.utils__c.free_queue;
-import static gen.lib.common.utils__c.new_queue;
-import static smetana.core.JUtils.EQ;
-import static smetana.core.JUtils.NEQ;
 import static smetana.core.JUtils.atoi;
 import static smetana.core.JUtils.setjmp;
 import static smetana.core.Macro.ED_cutvalue;
@@ -63,7 +57,6 @@ import static smetana.core.Macro.GD_nlist;
 import static smetana.core.Macro.INT_MAX;
 import static smetana.core.Macro.MAX;
 import static smetana.core.Macro.MIN;
-import static smetana.core.Macro.N;
 import static smetana.core.Macro.ND_in;
 import static smetana.core.Macro.ND_lim;
 import static smetana.core.Macro.ND_low;
@@ -74,19 +67,17 @@ import static smetana.core.Macro.ND_out;
 import static smetana.core.Macro.ND_par;
 import static smetana.core.Macro.ND_priority;
 import static smetana.core.Macro.ND_rank;
-import static smetana.core.Macro.ND_tree_in;
-import static smetana.core.Macro.ND_tree_out;
 import static smetana.core.Macro.NORMAL;
-import static smetana.core.Macro.NOT;
 import static smetana.core.Macro.SEARCHSIZE;
-import static smetana.core.Macro.SEQ;
-import static smetana.core.Macro.SLACK;
-import static smetana.core.Macro.TREE_EDGE;
 import static smetana.core.Macro.UNSUPPORTED;
-import static smetana.core.Macro.free_list;
 import static smetana.core.debug.SmetanaDebug.ENTERING;
 import static smetana.core.debug.SmetanaDebug.LEAVING;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import gen.annotation.Difficult;
 import gen.annotation.HasND_Rank;
 import gen.annotation.Original;
@@ -95,16 +86,19 @@ import gen.annotation.Unused;
 import h.ST_Agedge_s;
 import h.ST_Agnode_s;
 import h.ST_Agraph_s;
-import h.ST_nodequeue;
-import smetana.core.CArrayOfStar;
+import h.ST_elist;
 import smetana.core.CString;
-import smetana.core.Memory;
-import smetana.core.Z;
 import smetana.core.jmp_buf;
 
 
-/* 
+/*
  * Network Simplex Algorithm for Ranking Nodes of a DAG
+ *
+ * The graph is copied into int arrays (CSR adjacency lists, one slot per node and
+ * per edge) before running the simplex, and the results are written back onto the
+ * ST structs at the end. The functions below are the ones of ns.c, working on
+ * node and edge indexes instead of ST_Agnode_s and ST_Agedge_s, in the same order
+ * so that the layout is exactly the one of the translated code.
  */
 public class ns__c {
 
@@ -115,44 +109,215 @@ public class ns__c {
 private static jmp_buf jbuf = new jmp_buf();
 
 
+private static final class Simplex {
+
+	private final ST_Agraph_s g;
+
+	// nodes of GD_nlist come first, followed by the ones only reached through an edge
+	private final ST_Agnode_s node[];
+	private final int N_nodes;
+	private final ST_Agedge_s edge[];
+
+	// ND_out and ND_in lists; ND_tree_out and ND_tree_in share the same slots
+	private final int outStart[], outList[], treeOutList[], treeOutSize[];
+	private final int inStart[], inList[], treeInList[], treeInSize[];
+
+	private final int rank[], mark[], priority[], low[], lim[], par[], nodeType[];
+	private final int tail[], head[], minlen[], weight[], cutvalue[], treeIndex[];
+
+	private final int Tree_node[], Tree_edge[];
+	private int Tree_node_size, Tree_edge_size;
+
+	private int S_i, Search_size;
+	private int Enter, Low, Lim, Slack;
+	private int Minrank, Maxrank;
+
+	private Simplex(ST_Agraph_s g) {
+		this.g = g;
+		final Map<ST_Agnode_s, Integer> nodeIds = new IdentityHashMap<ST_Agnode_s, Integer>();
+		final Map<ST_Agedge_s, Integer> edgeIds = new IdentityHashMap<ST_Agedge_s, Integer>();
+		final List<ST_Agnode_s> nodes = new ArrayList<ST_Agnode_s>();
+		final List<ST_Agedge_s> edges = new ArrayList<ST_Agedge_s>();
+		for (ST_Agnode_s n = GD_nlist(g); n != null; n = ND_next(n))
+			index(nodeIds, nodes, n);
+		this.N_nodes = nodes.size();
+
+		int outs[] = new int[2 * N_nodes + 1];
+		int ins[] = new int[2 * N_nodes + 1];
+		int outBounds[] = new int[N_nodes + 1];
+		int inBounds[] = new int[N_nodes + 1];
+		int nout = 0, nin = 0;
+		for (int v = 0; v < nodes.size(); v++) {
+			if (v + 1 >= outBounds.length) {
+				outBounds = grow(outBounds, v + 2);
+				inBounds = grow(inBounds, v + 2);
+			}
+			outBounds[v] = nout;
+			ST_elist list = ND_out(nodes.get(v));
+			ST_Agedge_s e;
+			for (int i = 0; list.list != null && (e = (ST_Agedge_s) list.list.get_(i)) != null; i++) {
+				outs = grow(outs, nout + 1);
+				outs[nout++] = index(edgeIds, edges, nodeIds, nodes, e);
+			}
+			inBounds[v] = nin;
+			list = ND_in(nodes.get(v));
+			for (int i = 0; list.list != null && (e = (ST_Agedge_s) list.list.get_(i)) != null; i++) {
+				ins = grow(ins, nin + 1);
+				ins[nin++] = index(edgeIds, edges, nodeIds, nodes, e);
+			}
+		}
+		final int nnodes = nodes.size();
+		final int nedges = edges.size();
+		outBounds[nnodes] = nout;
+		inBounds[nnodes] = nin;
+
+		this.node = nodes.toArray(new ST_Agnode_s[nnodes]);
+		this.edge = edges.toArray(new ST_Agedge_s[nedges]);
+		this.outStart = outBounds;
+		this.outList = outs;
+		this.treeOutList = new int[nout];
+		this.treeOutSize = new int[nnodes];
+		this.inStart = inBounds;
+		this.inList = ins;
+		this.treeInList = new int[nin];
+		this.treeInSize = new int[nnodes];
+
+		this.rank = new int[nnodes];
+		this.mark = new int[nnodes];
+		this.priority = new int[nnodes];
+		this.low = new int[nnodes];
+		this.lim = new int[nnodes];
+		this.par = new int[nnodes];
+		this.nodeType = new int[nnodes];
+		for (int v = 0; v < nnodes; v++) {
+			final ST_Agnode_s n = node[v];
+			rank[v] = ND_rank(n);
+			mark[v] = ND_mark(n);
+			priority[v] = ND_priority(n);
+			low[v] = ND_low(n);
+			lim[v] = ND_lim(n);
+			par[v] = -2; // ND_par is left alone unless dfs_range sets it
+			nodeType[v] = ND_node_type(n);
+		}
+
+		this.tail = new int[nedges];
+		this.head = new int[nedges];
+		this.minlen = new int[nedges];
+		this.weight = new int[nedges];
+		this.cutvalue = new int[nedges];
+		this.treeIndex = new int[nedges];
+		for (int e = 0; e < nedges; e++) {
+			final ST_Agedge_s ed = edge[e];
+			tail[e] = nodeIds.get(agtail(ed));
+			head[e] = nodeIds.get(aghead(ed));
+			minlen[e] = ED_minlen(ed);
+			weight[e] = ED_weight(ed);
+			cutvalue[e] = ED_cutvalue(ed);
+			treeIndex[e] = ED_tree_index(ed);
+		}
+
+		this.Tree_node = new int[nnodes];
+		this.Tree_edge = new int[nnodes];
+	}
+
+	private static int index(Map<ST_Agnode_s, Integer> ids, List<ST_Agnode_s> nodes, ST_Agnode_s n) {
+		Integer id = ids.get(n);
+		if (id == null) {
+			id = nodes.size();
+			ids.put(n, id);
+			nodes.add(n);
+		}
+		return id;
+	}
+
+	private static int index(Map<ST_Agedge_s, Integer> ids, List<ST_Agedge_s> edges,
+			Map<ST_Agnode_s, Integer> nodeIds, List<ST_Agnode_s> nodes, ST_Agedge_s e) {
+		Integer id = ids.get(e);
+		if (id == null) {
+			id = edges.size();
+			ids.put(e, id);
+			edges.add(e);
+			index(nodeIds, nodes, agtail(e));
+			index(nodeIds, nodes, aghead(e));
+		}
+		return id;
+	}
+
+	private static int[] grow(int array[], int size) {
+		if (array.length >= size)
+			return array;
+		final int result[] = new int[Math.max(size, 2 * array.length)];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+
+	/**
+	 * Copies the ranks and the other fields set by the simplex back to the ST structs.
+	 */
+	private void write_back() {
+		for (int v = 0; v < node.length; v++) {
+			final ST_Agnode_s n = node[v];
+			ND_rank(n, rank[v]);
+			ND_mark(n, mark[v]);
+			ND_priority(n, priority[v]);
+			ND_low(n, low[v]);
+			ND_lim(n, lim[v]);
+			if (par[v] != -2)
+				ND_par(n, par[v] == -1 ? null : edge[par[v]]);
+		}
+		for (int e = 0; e < edge.length; e++) {
+			ED_cutvalue(edge[e], cutvalue[e]);
+			ED_tree_index(edge[e], treeIndex[e]);
+		}
+	}
+
+	private int SLACK(int e) {
+		return rank[head[e]] - rank[tail[e]] - minlen[e];
+	}
+
+	private boolean TREE_EDGE(int e) {
+		return treeIndex[e] >= 0;
+	}
+
+	private static boolean SEQ(int a, int b, int c) {
+		return a <= b && b <= c;
+	}
+
+
 @Reviewed(when = "14/11/2020")
 @Difficult
 @Original(version="2.38.0", path="lib/common/ns.c", name="add_tree_edge", key="6au5htcaxhw0blmx5c48v03u0", definition="static void add_tree_edge(edge_t * e)")
-public static void add_tree_edge(ST_Agedge_s e) {
+private void add_tree_edge(int e) {
 ENTERING("6au5htcaxhw0blmx5c48v03u0","add_tree_edge");
 try {
-    ST_Agnode_s n;
+    int n;
     if (TREE_EDGE(e)) {
 	UNSUPPORTED("cq4nqjjxvb0dtdfy4c7pwpqai"); // 	agerr(AGERR, "add_tree_edge: missing tree edge\n");
 	UNSUPPORTED("6fzmgjpkhmnx0a2cnt0q0rceg"); // 	longjmp (jbuf, 1);
     }
-    ED_tree_index(e, Z.z().Tree_edge.size);
-    
-    Z.z().Tree_edge.list.set_(Z.z().Tree_edge.size++, e);
-        
-    if (ND_mark(agtail(e)) == 0)
-    Z.z().Tree_node.list.set_(Z.z().Tree_node.size++, agtail(e));
-    if (ND_mark(aghead(e)) == 0)
-	Z.z().Tree_node.list.set_(Z.z().Tree_node.size++, aghead(e));
-    n = agtail(e);
-    ND_mark(n, 1);
-    ND_tree_out(n).list.set_(ND_tree_out(n).size++, e);
-    ND_tree_out(n).list.set_(ND_tree_out(n).size, null);
-    
-    if (ND_out(n).list.get_(ND_tree_out(n).size - 1) == null) {
+    treeIndex[e] = Tree_edge_size;
+
+    Tree_edge[Tree_edge_size++] = e;
+
+    if (mark[tail[e]] == 0)
+	Tree_node[Tree_node_size++] = tail[e];
+    if (mark[head[e]] == 0)
+	Tree_node[Tree_node_size++] = head[e];
+    n = tail[e];
+    mark[n] = 1;
+    if (outStart[n] + treeOutSize[n] >= outStart[n + 1]) {
 UNSUPPORTED("9src34zgmgy8yvdzfs1ozlh0w"); // 	agerr(AGERR, "add_tree_edge: empty outedge list\n");
 UNSUPPORTED("6fzmgjpkhmnx0a2cnt0q0rceg"); // 	longjmp (jbuf, 1);
     }
-    n = aghead(e);
-    ND_mark(n, 1);
-    
-    ND_tree_in(n).list.set_(ND_tree_in(n).size++, e);
-    ND_tree_in(n).list.set_(ND_tree_in(n).size, null);
+    treeOutList[outStart[n] + treeOutSize[n]++] = e;
 
-    if (ND_in(n).list.get_(ND_tree_in(n).size - 1) == null) {
+    n = head[e];
+    mark[n] = 1;
+    if (inStart[n] + treeInSize[n] >= inStart[n + 1]) {
 UNSUPPORTED("f0uri98pv606g2qjpy9k385cy"); // 	agerr(AGERR, "add_tree_edge: empty inedge list\n");
 UNSUPPORTED("6fzmgjpkhmnx0a2cnt0q0rceg"); // 	longjmp (jbuf, 1);
     }
+    treeInList[inStart[n] + treeInSize[n]++] = e;
 } finally {
 LEAVING("6au5htcaxhw0blmx5c48v03u0","add_tree_edge");
 }
@@ -162,41 +327,34 @@ LEAVING("6au5htcaxhw0blmx5c48v03u0","add_tree_edge");
 
 
 //3 9b7b78pmafynmvffztrqnlxtn
-// static void exchange_tree_edges(edge_t * e, edge_t * f) 
+// static void exchange_tree_edges(edge_t * e, edge_t * f)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="exchange_tree_edges", key="9b7b78pmafynmvffztrqnlxtn", definition="static void exchange_tree_edges(edge_t * e, edge_t * f)")
-public static void exchange_tree_edges(ST_Agedge_s e, ST_Agedge_s f) {
+private void exchange_tree_edges(int e, int f) {
 ENTERING("9b7b78pmafynmvffztrqnlxtn","exchange_tree_edges");
 try {
-    int i, j;
-    ST_Agnode_s n;
-    ED_tree_index(f, ED_tree_index(e));
-    Z.z().Tree_edge.list.set_(ED_tree_index(e), f);
-    ED_tree_index(e, -1);
-    n = agtail(e);
-    ND_tree_out(n).size = ND_tree_out(n).size -1;
-    i = ND_tree_out(n).size;
-    for (j = 0; j <= i; j++)
-	if (EQ(ND_tree_out(n).list.get_(j), e))
+    int i, j, n, base;
+    treeIndex[f] = treeIndex[e];
+    Tree_edge[treeIndex[e]] = f;
+    treeIndex[e] = -1;
+    n = tail[e];
+    base = outStart[n];
+    i = --treeOutSize[n];
+    for (j = 0; j < i; j++)
+	if (treeOutList[base + j] == e)
 	    break;
-    ND_tree_out(n).list.set_(j, ND_tree_out(n).list.get_(i));
-    ND_tree_out(n).list.set_(i, null);
-    n = aghead(e);
-    ND_tree_in(n).size = ND_tree_in(n).size -1;
-    i = ND_tree_in(n).size;
-    for (j = 0; j <= i; j++)
-	if (EQ(ND_tree_in(n).list.get_(j), e))
+    treeOutList[base + j] = treeOutList[base + i];
+    n = head[e];
+    base = inStart[n];
+    i = --treeInSize[n];
+    for (j = 0; j < i; j++)
+	if (treeInList[base + j] == e)
 	    break;
-    ND_tree_in(n).list.set_(j, ND_tree_in(n).list.get_(i));
-    ND_tree_in(n).list.set_(i, null);
-    n = agtail(f);
-    ND_tree_out(n).list.set_(ND_tree_out(n).size, f);
-    ND_tree_out(n).size = ND_tree_out(n).size +1;
-    ND_tree_out(n).list.set_(ND_tree_out(n).size, null);
-    n = aghead(f);
-    ND_tree_in(n).list.set_(ND_tree_in(n).size, f);
-    ND_tree_in(n).size = ND_tree_in(n).size +1;
-    ND_tree_in(n).list.set_(ND_tree_in(n).size, null);
+    treeInList[base + j] = treeInList[base + i];
+    n = tail[f];
+    treeOutList[outStart[n] + treeOutSize[n]++] = f;
+    n = head[f];
+    treeInList[inStart[n] + treeInSize[n]++] = f;
 } finally {
 LEAVING("9b7b78pmafynmvffztrqnlxtn","exchange_tree_edges");
 }
@@ -206,41 +364,48 @@ LEAVING("9b7b78pmafynmvffztrqnlxtn","exchange_tree_edges");
 
 
 //3 dbxco6m0mabzhsqfo3pb8nctk
-// static void init_rank(void) 
+// static void init_rank(void)
 @Unused
 @HasND_Rank
 @Original(version="2.38.0", path="lib/common/ns.c", name="init_rank", key="dbxco6m0mabzhsqfo3pb8nctk", definition="static void init_rank(void)")
-public static void init_rank() {
+private void init_rank() {
 ENTERING("dbxco6m0mabzhsqfo3pb8nctk","init_rank");
 try {
-    int i, ctr;
-    ST_nodequeue Q;
-    ST_Agnode_s v;
-    ST_Agedge_s e;
-    Q = new_queue(Z.z().N_nodes);
+    int i, v, e, ctr;
+    // circular queue, as new_queue/enqueue/dequeue
+    final int Q[] = new int[Math.max(N_nodes, 2)];
+    int qhead = 0, qtail = 0;
     ctr = 0;
-    for (v = GD_nlist(Z.z().G_ns); v!=null; v = ND_next(v)) {
-	if (ND_priority(v) == 0)
-	    enqueue(Q, v);
+    for (v = 0; v < N_nodes; v++) {
+	if (priority[v] == 0) {
+	    Q[qtail++] = v;
+	    if (qtail >= Q.length) qtail = 0;
+	}
     }
-    while ((v = dequeue(Q))!=null) {
-	ND_rank(v, 0);
+    while (qhead != qtail) {
+	v = Q[qhead++];
+	if (qhead >= Q.length) qhead = 0;
+	rank[v] = 0;
 	ctr++;
-	for (i = 0; (e = ND_in(v).list.get_(i))!=null; i++)
-	    ND_rank(v, MAX(ND_rank(v), ND_rank(agtail(e)) + ED_minlen(e)));
-	for (i = 0; (e = ND_out(v).list.get_(i))!=null; i++) {
-	    ND_priority(aghead(e), ND_priority(aghead(e)) -1 );
-	    if ((ND_priority(aghead(e))) <= 0)
-		enqueue(Q, aghead(e));
+	for (i = inStart[v]; i < inStart[v + 1]; i++) {
+	    e = inList[i];
+	    rank[v] = MAX(rank[v], rank[tail[e]] + minlen[e]);
+	}
+	for (i = outStart[v]; i < outStart[v + 1]; i++) {
+	    e = outList[i];
+	    priority[head[e]]--;
+	    if (priority[head[e]] <= 0) {
+		Q[qtail++] = head[e];
+		if (qtail >= Q.length) qtail = 0;
+	    }
 	}
     }
-    if (ctr != Z.z().N_nodes) {
+    if (ctr != N_nodes) {
 UNSUPPORTED("7sgp99x1l3hzfks5wykxa87gf"); // 	agerr(AGERR, "trouble in init_rank\n");
 UNSUPPORTED("bwwunxmw4kgz6qntbn6xp0cur"); // 	for (v = (((Agraphinfo_t*)(((Agobj_t*)(G))->data))->nlist); v; v = (((Agnodeinfo_t*)(((Agobj_t*)(v))->data))->next))
 UNSUPPORTED("3dk132mz1u2pf0tla64kl6hv0"); // 	    if ((((Agnodeinfo_t*)(((Agobj_t*)(v))->data))->priority))
 UNSUPPORTED("916bi45h6sjvte1rgig12b1v2"); // 		agerr(AGPREV, "\t%s %d\n", agnameof(v), (((Agnodeinfo_t*)(((Agobj_t*)(v))->data))->priority));
     }
-    free_queue(Q);
 } finally {
 LEAVING("dbxco6m0mabzhsqfo3pb8nctk","init_rank");
 }
@@ -250,20 +415,20 @@ LEAVING("dbxco6m0mabzhsqfo3pb8nctk","init_rank");
 
 
 //3 bj7ux5kz8ls2lnfh0ix6i00b9
-// static node_t *incident(edge_t * e) 
+// static node_t *incident(edge_t * e)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="", key="bj7ux5kz8ls2lnfh0ix6i00b9", definition="static node_t *incident(edge_t * e)")
-public static ST_Agnode_s incident(ST_Agedge_s e) {
+private int incident(int e) {
 ENTERING("bj7ux5kz8ls2lnfh0ix6i00b9","incident");
 try {
-    if (ND_mark(agtail(e))!=0) {
-	if (ND_mark(aghead(e)) == 0)
-	    return agtail(e);
+    if (mark[tail[e]]!=0) {
+	if (mark[head[e]] == 0)
+	    return tail[e];
     } else {
-	if (ND_mark(aghead(e))!=0)
-	    return aghead(e);
+	if (mark[head[e]]!=0)
+	    return head[e];
     }
-    return null;
+    return -1;
 } finally {
 LEAVING("bj7ux5kz8ls2lnfh0ix6i00b9","incident");
 }
@@ -275,38 +440,38 @@ LEAVING("bj7ux5kz8ls2lnfh0ix6i00b9","incident");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="", key="4i9tcvid2iql874c6k70s9aqm", definition="static edge_t *leave_edge(void)")
-public static ST_Agedge_s leave_edge() {
+private int leave_edge() {
 ENTERING("4i9tcvid2iql874c6k70s9aqm","leave_edge");
 try {
-    ST_Agedge_s f, rv = null;
+    int f, rv = -1;
     int j, cnt = 0;
-    
-    j = Z.z().S_i;
-    while (Z.z().S_i < Z.z().Tree_edge.size) {
-	if (ED_cutvalue(f = (ST_Agedge_s) Z.z().Tree_edge.list.get_(Z.z().S_i)) < 0) {
-	    if (rv!=null) {
-		if (ED_cutvalue(rv) > ED_cutvalue(f))
+
+    j = S_i;
+    while (S_i < Tree_edge_size) {
+	if (cutvalue[f = Tree_edge[S_i]] < 0) {
+	    if (rv!=-1) {
+		if (cutvalue[rv] > cutvalue[f])
 		    rv = f;
 	    } else
-		rv = (ST_Agedge_s) Z.z().Tree_edge.list.get_(Z.z().S_i);
-	    if (++cnt >= Z.z().Search_size)
+		rv = Tree_edge[S_i];
+	    if (++cnt >= Search_size)
 		return rv;
 	}
-	Z.z().S_i++;
+	S_i++;
     }
     if (j > 0) {
-	Z.z().S_i = 0;
-	while (Z.z().S_i < j) {
-	    if (ED_cutvalue(f = (ST_Agedge_s) Z.z().Tree_edge.list.get_(Z.z().S_i)) < 0) {
-		if (rv!=null) {
-		    if (ED_cutvalue(rv) > ED_cutvalue(f))
+	S_i = 0;
+	while (S_i < j) {
+	    if (cutvalue[f = Tree_edge[S_i]] < 0) {
+		if (rv!=-1) {
+		    if (cutvalue[rv] > cutvalue[f])
 			rv = f;
 		} else
-		    rv = (ST_Agedge_s) Z.z().Tree_edge.list.get_(Z.z().S_i);
-		if (++cnt >= Z.z().Search_size)
+		    rv = Tree_edge[S_i];
+		if (++cnt >= Search_size)
 		    return rv;
 	    }
-	    Z.z().S_i++;
+	    S_i++;
 	}
     }
     return rv;
@@ -316,40 +481,34 @@ LEAVING("4i9tcvid2iql874c6k70s9aqm","leave_edge");
 }
 
 
-//1 3wm7ej298st1xk7rbhbtnbk64
-// static edge_t *Enter
-//private static Agedge_s Enter;
-
-//1 dx9f0e947f5kjhc2eftn43t90
-// static int Low, Lim, Slack
-//private static int Low, Lim, Slack;
-
 
 
 //3 10lkpr4y40luvy2idlozfiva3
-// static void dfs_enter_outedge(node_t * v) 
+// static void dfs_enter_outedge(node_t * v)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="dfs_enter_outedge", key="10lkpr4y40luvy2idlozfiva3", definition="static void dfs_enter_outedge(node_t * v)")
-public static void dfs_enter_outedge(ST_Agnode_s v) {
+private void dfs_enter_outedge(int v) {
 ENTERING("10lkpr4y40luvy2idlozfiva3","dfs_enter_outedge");
 try {
-    int i, slack;
-    ST_Agedge_s e;
-    for (i = 0; (e = (ST_Agedge_s) ND_out(v).list.get_(i))!=null; i++) {
+    int i, e, slack;
+    for (i = outStart[v]; i < outStart[v + 1]; i++) {
+	e = outList[i];
 	if (TREE_EDGE(e) == false) {
-	    if (N(SEQ(Z.z().Low, ND_lim(aghead(e)), Z.z().Lim))) {
+	    if (SEQ(Low, lim[head[e]], Lim) == false) {
 		slack = SLACK(e);
-		if ((slack < Z.z().Slack) || (Z.z().Enter == null)) {
-		    Z.z().Enter = e;
-		    Z.z().Slack = slack;
+		if ((slack < Slack) || (Enter == -1)) {
+		    Enter = e;
+		    Slack = slack;
 		}
 	    }
-	} else if (ND_lim(aghead(e)) < ND_lim(v))
-	    dfs_enter_outedge(aghead(e));
+	} else if (lim[head[e]] < lim[v])
+	    dfs_enter_outedge(head[e]);
+    }
+    for (i = inStart[v]; i < inStart[v] + treeInSize[v] && (Slack > 0); i++) {
+	e = treeInList[i];
+	if (lim[tail[e]] < lim[v])
+	    dfs_enter_outedge(tail[e]);
     }
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_in(v).list.get_(i))!=null && (Z.z().Slack > 0); i++)
-	if (ND_lim(agtail(e)) < ND_lim(v))
-	    dfs_enter_outedge(agtail(e));
 } finally {
 LEAVING("10lkpr4y40luvy2idlozfiva3","dfs_enter_outedge");
 }
@@ -359,29 +518,31 @@ LEAVING("10lkpr4y40luvy2idlozfiva3","dfs_enter_outedge");
 
 
 //3 2z9nii6380p8qlql8nznzgvof
-// static void dfs_enter_inedge(node_t * v) 
+// static void dfs_enter_inedge(node_t * v)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="dfs_enter_inedge", key="2z9nii6380p8qlql8nznzgvof", definition="static void dfs_enter_inedge(node_t * v)")
-public static void dfs_enter_inedge(ST_Agnode_s v) {
+private void dfs_enter_inedge(int v) {
 ENTERING("2z9nii6380p8qlql8nznzgvof","dfs_enter_inedge");
 try {
-    int i, slack;
-    ST_Agedge_s e;
-    for (i = 0; (e = (ST_Agedge_s) ND_in(v).list.get_(i))!=null; i++) {
+    int i, e, slack;
+    for (i = inStart[v]; i < inStart[v + 1]; i++) {
+	e = inList[i];
 	if (TREE_EDGE(e) == false) {
-	    if (N(SEQ(Z.z().Low, ND_lim(agtail(e)), Z.z().Lim))) {
+	    if (SEQ(Low, lim[tail[e]], Lim) == false) {
 		slack = SLACK(e);
-		if ((slack < Z.z().Slack) || (Z.z().Enter == null)) {
-		    Z.z().Enter = e;
-		    Z.z().Slack = slack;
+		if ((slack < Slack) || (Enter == -1)) {
+		    Enter = e;
+		    Slack = slack;
 		}
 	    }
-	} else if (ND_lim(agtail(e)) < ND_lim(v))
-	    dfs_enter_inedge(agtail(e));
+	} else if (lim[tail[e]] < lim[v])
+	    dfs_enter_inedge(tail[e]);
+    }
+    for (i = outStart[v]; i < outStart[v] + treeOutSize[v] && (Slack > 0); i++) {
+	e = treeOutList[i];
+	if (lim[head[e]] < lim[v])
+	    dfs_enter_inedge(head[e]);
     }
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_out(v).list.get_(i))!=null && (Z.z().Slack > 0); i++)
-	if (ND_lim(aghead(e)) < ND_lim(v))
-	    dfs_enter_inedge(aghead(e));
 } finally {
 LEAVING("2z9nii6380p8qlql8nznzgvof","dfs_enter_inedge");
 }
@@ -391,31 +552,31 @@ LEAVING("2z9nii6380p8qlql8nznzgvof","dfs_enter_inedge");
 
 
 //3 aeu2po1o1rvibmafk0k8dw0fh
-// static edge_t *enter_edge(edge_t * e) 
+// static edge_t *enter_edge(edge_t * e)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="", key="aeu2po1o1rvibmafk0k8dw0fh", definition="static edge_t *enter_edge(edge_t * e)")
-public static ST_Agedge_s enter_edge(ST_Agedge_s e) {
+private int enter_edge(int e) {
 ENTERING("aeu2po1o1rvibmafk0k8dw0fh","enter_edge");
 try {
-    ST_Agnode_s v;
-    int outsearch;
+    int v;
+    boolean outsearch;
     /* v is the down node */
-    if (ND_lim(agtail(e)) < ND_lim(aghead(e))) {
-	v = agtail(e);
-	outsearch = 0;
+    if (lim[tail[e]] < lim[head[e]]) {
+	v = tail[e];
+	outsearch = false;
     } else {
-	v = aghead(e);
-	outsearch = 1;
+	v = head[e];
+	outsearch = true;
     }
-    Z.z().Enter = null;
-    Z.z().Slack = INT_MAX;
-    Z.z().Low = ND_low(v);
-    Z.z().Lim = ND_lim(v);
-    if (outsearch!=0)
+    Enter = -1;
+    Slack = INT_MAX;
+    Low = low[v];
+    Lim = lim[v];
+    if (outsearch)
 	dfs_enter_outedge(v);
     else
 	dfs_enter_inedge(v);
-    return Z.z().Enter;
+    return Enter;
 } finally {
 LEAVING("aeu2po1o1rvibmafk0k8dw0fh","enter_edge");
 }
@@ -426,23 +587,24 @@ LEAVING("aeu2po1o1rvibmafk0k8dw0fh","enter_edge");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="treesearch", key="1gvyafmercq92v3lg6gb33cbt", definition="static int treesearch(node_t * v)")
-public static boolean treesearch(ST_Agnode_s v) {
+private boolean treesearch(int v) {
 ENTERING("1gvyafmercq92v3lg6gb33cbt","treesearch");
 try {
-    int i;
-    ST_Agedge_s e;
-    
-    for (i = 0; (e = (ST_Agedge_s) ND_out(v).list.get_(i))!=null; i++) {
-	if ((ND_mark(aghead(e)) == 0) && (SLACK(e) == 0)) {
+    int i, e;
+
+    for (i = outStart[v]; i < outStart[v + 1]; i++) {
+	e = outList[i];
+	if ((mark[head[e]] == 0) && (SLACK(e) == 0)) {
 	    add_tree_edge(e);
-	    if ((Z.z().Tree_edge.size == Z.z().N_nodes - 1) || treesearch(aghead(e)))
+	    if ((Tree_edge_size == N_nodes - 1) || treesearch(head[e]))
 		return true;
 	}
     }
-    for (i = 0; (e = (ST_Agedge_s) ND_in(v).list.get_(i))!=null; i++) {
-	if ((ND_mark(agtail(e)) == 0) && (SLACK(e) == 0)) {
+    for (i = inStart[v]; i < inStart[v + 1]; i++) {
+	e = inList[i];
+	if ((mark[tail[e]] == 0) && (SLACK(e) == 0)) {
 	    add_tree_edge(e);
-	    if ((Z.z().Tree_edge.size == Z.z().N_nodes - 1) || treesearch(agtail(e)))
+	    if ((Tree_edge_size == N_nodes - 1) || treesearch(tail[e]))
 		return true;
 	}
     }
@@ -457,25 +619,22 @@ LEAVING("1gvyafmercq92v3lg6gb33cbt","treesearch");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="tight_tree", key="c98bj1u8j43cdezeczn33mec0", definition="static int tight_tree(void)")
-public static int tight_tree() {
+private int tight_tree() {
 ENTERING("c98bj1u8j43cdezeczn33mec0","tight_tree");
 try {
-    int i;
-    ST_Agnode_s n;
-    
-    for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n)) {
-	ND_mark(n, 0);
-	ND_tree_in(n).list.set_(0, null);
-	ND_tree_out(n).list.set_(0, null);
-	ND_tree_in(n).size = ND_tree_out(n).size = 0;
+    int i, n;
+
+    for (n = 0; n < N_nodes; n++) {
+	mark[n] = 0;
+	treeInSize[n] = treeOutSize[n] = 0;
     }
-    for (i = 0; i < Z.z().Tree_edge.size; i++)
-	ED_tree_index(Z.z().Tree_edge.list.get_(i), -1);
-    
-    Z.z().Tree_node.size = Z.z().Tree_edge.size = 0;
-    for (n = GD_nlist(Z.z().G_ns); n!=null && (Z.z().Tree_edge.size == 0); n = ND_next(n))
+    for (i = 0; i < Tree_edge_size; i++)
+	treeIndex[Tree_edge[i]] = -1;
+
+    Tree_node_size = Tree_edge_size = 0;
+    for (n = 0; n < N_nodes && (Tree_edge_size == 0); n++)
 	treesearch(n);
-    return Z.z().Tree_node.size;
+    return Tree_node_size;
 } finally {
 LEAVING("c98bj1u8j43cdezeczn33mec0","tight_tree");
 }
@@ -486,11 +645,11 @@ LEAVING("c98bj1u8j43cdezeczn33mec0","tight_tree");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="init_cutvalues", key="10o7oe8d097fx7swmpqd4tf0h", definition="static void init_cutvalues(void)")
-public static void init_cutvalues() {
+private void init_cutvalues() {
 ENTERING("10o7oe8d097fx7swmpqd4tf0h","init_cutvalues");
 try {
-    dfs_range(GD_nlist(Z.z().G_ns), null, 1);
-    dfs_cutval(GD_nlist(Z.z().G_ns), null);
+    dfs_range(0, -1, 1);
+    dfs_cutval(0, -1);
 } finally {
 LEAVING("10o7oe8d097fx7swmpqd4tf0h","init_cutvalues");
 }
@@ -502,20 +661,19 @@ LEAVING("10o7oe8d097fx7swmpqd4tf0h","init_cutvalues");
 @Reviewed(when = "14/11/2020")
 @HasND_Rank
 @Original(version="2.38.0", path="lib/common/ns.c", name="feasible_tree", key="756raqohoxdeiddqbyr37h7ig", definition="static int feasible_tree(void)")
-public static int feasible_tree() {
+private int feasible_tree() {
 ENTERING("756raqohoxdeiddqbyr37h7ig","feasible_tree");
 try {
-    int i, delta;
-    ST_Agnode_s n;
-    ST_Agedge_s e, f;
-    
-    if (Z.z().N_nodes <= 1)
+    int i, n, e, f, delta;
+
+    if (N_nodes <= 1)
 	return 0;
-    while (tight_tree() < Z.z().N_nodes) {
-	e = null;
-	for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n)) {
-	    for (i = 0; (f = (ST_Agedge_s) ND_out(n).list.get_(i))!=null; i++) {
-		if ((TREE_EDGE(f) == false) && incident(f)!=null && ((e == null)
+    while (tight_tree() < N_nodes) {
+	e = -1;
+	for (n = 0; n < N_nodes; n++) {
+	    for (i = outStart[n]; i < outStart[n + 1]; i++) {
+		f = outList[i];
+		if ((TREE_EDGE(f) == false) && incident(f)!=-1 && ((e == -1)
 							       || (SLACK(f)
 								   <
 								   SLACK
@@ -523,15 +681,15 @@ try {
 		    e = f;
 	    }
 	}
-	
-	
-	if (e!=null) {
+
+
+	if (e!=-1) {
 	    delta = SLACK(e);
 	    if (delta!=0) {
-		if (EQ(incident(e), aghead(e)))
+		if (incident(e) == head[e])
 		    delta = -delta;
-		for (i = 0; i < Z.z().Tree_node.size; i++)
-		    ND_rank(Z.z().Tree_node.list.get_(i), ND_rank(Z.z().Tree_node.list.get_(i)) + delta);
+		for (i = 0; i < Tree_node_size; i++)
+		    rank[Tree_node[i]] += delta;
 	    }
 	} else {
 	    return 1;
@@ -548,28 +706,28 @@ LEAVING("756raqohoxdeiddqbyr37h7ig","feasible_tree");
 
 
 //3 49un8m43odrf89cedvin3wz3r
-// static node_t *treeupdate(node_t * v, node_t * w, int cutvalue, int dir) 
+// static node_t *treeupdate(node_t * v, node_t * w, int cutvalue, int dir)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="", key="49un8m43odrf89cedvin3wz3r", definition="static node_t *treeupdate(node_t * v, node_t * w, int cutvalue, int dir)")
-public static ST_Agnode_s treeupdate(ST_Agnode_s v, ST_Agnode_s w, int cutvalue, boolean dir) {
+private int treeupdate(int v, int w, int cutvalue, boolean dir) {
 ENTERING("49un8m43odrf89cedvin3wz3r","treeupdate");
 try {
-    ST_Agedge_s e;
+    int e;
     boolean d;
-    while (N(SEQ(ND_low(v), ND_lim(w), ND_lim(v)))) {
-	e = (ST_Agedge_s) ND_par(v);
-	if (EQ(v, agtail(e)))
+    while (SEQ(low[v], lim[w], lim[v]) == false) {
+	e = par[v];
+	if (v == tail[e])
 	    d = dir;
 	else
-	    d = NOT(dir);
+	    d = !dir;
 	if (d)
-	    ED_cutvalue(e, ED_cutvalue(e) + cutvalue);
+	    this.cutvalue[e] += cutvalue;
 	else
-	    ED_cutvalue(e, ED_cutvalue(e) - cutvalue);
-	if (ND_lim(agtail(e)) > ND_lim(aghead(e)))
-	    v = agtail(e);
+	    this.cutvalue[e] -= cutvalue;
+	if (lim[tail[e]] > lim[head[e]])
+	    v = tail[e];
 	else
-	    v = aghead(e);
+	    v = head[e];
     }
     return v;
 } finally {
@@ -581,22 +739,21 @@ LEAVING("49un8m43odrf89cedvin3wz3r","treeupdate");
 
 
 //3 e66n8gern1fejjsn8nefypo0g
-// static void rerank(node_t * v, int delta) 
+// static void rerank(node_t * v, int delta)
 @Unused
 @HasND_Rank
 @Original(version="2.38.0", path="lib/common/ns.c", name="rerank", key="e66n8gern1fejjsn8nefypo0g", definition="static void rerank(node_t * v, int delta)")
-public static void rerank(ST_Agnode_s v, int delta) {
+private void rerank(int v, int delta) {
 ENTERING("e66n8gern1fejjsn8nefypo0g","rerank");
 try {
-    int i;
-    ST_Agedge_s e;
-    ND_rank(v, ND_rank(v) - delta);
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_out(v).list.get_(i))!=null; i++)
-	if (NEQ(e, ND_par(v)))
-	    rerank(aghead(e), delta);
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_in(v).list.get_(i))!=null; i++)
-	if (NEQ(e, ND_par(v)))
-	    rerank(agtail(e), delta);
+    int i, e;
+    rank[v] -= delta;
+    for (i = outStart[v]; i < outStart[v] + treeOutSize[v]; i++)
+	if ((e = treeOutList[i]) != par[v])
+	    rerank(head[e], delta);
+    for (i = inStart[v]; i < inStart[v] + treeInSize[v]; i++)
+	if ((e = treeInList[i]) != par[v])
+	    rerank(tail[e], delta);
 } finally {
 LEAVING("e66n8gern1fejjsn8nefypo0g","rerank");
 }
@@ -606,43 +763,43 @@ LEAVING("e66n8gern1fejjsn8nefypo0g","rerank");
 
 
 //3 xww1p8bentf1qk7mgfhi1q6m
-// static void  update(edge_t * e, edge_t * f) 
+// static void  update(edge_t * e, edge_t * f)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="update", key="xww1p8bentf1qk7mgfhi1q6m", definition="static void  update(edge_t * e, edge_t * f)")
-public static void update(ST_Agedge_s e, ST_Agedge_s f) {
+private void update(int e, int f) {
 ENTERING("xww1p8bentf1qk7mgfhi1q6m","update");
 try {
     int cutvalue, delta;
-    ST_Agnode_s lca;
+    int lca;
     delta = SLACK(f);
     /* "for (v = in nodes in tail side of e) do ND_rank(v) -= delta;" */
     if (delta > 0) {
 	int s;
-	s = ND_tree_in(agtail(e)).size + ND_tree_out(agtail(e)).size;
+	s = treeInSize[tail[e]] + treeOutSize[tail[e]];
 	if (s == 1)
-	    rerank(agtail(e), delta);
+	    rerank(tail[e], delta);
 	else {
-	    s = ND_tree_in(aghead(e)).size + ND_tree_out(aghead(e)).size;
+	    s = treeInSize[head[e]] + treeOutSize[head[e]];
 	    if (s == 1)
-		rerank(aghead(e), -delta);
+		rerank(head[e], -delta);
 	    else {
-		if (ND_lim(agtail(e)) < ND_lim(aghead(e)))
-		    rerank(agtail(e), delta);
+		if (lim[tail[e]] < lim[head[e]])
+		    rerank(tail[e], delta);
 		else
-		    rerank(aghead(e), -delta);
+		    rerank(head[e], -delta);
 	    }
 	}
     }
-    cutvalue = ED_cutvalue(e);
-    lca = treeupdate(agtail(f), aghead(f), cutvalue, true);
-    if (NEQ(treeupdate(aghead(f), agtail(f), cutvalue, false), lca)) {
+    cutvalue = this.cutvalue[e];
+    lca = treeupdate(tail[f], head[f], cutvalue, true);
+    if (treeupdate(head[f], tail[f], cutvalue, false) != lca) {
 UNSUPPORTED("f2l4c6yhnwnfer3vrasf55fio"); // 	agerr(AGERR, "update: mismatched lca in treeupdates\n");
 UNSUPPORTED("6fzmgjpkhmnx0a2cnt0q0rceg"); // 	longjmp (jbuf, 1);
     }
-    ED_cutvalue(f, -cutvalue);
-    ED_cutvalue(e, 0);
+    this.cutvalue[f] = -cutvalue;
+    this.cutvalue[e] = 0;
     exchange_tree_edges(e, f);
-    dfs_range(lca, ND_par(lca), ND_low(lca));
+    dfs_range(lca, par[lca], low[lca]);
 } finally {
 LEAVING("xww1p8bentf1qk7mgfhi1q6m","update");
 }
@@ -654,24 +811,24 @@ LEAVING("xww1p8bentf1qk7mgfhi1q6m","update");
 @Reviewed(when = "14/11/2020")
 @HasND_Rank
 @Original(version="2.38.0", path="lib/common/ns.c", name="scan_and_normalize", key="3yw7w42hz7af67d6qse3b2172", definition="static void scan_and_normalize(void)")
-public static void scan_and_normalize() {
+private void scan_and_normalize() {
 ENTERING("3yw7w42hz7af67d6qse3b2172","scan_and_normalize");
 try {
-    ST_Agnode_s n;
-    
-    Z.z().Minrank = Integer.MAX_VALUE;
-    Z.z().Maxrank = -Integer.MAX_VALUE;
-    for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n)) {
-	if (ND_node_type(n) == NORMAL) {
-	    Z.z().Minrank = MIN(Z.z().Minrank, ND_rank(n));
-	    Z.z().Maxrank = MAX(Z.z().Maxrank, ND_rank(n));
+    int n;
+
+    Minrank = Integer.MAX_VALUE;
+    Maxrank = -Integer.MAX_VALUE;
+    for (n = 0; n < N_nodes; n++) {
+	if (nodeType[n] == NORMAL) {
+	    Minrank = MIN(Minrank, rank[n]);
+	    Maxrank = MAX(Maxrank, rank[n]);
 	}
     }
-    if (Z.z().Minrank != 0) {
-	for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n))
-	    ND_rank(n, ND_rank(n) - Z.z().Minrank);
-	Z.z().Maxrank -= Z.z().Minrank;
-	Z.z().Minrank = 0;
+    if (Minrank != 0) {
+	for (n = 0; n < N_nodes; n++)
+	    rank[n] -= Minrank;
+	Maxrank -= Minrank;
+	Minrank = 0;
     }
 } finally {
 LEAVING("3yw7w42hz7af67d6qse3b2172","scan_and_normalize");
@@ -683,15 +840,11 @@ LEAVING("3yw7w42hz7af67d6qse3b2172","scan_and_normalize");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="freeTreeList", key="7eg6zti36nbg4tqyo8yunh86r", definition="static void freeTreeList (graph_t* g)")
-public static void freeTreeList(ST_Agraph_s g) {
+private void freeTreeList() {
 ENTERING("7eg6zti36nbg4tqyo8yunh86r","freeTreeList");
 try {
-    ST_Agnode_s n;
-    for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n)) {
-	free_list(ND_tree_in(n));
-	free_list(ND_tree_out(n));
-	ND_mark(n, 0);
-    }
+    for (int n = 0; n < N_nodes; n++)
+	mark[n] = 0;
 } finally {
 LEAVING("7eg6zti36nbg4tqyo8yunh86r","freeTreeList");
 }
@@ -701,30 +854,29 @@ LEAVING("7eg6zti36nbg4tqyo8yunh86r","freeTreeList");
 
 
 //3 9gx8p7md3v3mzp640xdjj814a
-// static void LR_balance(void) 
+// static void LR_balance(void)
 @Unused
 @Original(version="2.38.0", path="lib/common/ns.c", name="LR_balance", key="9gx8p7md3v3mzp640xdjj814a", definition="static void LR_balance(void)")
-public static void LR_balance() {
+private void LR_balance() {
 ENTERING("9gx8p7md3v3mzp640xdjj814a","LR_balance");
 try {
-    int i, delta;
-    ST_Agedge_s e, f;
-    for (i = 0; i < Z.z().Tree_edge.size; i++) {
-	e = (ST_Agedge_s) Z.z().Tree_edge.list.get_(i);
-	if (ED_cutvalue(e) == 0) {
+    int i, e, f, delta;
+    for (i = 0; i < Tree_edge_size; i++) {
+	e = Tree_edge[i];
+	if (cutvalue[e] == 0) {
 	    f = enter_edge(e);
-	    if (f == null)
+	    if (f == -1)
 		continue;
 	    delta = SLACK(f);
 	    if (delta <= 1)
 		continue;
-	    if (ND_lim(agtail(e)) < ND_lim(aghead(e)))
-		rerank(agtail(e), delta / 2);
+	    if (lim[tail[e]] < lim[head[e]])
+		rerank(tail[e], delta / 2);
 	    else
-		rerank(aghead(e), -delta / 2);
+		rerank(head[e], -delta / 2);
 	}
     }
-    freeTreeList (Z.z().G_ns);
+    freeTreeList ();
 } finally {
 LEAVING("9gx8p7md3v3mzp640xdjj814a","LR_balance");
 }
@@ -736,37 +888,36 @@ LEAVING("9gx8p7md3v3mzp640xdjj814a","LR_balance");
 @HasND_Rank
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="TB_balance", key="5c01jnao2ubmy4l0vi5jol0jz", definition="static void TB_balance(void)")
-public static void TB_balance() {
+private void TB_balance() {
 ENTERING("5c01jnao2ubmy4l0vi5jol0jz","TB_balance");
 try {
-    ST_Agnode_s n;
-    ST_Agedge_s e;
+    int n, e;
     int i, low, high, choice;
     int[] nrank;
     int inweight, outweight;
-    
+
     scan_and_normalize();
-    
+
     /* find nodes that are not tight and move to less populated ranks */
-    nrank = new int[Z.z().Maxrank + 1];
-    for (i = 0; i <= Z.z().Maxrank; i++)
-    nrank[i] = 0;
-    for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n))
-	if (ND_node_type(n) == NORMAL)
-		nrank[ND_rank(n)]++;
-    for (n = GD_nlist(Z.z().G_ns); n!=null; n = ND_next(n)) {
-	if (ND_node_type(n) != NORMAL)
+    nrank = new int[Maxrank + 1];
+    for (n = 0; n < N_nodes; n++)
+	if (nodeType[n] == NORMAL)
+		nrank[rank[n]]++;
+    for (n = 0; n < N_nodes; n++) {
+	if (nodeType[n] != NORMAL)
 	    continue;
 	inweight = outweight = 0;
 	low = 0;
-	high = Z.z().Maxrank;
-	for (i = 0; (e = (ST_Agedge_s) ND_in(n).list.get_(i))!=null; i++) {
-	    inweight += ED_weight(e);
-	    low = MAX(low, ND_rank(agtail(e)) + ED_minlen(e));
+	high = Maxrank;
+	for (i = inStart[n]; i < inStart[n + 1]; i++) {
+	    e = inList[i];
+	    inweight += weight[e];
+	    low = MAX(low, rank[tail[e]] + minlen[e]);
 	}
-	for (i = 0; (e = (ST_Agedge_s) ND_out(n).list.get_(i))!=null; i++) {
-	    outweight += ED_weight(e);
-	    high = MIN(high, ND_rank(aghead(e)) - ED_minlen(e));
+	for (i = outStart[n]; i < outStart[n + 1]; i++) {
+	    e = outList[i];
+	    outweight += weight[e];
+	    high = MIN(high, rank[head[e]] - minlen[e]);
 	}
 	if (low < 0)
 	    low = 0;		/* vnodes can have ranks < 0 */
@@ -775,15 +926,12 @@ try {
 	    for (i = low + 1; i <= high; i++)
 		if (nrank[i] < nrank[choice])
 		    choice = i;
-	    nrank[ND_rank(n)]--;
+	    nrank[rank[n]]--;
 	    nrank[choice]++;
-	    ND_rank(n, choice);
+	    rank[n] = choice;
 	}
-	free_list(ND_tree_in(n));
-	free_list(ND_tree_out(n));
-	ND_mark(n, 0);
+	mark[n] = 0;
     }
-    Memory.free(nrank);
 } finally {
 LEAVING("5c01jnao2ubmy4l0vi5jol0jz","TB_balance");
 }
@@ -798,46 +946,32 @@ LEAVING("5c01jnao2ubmy4l0vi5jol0jz","TB_balance");
 @Reviewed(when = "14/11/2020")
 @Difficult
 @Original(version="2.38.0", path="lib/common/ns.c", name="init_graph", key="37hg5w7ywmyljdiebgp5ltl22", definition="static int init_graph(graph_t * g)")
-public static int init_graph(ST_Agraph_s g) {
+private int init_graph() {
 ENTERING("37hg5w7ywmyljdiebgp5ltl22","init_graph");
 try {
-    int i, feasible;
-    ST_Agnode_s n;
-    ST_Agedge_s e;
-    
-    
-    Z.z().G_ns = g;
-    Z.z().N_nodes = Z.z().N_edges = Z.z().S_i = 0;
-    for (n = GD_nlist(g); n!=null; n = ND_next(n)) {
-	ND_mark(n, 0);
-	Z.z().N_nodes++;
-	for (i = 0; (e = (ST_Agedge_s) ND_out(n).list.get_(i))!=null; i++)
-	    Z.z().N_edges++;
-    }
-    
-    
-    Z.z().Tree_node.list = CArrayOfStar.<ST_Agnode_s>REALLOC(Z.z().N_nodes, Z.z().Tree_node.list, ST_Agnode_s.class); 
-    Z.z().Tree_node.size =  0;
-    Z.z().Tree_edge.list = CArrayOfStar.<ST_Agedge_s>REALLOC(Z.z().N_nodes, Z.z().Tree_edge.list, ST_Agedge_s.class);
-    Z.z().Tree_edge.size = 0;
-    
-    
+    int i, n, e, feasible;
+
+    S_i = 0;
+    for (n = 0; n < N_nodes; n++)
+	mark[n] = 0;
+
+    Tree_node_size = 0;
+    Tree_edge_size = 0;
+
     feasible = 1;
-    for (n = GD_nlist(g); n!=null; n = ND_next(n)) {
-	ND_priority(n, 0);
-	for (i = 0; (e = (ST_Agedge_s) ND_in(n).list.get_(i))!=null; i++) {
-	    ND_priority(n, ND_priority(n)+1);
-	    ED_cutvalue(e, 0);
-	    ED_tree_index(e, -1);
+    for (n = 0; n < N_nodes; n++) {
+	priority[n] = 0;
+	for (i = inStart[n]; i < inStart[n + 1]; i++) {
+	    e = inList[i];
+	    priority[n]++;
+	    cutvalue[e] = 0;
+	    treeIndex[e] = -1;
 	    if (feasible!=0
-		&& (ND_rank(aghead(e)) - ND_rank(agtail(e)) < ED_minlen(e)))
+		&& (rank[head[e]] - rank[tail[e]] < minlen[e]))
 		feasible = 0;
 	}
-	ND_tree_in(n).list = CArrayOfStar.<ST_Agedge_s> ALLOC(i + 1, ST_Agedge_s.class);
-	ND_tree_in(n).size = 0;
-	for (i = 0; (e = (ST_Agedge_s) ND_out(n).list.get_(i))!=null; i++);
-	ND_tree_out(n).list = CArrayOfStar.<ST_Agedge_s> ALLOC(i + 1, ST_Agedge_s.class);
-	ND_tree_out(n).size = 0;
+	treeInSize[n] = 0;
+	treeOutSize[n] = 0;
     }
     return feasible;
 } finally {
@@ -848,149 +982,29 @@ LEAVING("37hg5w7ywmyljdiebgp5ltl22","init_graph");
 
 
 
-
-/* rank:
- * Apply network simplex to rank the nodes in a graph.
- * Uses ED_minlen as the internode constraint: if a->b with minlen=ml,
- * rank b - rank a >= ml.
- * Assumes the graph has the following additional structure:
- *   A list of all nodes, starting at GD_nlist, and linked using ND_next.
- *   Out and in edges lists stored in ND_out and ND_in, even if the node
- *  doesn't have any out or in edges.
- * The node rank values are stored in ND_rank.
- * Returns 0 if successful; returns 1 if `he graph was not connected;
- * returns 2 if something seriously wrong;
- */
-@Difficult
-@Reviewed(when = "14/11/2020")
-@Original(version="2.38.0", path="lib/common/ns.c", name="rank2", key="5n0ipwzhr8urlx0fsdzr02gwq", definition="int rank2(graph_t * g, int balance, int maxiter, int search_size)")
-public static int rank2(ST_Agraph_s g, int balance, int maxiter, int search_size) {
-ENTERING("5n0ipwzhr8urlx0fsdzr02gwq","rank2");
-try {
-    int iter = 0, feasible;
-    CString ns = new CString("network simplex: ");
-    ST_Agedge_s e, f;
-    
-    
-    /*if (Verbose) {
-	int nn, ne;
-	graphSize (g, &nn, &ne);
-	fprintf(stderr, "%s %d nodes %d edges maxiter=%d balance=%d\n", ns,
-	    nn, ne, maxiter, balance);
-	start_timer();
-    }*/
-    feasible = init_graph(g);
-    if (N(feasible))
-	init_rank();
-    if (maxiter <= 0) {
-	freeTreeList (g);
-	return 0;
-    }
-    
-    
-    if (search_size >= 0)
-	Z.z().Search_size = search_size;
-    else
-	Z.z().Search_size = SEARCHSIZE;
-    
-    
-    if (setjmp (jbuf)!=0) {
-	return 2;
-    }
-    
-    
-    if (feasible_tree()!=0) {
-	freeTreeList (g);
-	return 1;
-    }
-    while ((e = leave_edge())!=null) {
-	f = enter_edge(e);
-	update(e, f);
-	iter++;
-	/*if (Verbose && (iter % 100 == 0)) {
-	    if (iter % 1000 == 100)
-		fputs(ns, stderr);
-	    fprintf(stderr, "%d ", iter);
-	    if (iter % 1000 == 0)
-		fputc('\n', stderr);
-	}*/
-	if (iter >= maxiter)
-	    break;
-    }
-    switch (balance) {
-    case 1:
-	TB_balance();
-	break;
-    case 2:
-	LR_balance();
-	break;
-    default:
-	scan_and_normalize();
-	freeTreeList (Z.z().G_ns);
-	break;
-    }
-    /*if (Verbose) {
-	if (iter >= 100)
-	    fputc('\n', stderr);
-	fprintf(stderr, "%s%d nodes %d edges %d iter %.2f sec\n",
-		ns, N_nodes, N_edges, iter, elapsed_sec());
-    }*/
-    return 0;
-} finally {
-LEAVING("5n0ipwzhr8urlx0fsdzr02gwq","rank2");
-}
-}
-
-
-
-
-@Reviewed(when = "14/11/2020")
-@Original(version="2.38.0", path="lib/common/ns.c", name="rank", key="aqly8eniwjr5bmh4hzwc7ftdr", definition="int rank(graph_t * g, int balance, int maxiter)")
-public static int rank(ST_Agraph_s g, int balance, int maxiter) {
-ENTERING("aqly8eniwjr5bmh4hzwc7ftdr","rank");
-try {
-    CString s;
-    int search_size;
-    
-    if ((s = agget(g, new CString("searchsize")))!=null)
-	search_size = atoi(s);
-    else
-	search_size = SEARCHSIZE;
-    
-    return rank2 (g, balance, maxiter, search_size);
-} finally {
-LEAVING("aqly8eniwjr5bmh4hzwc7ftdr","rank");
-}
-}
-
-
-
-
 /* set cut value of f, assuming values of edges on one side were already set */
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="x_cutval", key="2q59mz8qtn0biifbezb8uxz17", definition="static void x_cutval(edge_t * f)")
-public static void x_cutval(ST_Agedge_s f) {
+private void x_cutval(int f) {
 ENTERING("2q59mz8qtn0biifbezb8uxz17","x_cutval");
 try {
-    ST_Agnode_s v=null;
-    ST_Agedge_s e;
-    int i, sum, dir=0;
-    
+    int v, i, sum, dir;
+
     /* set v to the node on the side of the edge already searched */
-    if (EQ(ND_par(agtail(f)), f)) {
-	v = agtail(f);
+    if (par[tail[f]] == f) {
+	v = tail[f];
 	dir = 1;
     } else {
-	v = aghead(f);
+	v = head[f];
 	dir = -1;
     }
-    
+
     sum = 0;
-    for (i = 0; (e = (ST_Agedge_s) ND_out(v).list.get_(i))!=null; i++)
-	sum += x_val(e, v, dir);
-    for (i = 0; (e = (ST_Agedge_s) ND_in(v).list.get_(i))!=null; i++)
-	sum += x_val(e, v, dir);
-    ED_cutvalue(f, sum);
+    for (i = outStart[v]; i < outStart[v + 1]; i++)
+	sum += x_val(outList[i], v, dir);
+    for (i = inStart[v]; i < inStart[v + 1]; i++)
+	sum += x_val(inList[i], v, dir);
+    cutvalue[f] = sum;
 } finally {
 LEAVING("2q59mz8qtn0biifbezb8uxz17","x_cutval");
 }
@@ -1001,34 +1015,34 @@ LEAVING("2q59mz8qtn0biifbezb8uxz17","x_cutval");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="x_val", key="bfeafmsmmnblgizs37qj03dy4", definition="static int x_val(edge_t * e, node_t * v, int dir)")
-public static int x_val(ST_Agedge_s e, ST_Agnode_s v, int dir) {
+private int x_val(int e, int v, int dir) {
 ENTERING("bfeafmsmmnblgizs37qj03dy4","x_val");
 try {
-    ST_Agnode_s other;
+    int other;
     int d=0, rv=0, f=0;
-    
-    if (EQ(agtail(e), v))
-	other = aghead(e);
+
+    if (tail[e] == v)
+	other = head[e];
     else
-	other = agtail(e);
-    if (N(SEQ(ND_low(v), ND_lim(other), ND_lim(v)))) {
+	other = tail[e];
+    if (SEQ(low[v], lim[other], lim[v]) == false) {
 	f = 1;
-	rv = ED_weight(e);
+	rv = weight[e];
     } else {
 	f = 0;
 	if (TREE_EDGE(e))
-	    rv = ED_cutvalue(e);
+	    rv = cutvalue[e];
 	else
 	    rv = 0;
-	rv -= ED_weight(e);
+	rv -= weight[e];
     }
     if (dir > 0) {
-	if (EQ(aghead(e), v))
+	if (head[e] == v)
 	    d = 1;
 	else
 	    d = -1;
     } else {
-	if (EQ(agtail(e), v))
+	if (tail[e] == v)
 	    d = 1;
 	else
 	    d = -1;
@@ -1048,19 +1062,18 @@ LEAVING("bfeafmsmmnblgizs37qj03dy4","x_val");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="dfs_cutval", key="ah65iqmwa5j0qwotm6amhijlg", definition="static void dfs_cutval(node_t * v, edge_t * par)")
-public static void dfs_cutval(ST_Agnode_s v, ST_Agedge_s par) {
+private void dfs_cutval(int v, int par) {
 ENTERING("ah65iqmwa5j0qwotm6amhijlg","dfs_cutval");
 try {
-    int i;
-    ST_Agedge_s e;
-    
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_out(v).list.get_(i))!=null; i++)
-	if (NEQ(e, par))
-	    dfs_cutval(aghead(e), e);
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_in(v).list.get_(i))!=null; i++)
-	if (NEQ(e, par))
-	    dfs_cutval(agtail(e), e);
-    if (par!=null)
+    int i, e;
+
+    for (i = outStart[v]; i < outStart[v] + treeOutSize[v]; i++)
+	if ((e = treeOutList[i]) != par)
+	    dfs_cutval(head[e], e);
+    for (i = inStart[v]; i < inStart[v] + treeInSize[v]; i++)
+	if ((e = treeInList[i]) != par)
+	    dfs_cutval(tail[e], e);
+    if (par!=-1)
 	x_cutval(par);
 } finally {
 LEAVING("ah65iqmwa5j0qwotm6amhijlg","dfs_cutval");
@@ -1072,22 +1085,21 @@ LEAVING("ah65iqmwa5j0qwotm6amhijlg","dfs_cutval");
 
 @Reviewed(when = "14/11/2020")
 @Original(version="2.38.0", path="lib/common/ns.c", name="dfs_range", key="cgqr48qol9p8bsqjnryo5z5x9", definition="static int dfs_range(node_t * v, edge_t * par, int low)")
-public static int dfs_range(ST_Agnode_s v, ST_Agedge_s par, int low) {
+private int dfs_range(int v, int par, int low) {
 ENTERING("cgqr48qol9p8bsqjnryo5z5x9","dfs_range");
 try {
-    ST_Agedge_s e;
-    int i, lim;
-    
+    int i, e, lim;
+
     lim = low;
-    ND_par(v, par);
-    ND_low(v, low);
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_out(v).list.get_(i))!=null; i++)
-	if (NEQ(e, par))
-	    lim = dfs_range(aghead(e), e, lim);
-    for (i = 0; (e = (ST_Agedge_s) ND_tree_in(v).list.get_(i))!=null; i++)
-	if (NEQ(e, par))
-	    lim = dfs_range(agtail(e), e, lim);
-    ND_lim(v, lim);
+    this.par[v] = par;
+    this.low[v] = low;
+    for (i = outStart[v]; i < outStart[v] + treeOutSize[v]; i++)
+	if ((e = treeOutList[i]) != par)
+	    lim = dfs_range(head[e], e, lim);
+    for (i = inStart[v]; i < inStart[v] + treeInSize[v]; i++)
+	if ((e = treeInList[i]) != par)
+	    lim = dfs_range(tail[e], e, lim);
+    this.lim[v] = lim;
     return lim + 1;
 } finally {
 LEAVING("cgqr48qol9p8bsqjnryo5z5x9","dfs_range");
@@ -1095,4 +1107,113 @@ LEAVING("cgqr48qol9p8bsqjnryo5z5x9","dfs_range");
 }
 
 
+
+
+/* rank:
+ * Apply network simplex to rank the nodes in a graph.
+ * Uses ED_minlen as the internode constraint: if a->b with minlen=ml,
+ * rank b - rank a >= ml.
+ * Assumes the graph has the following additional structure:
+ *   A list of all nodes, starting at GD_nlist, and linked using ND_next.
+ *   Out and in edges lists stored in ND_out and ND_in, even if the node
+ *  doesn't have any out or in edges.
+ * The node rank values are stored in ND_rank.
+ * Returns 0 if successful; returns 1 if `he graph was not connected;
+ * returns 2 if something seriously wrong;
+ */
+@Difficult
+@Reviewed(when = "14/11/2020")
+@Original(version="2.38.0", path="lib/common/ns.c", name="rank2", key="5n0ipwzhr8urlx0fsdzr02gwq", definition="int rank2(graph_t * g, int balance, int maxiter, int search_size)")
+private int rank2(int balance, int maxiter, int search_size) {
+ENTERING("5n0ipwzhr8urlx0fsdzr02gwq","rank2");
+try {
+    int iter = 0, feasible;
+    int e, f;
+
+    feasible = init_graph();
+    if (feasible == 0)
+	init_rank();
+    if (maxiter <= 0) {
+	freeTreeList ();
+	return 0;
+    }
+
+
+    if (search_size >= 0)
+	Search_size = search_size;
+    else
+	Search_size = SEARCHSIZE;
+
+
+    if (feasible_tree()!=0) {
+	freeTreeList ();
+	return 1;
+    }
+    while ((e = leave_edge())!=-1) {
+	f = enter_edge(e);
+	update(e, f);
+	iter++;
+	if (iter >= maxiter)
+	    break;
+    }
+    switch (balance) {
+    case 1:
+	TB_balance();
+	break;
+    case 2:
+	LR_balance();
+	break;
+    default:
+	scan_and_normalize();
+	freeTreeList ();
+	break;
+    }
+    return 0;
+} finally {
+LEAVING("5n0ipwzhr8urlx0fsdzr02gwq","rank2");
+}
+}
+
+}
+
+
+
+
+@Reviewed(when = "14/11/2020")
+@Original(version="2.38.0", path="lib/common/ns.c", name="rank2", key="5n0ipwzhr8urlx0fsdzr02gwq", definition="int rank2(graph_t * g, int balance, int maxiter, int search_size)")
+public static int rank2(ST_Agraph_s g, int balance, int maxiter, int search_size) {
+    if (setjmp (jbuf)!=0) {
+	return 2;
+    }
+    final Simplex simplex = new Simplex(g);
+    try {
+	return simplex.rank2(balance, maxiter, search_size);
+    } finally {
+	simplex.write_back();
+    }
+}
+
+
+
+
+@Reviewed(when = "14/11/2020")
+@Original(version="2.38.0", path="lib/common/ns.c", name="rank", key="aqly8eniwjr5bmh4hzwc7ftdr", definition="int rank(graph_t * g, int balance, int maxiter)")
+public static int rank(ST_Agraph_s g, int balance, int maxiter) {
+ENTERING("aqly8eniwjr5bmh4hzwc7ftdr","rank");
+try {
+    CString s;
+    int search_size;
+
+    if ((s = agget(g, new CString("searchsize")))!=null)
+	search_size = atoi(s);
+    else
+	search_size = SEARCHSIZE;
+
+    return rank2 (g, balance, maxiter, search_size);
+} finally {
+LEAVING("aqly8eniwjr5bmh4hzwc7ftdr","rank");
+}
+}
+
+
 }
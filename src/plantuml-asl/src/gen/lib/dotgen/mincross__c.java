@@ -71,8 +71,6 @@ import static gen.lib.dotgen.fastgr__c.new_virtual_edge;
 import static smetana.core.JUtils.EQ;
 import static smetana.core.JUtils.NEQ;
 import static smetana.core.JUtils.atof;
-import static smetana.core.JUtils.qsort1;
-import static smetana.core.JUtils.qsort2;
 import static smetana.core.Macro.ALLOC_INT;
 import static smetana.core.Macro.CLUSTER;
 import static smetana.core.Macro.ED_edge_type;
@@ -128,6 +126,9 @@ import static smetana.core.Macro.flatindex;
 import static smetana.core.debug.SmetanaDebug.ENTERING;
 import static smetana.core.debug.SmetanaDebug.LEAVING;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 import gen.annotation.Difficult;
 import gen.annotation.Original;
 import gen.annotation.Reviewed;
@@ -666,9 +667,7 @@ try {
 	ND_order(n, (int)ND_coord(n).x);
     for (r = GD_minrank(g); r <= GD_maxrank(g); r++) {
 	GD_rank(Z.z().Root).get__(r).valid= 0;
-    qsort1(GD_rank(g).get__(r).v,
-    	    GD_rank(g).get__(r).n,
-    	    mincross__c.nodeposcmpf);
+    sort_by_order(GD_rank(g).get__(r).v, GD_rank(g).get__(r).n);
     }
 } finally {
 LEAVING("520049zkz9mafaeklgvm6s8e5","restore_best");
@@ -1699,12 +1698,12 @@ LEAVING("aq18oa4k4grixvfjx7r2qnl6r","local_cross");
 public static int rcross(ST_Agraph_s g, int r) {
 ENTERING("bk5nklhfqgg0uwkv7tv6dn8r2","rcross");
 try {
-    int top, bot, cross, max, i, k;
+    int top, bot, cross, total, i, k;
     ST_Agnode_s v;
     CArrayOfStar<ST_Agnode_s> rtop;
     
     cross = 0;
-    max = 0;
+    total = 0;
     rtop = GD_rank(g).get__(r).v;
     
     if (Z.z().C <= GD_rank(Z.z().Root).get__(r + 1).n) {
@@ -1712,22 +1711,28 @@ try {
 	Z.z().Count = ALLOC_INT(Z.z().C, Z.z().Count);
     }
     
-    for (i = 0; i < GD_rank(g).get__(r + 1).n; i++)
-    	Z.z().Count[i] = 0;
+    // Count is used as a Fenwick tree over the orders of the lower rank: the weight
+    // of the edges already seen that end right of a given order is total minus a
+    // prefix sum, found in log time instead of scanning every order up to the max.
+    final int[] count = Z.z().Count;
+    final int n = GD_rank(g).get__(r + 1).n;
+    for (i = 0; i <= n; i++)
+    	count[i] = 0;
     
     for (top = 0; top < GD_rank(g).get__(r).n; top++) {
 	ST_Agedge_s e;
-	if (max > 0) {
+	if (total > 0) {
 	    for (i = 0; (e = (ST_Agedge_s) ND_out(rtop.get_(top)).list.get_(i))!=null; i++) {
-		for (k = ND_order(aghead(e)) + 1; k <= max; k++)
-		    cross += Z.z().Count[k] * ED_xpenalty(e);
+		int right = total;
+		for (k = ND_order(aghead(e)) + 1; k > 0; k -= k & -k)
+		    right -= count[k];
+		cross += right * ED_xpenalty(e);
 	    }
 	}
 	for (i = 0; (e = (ST_Agedge_s) ND_out(rtop.get_(top)).list.get_(i))!=null; i++) {
-	    int inv = ND_order(aghead(e));
-	    if (inv > max)
-		max = inv;
-	    Z.z().Count[inv] += ED_xpenalty(e);
+	    for (k = ND_order(aghead(e)) + 1; k <= n; k += k & -k)
+		count[k] += ED_xpenalty(e);
+	    total += ED_xpenalty(e);
 	}
     }
     for (top = 0; top < GD_rank(g).get__(r).n; top++) {
@@ -1876,9 +1881,7 @@ try {
 	    ND_mval(n, (list[0] + list[1]) / 2);
 	    break;
 	default:
-	    qsort2(list,
-	    	    j,
-	    	    mincross__c.ordercmpf);
+	    Arrays.sort(list, 0, j);
 	    if (j % 2!=0)
 		ND_mval(n, list[j / 2]);
 	    else {
@@ -1910,6 +1913,24 @@ LEAVING("azvdpixwwxspl31wp7f4k4fmh","medians");
 
 
 
+/**
+ * Stable sort of the first n nodes of a rank by ND_order, giving the same result
+ * as qsort1 with nodeposcmpf without the quadratic bubble sort.
+ */
+private static void sort_by_order(CArrayOfStar<ST_Agnode_s> v, int n) {
+	final ST_Agnode_s nodes[] = new ST_Agnode_s[n];
+	for (int i = 0; i < n; i++)
+		nodes[i] = v.get_(i);
+	Arrays.sort(nodes, NODE_ORDER);
+	for (int i = 0; i < n; i++)
+		v.set_(i, nodes[i]);
+}
+
+private static final Comparator<ST_Agnode_s> NODE_ORDER = new Comparator<ST_Agnode_s>() {
+	public int compare(ST_Agnode_s n0, ST_Agnode_s n1) {
+		return ND_order(n0) - ND_order(n1);
+	}};
+
 public static CFunction nodeposcmpf = new CFunctionAbstract("nodeposcmpf") {
 	
 	public Object exe(Object... args) {
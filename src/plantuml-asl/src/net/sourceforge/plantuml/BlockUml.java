@@ -62,6 +62,21 @@ public class BlockUml {
 	private final ISkinSimple skinParam;
 	private final Set<FileWithSuffix> included = new HashSet<FileWithSuffix>();
 
+	/**
+	 * Tells if this block includes lines from an URL, so that its files are not enough to know if it changed.
+	 */
+	public boolean isUrlIncluded() {
+		return urlIncluded;
+	}
+
+	/**
+	 * Tells if preprocessing called a function whose result depends on the time or on the environment, such as
+	 * %date or %getenv.
+	 */
+	public boolean isTimeOrEnvironmentRead() {
+		return timeOrEnvironmentRead;
+	}
+
 	public Set<FileWithSuffix> getIncluded() {
 		return Collections.unmodifiableSet(included);
 	}
@@ -102,6 +117,8 @@ public class BlockUml {
 	}
 
 	private boolean preprocessorError;
+	private boolean urlIncluded;
+	private boolean timeOrEnvironmentRead;
 
 	public BlockUml(List<StringLocated> strings, Defines defines, ISkinSimple skinParam, PreprocessorModeSet mode) {
 		this.rawSource = new ArrayList<StringLocated>(strings);
@@ -120,6 +137,8 @@ public class BlockUml {
 			this.data = timLoader.getResultList();
 			this.debug = timLoader.getDebug();
 			this.preprocessorError = timLoader.isPreprocessorError();
+			this.urlIncluded = timLoader.isUrlIncluded();
+			this.timeOrEnvironmentRead = timLoader.isTimeOrEnvironmentRead();
 		}
 	}
 
@@ -165,11 +184,11 @@ public class BlockUml {
 		return data;
 	}
 
-	private String internalEtag() {
+	private static String internalEtag(List<StringLocated> lines) {
 		try {
 			final AsciiEncoder coder = new AsciiEncoder();
 			final MessageDigest msgDigest = MessageDigest.getInstance("MD5");
-			for (StringLocated s : data) {
+			for (StringLocated s : lines) {
 				msgDigest.update(s.getString().getBytes("UTF-8"));
 			}
 			final byte[] digest = msgDigest.digest();
@@ -181,7 +200,33 @@ public class BlockUml {
 	}
 
 	public String etag() {
-		return Version.etag() + internalEtag();
+		return Version.etag() + internalEtag(data);
+	}
+
+	/**
+	 * Identifies the images of this block. Unlike {@link #etag()}, each line is followed by a separator, so that
+	 * joining or splitting lines gives another key. When the images embed their source, the source before
+	 * preprocessing is taken into account as well.
+	 */
+	public String getCacheKey(boolean withMetadata) {
+		final String key = Version.etag() + internalDigest(data);
+		if (withMetadata) {
+			return key + internalDigest(rawSource);
+		}
+		return key;
+	}
+
+	private static String internalDigest(List<StringLocated> lines) {
+		try {
+			final MessageDigest msgDigest = MessageDigest.getInstance("MD5");
+			for (StringLocated s : lines) {
+				msgDigest.update(s.getString().getBytes("UTF-8"));
+				msgDigest.update((byte) '\n');
+			}
+			return new AsciiEncoder().encode(msgDigest.digest());
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	public long lastModified() {
@@ -132,6 +132,15 @@ public final class BlockUmlBuilder implements DefinitionsContainer {
 		return Collections.unmodifiableSet(usedFiles);
 	}
 
+	public final boolean isUrlIncluded() {
+		for (BlockUml block : blocks) {
+			if (block.isUrlIncluded()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public List<String> getDefinition(String name) {
 		for (BlockUml block : blocks) {
 			if (block.isStartDef(name)) {
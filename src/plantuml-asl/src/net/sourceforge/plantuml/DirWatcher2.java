@@ -32,13 +32,24 @@ package net.sourceforge.plantuml;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -46,14 +57,30 @@ import java.util.concurrent.TimeUnit;
 
 import net.sourceforge.plantuml.preproc.FileWithSuffix;
 
+/**
+ * Watches a directory and renders the diagrams that changed.
+ * <p>
+ * File system events are delivered by a {@link WatchService} on the directory and on the directories of all
+ * included files. A reverse include index maps each changed file onto the diagrams that depend on it, so only
+ * those are rendered again. Events are debounced so an editor saving a file in several steps triggers one
+ * rendering. When no <code>WatchService</code> is available, or when events were lost, every file is polled
+ * with a {@link FileWatcher} instead.
+ */
 public class DirWatcher2 {
 
+	private static final long DEBOUNCE_MS = 100;
+
 	final private File dir;
 	final private Option option;
 	final private String pattern;
 
 	final private Map<File, FileWatcher> modifieds = new ConcurrentHashMap<File, FileWatcher>();
+	final private ConcurrentMap<File, Set<File>> dependents = new ConcurrentHashMap<File, Set<File>>();
+	final private Map<File, Long> pendings = new HashMap<File, Long>();
+	final private Set<Path> watchedDirs = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
 	final private ExecutorService executorService;
+	private WatchService watchService;
+	private boolean fullScan = true;
 
 	public DirWatcher2(File dir, Option option, String pattern) {
 		this.dir = dir;
@@ -61,48 +88,154 @@ public class DirWatcher2 {
 		this.pattern = pattern;
 		final int nb = Option.defaultNbThreads();
 		this.executorService = Executors.newFixedThreadPool(nb);
-
+		try {
+			this.watchService = FileSystems.getDefault().newWatchService();
+			watch(dir);
+		} catch (IOException e) {
+			Log.info("Cannot watch " + dir + ", polling instead: " + e);
+			this.watchService = null;
+		}
 	}
 
 	public Map<File, Future<List<GeneratedImage>>> buildCreatedFiles() throws IOException, InterruptedException {
 		final Map<File, Future<List<GeneratedImage>>> result = new TreeMap<File, Future<List<GeneratedImage>>>();
-		if (dir.listFiles() != null) {
-			for (final File f : dir.listFiles()) {
-				if (f.isFile() == false) {
-					continue;
+		if (watchService == null || fullScan) {
+			fullScan = false;
+			if (dir.listFiles() != null) {
+				for (final File f : dir.listFiles()) {
+					if (f.isFile() == false) {
+						continue;
+					}
+					if (fileToProcess(f.getName()) == false) {
+						continue;
+					}
+					final FileWatcher watcher = modifieds.get(f);
+					if (watcher == null || watcher.hasChanged()) {
+						result.put(f, submit(f));
+					}
+				}
+			}
+		} else {
+			for (File f : changedFiles()) {
+				if (f.isFile() && fileToProcess(f.getName())) {
+					result.put(f, submit(f));
+				}
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private Future<List<GeneratedImage>> submit(final File f) throws IOException {
+		final SourceFileReader sourceFileReader = new SourceFileReader(option.getDefaultDefines(f), f,
+				option.getOutputDir(), option.getConfig(), option.getCharset(), option.getFileFormatOption());
+		modifieds.put(f, new FileWatcher(Collections.singleton(f)));
+		return executorService.submit(new Callable<List<GeneratedImage>>() {
+			public List<GeneratedImage> call() throws Exception {
+				try {
+					final List<GeneratedImage> generatedImages = sourceFileReader.getGeneratedImages();
+					final Set<File> files = FileWithSuffix.convert(sourceFileReader.getIncludedFiles());
+					files.add(f);
+					modifieds.put(f, new FileWatcher(files));
+					updateDependencies(f, files);
+					return Collections.unmodifiableList(generatedImages);
+				} catch (Exception e) {
+					e.printStackTrace();
+					return Collections.emptyList();
 				}
-				if (fileToProcess(f.getName()) == false) {
+			}
+		});
+	}
+
+	/**
+	 * Drains the pending watch events and returns the diagrams to render, once the files they depend on have
+	 * been quiet for the debounce delay.
+	 */
+	private Set<File> changedFiles() {
+		final long now = System.currentTimeMillis();
+		WatchKey key;
+		while ((key = pollQuietly()) != null) {
+			final Path watched = (Path) key.watchable();
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					fullScan = true;
 					continue;
 				}
-				final FileWatcher watcher = modifieds.get(f);
-
-				if (watcher == null || watcher.hasChanged()) {
-					final SourceFileReader sourceFileReader = new SourceFileReader(option.getDefaultDefines(f), f,
-							option.getOutputDir(), option.getConfig(), option.getCharset(),
-							option.getFileFormatOption());
-					modifieds.put(f, new FileWatcher(Collections.singleton(f)));
-					final Future<List<GeneratedImage>> value = executorService
-							.submit(new Callable<List<GeneratedImage>>() {
-								public List<GeneratedImage> call() throws Exception {
-									try {
-										final List<GeneratedImage> generatedImages = sourceFileReader
-												.getGeneratedImages();
-										final Set<File> files = FileWithSuffix
-												.convert(sourceFileReader.getIncludedFiles());
-										files.add(f);
-										modifieds.put(f, new FileWatcher(files));
-										return Collections.unmodifiableList(generatedImages);
-									} catch (Exception e) {
-										e.printStackTrace();
-										return Collections.emptyList();
-									}
-								}
-							});
-					result.put(f, value);
+				final String name = event.context().toString();
+				final boolean inDir = normalize(watched.toFile()).equals(normalize(dir));
+				pendings.put(inDir ? new File(dir, name) : normalize(new File(watched.toFile(), name)), now);
+			}
+			if (key.reset() == false) {
+				watchedDirs.remove(watched);
+			}
+		}
+		final Set<File> result = new HashSet<File>();
+		if (fullScan) {
+			return result;
+		}
+		for (Iterator<Map.Entry<File, Long>> it = pendings.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<File, Long> ent = it.next();
+			if (now - ent.getValue() < DEBOUNCE_MS) {
+				continue;
+			}
+			it.remove();
+			final File changed = ent.getKey();
+			if (changed.getParentFile() != null && changed.getParentFile().equals(dir)) {
+				result.add(changed);
+			}
+			final Set<File> users = dependents.get(normalize(changed));
+			if (users != null) {
+				result.addAll(users);
+			}
+		}
+		return result;
+	}
+
+	private WatchKey pollQuietly() {
+		try {
+			return watchService.poll();
+		} catch (ClosedWatchServiceException e) {
+			return null;
+		}
+	}
+
+	private void updateDependencies(File diagram, Set<File> files) {
+		for (Set<File> users : dependents.values()) {
+			users.remove(diagram);
+		}
+		for (File f : files) {
+			final File included = normalize(f);
+			Set<File> users = dependents.get(included);
+			if (users == null) {
+				users = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+				final Set<File> previous = dependents.putIfAbsent(included, users);
+				if (previous != null) {
+					users = previous;
+				}
+			}
+			users.add(diagram);
+			if (included.getParentFile() != null) {
+				try {
+					watch(included.getParentFile());
+				} catch (IOException e) {
+					Log.info("Cannot watch " + included.getParentFile() + ": " + e);
 				}
 			}
 		}
-		return Collections.unmodifiableMap(result);
+	}
+
+	private void watch(File directory) throws IOException {
+		if (watchService == null) {
+			return;
+		}
+		final Path path = directory.toPath();
+		if (watchedDirs.add(path)) {
+			path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+		}
+	}
+
+	private static File normalize(File f) {
+		return f.getAbsoluteFile().toPath().normalize().toFile();
 	}
 
 	private boolean fileToProcess(String name) {
@@ -115,11 +248,23 @@ public class DirWatcher2 {
 
 	public void cancel() {
 		executorService.shutdownNow();
+		closeWatchService();
 	}
 
 	public void waitEnd() throws InterruptedException {
 		executorService.shutdown();
 		executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		closeWatchService();
+	}
+
+	private void closeWatchService() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 	}
 
 }
@@ -84,11 +84,20 @@ public enum FileFormat {
 		return "." + StringUtils.goLowerCase(name());
 	}
 
-	final static private BufferedImage imDummy = new BufferedImage(800, 100, BufferedImage.TYPE_INT_RGB);
-	final static public Graphics2D gg = imDummy.createGraphics();
-	static {
-		// KEY_FRACTIONALMETRICS
-		gg.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+	/**
+	 * Holds the graphics used to measure text, so that Java2D is only initialized when some text is actually measured.
+	 */
+	static private class Dummy {
+		final static private BufferedImage imDummy = new BufferedImage(800, 100, BufferedImage.TYPE_INT_RGB);
+		final static private Graphics2D gg = imDummy.createGraphics();
+		static {
+			// KEY_FRACTIONALMETRICS
+			gg.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		}
+	}
+
+	public static Graphics2D getDummyGraphics() {
+		return Dummy.gg;
 	}
 
 	public StringBounder getDefaultStringBounder(TikzFontDistortion tikzFontDistortion) {
@@ -138,6 +147,7 @@ public enum FileFormat {
 
 	static private Dimension2DDouble getJavaDimension(UFont font, String text) {
 		final Font javaFont = font.getFont();
+		final Graphics2D gg = getDummyGraphics();
 		final FontMetrics fm = gg.getFontMetrics(javaFont);
 		final Rectangle2D rect = fm.getStringBounds(text, gg);
 		return new Dimension2DDouble(rect.getWidth(), rect.getHeight());
@@ -143,6 +143,15 @@ public final class FileFormatOption implements Serializable {
 		return fileFormat.toString() + " " + affineTransform;
 	}
 
+	/**
+	 * Returns a string that differs for any two options that may give different images.
+	 */
+	public String getCacheKey() {
+		return fileFormat + " " + affineTransform + " " + withMetadata + " " + useRedForError + " " + svgLinkTarget
+				+ " " + debugsvek + " " + hoverColor + " " + tikzFontDistortion + " " + scale + " "
+				+ preserveAspectRatio + " " + watermark;
+	}
+
 	public final FileFormat getFileFormat() {
 		return fileFormat;
 	}
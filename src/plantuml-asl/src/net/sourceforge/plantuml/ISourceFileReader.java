@@ -32,6 +32,7 @@ package net.sourceforge.plantuml;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 public interface ISourceFileReader {
 
@@ -45,4 +46,8 @@ public interface ISourceFileReader {
 
 	public void setCheckMetadata(boolean checkMetadata);
 
+	public void setExecutor(ExecutorService executor);
+
+	public void setManifest(OutputManifest manifest, String settings);
+
 }
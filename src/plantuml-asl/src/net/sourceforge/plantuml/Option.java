@@ -77,6 +77,7 @@ public class Option {
 	private int picowebPort = -1;
 	private boolean hideMetadata = false;
 	private boolean checkMetadata = false;
+	private boolean incremental = false;
 	private int stdrpt = 0;
 	private int imageIndex = 0;
 
@@ -342,6 +343,8 @@ public class Option {
 				preprocessorOutput = OptionPreprocOutputMode.CYPHER;
 			} else if (s.equalsIgnoreCase("-checkmetadata")) {
 				checkMetadata = true;
+			} else if (s.equalsIgnoreCase("-incremental")) {
+				incremental = true;
 			} else if (s.equalsIgnoreCase("-stdrpt:1")) {
 				stdrpt = 1;
 			} else if (s.equalsIgnoreCase("-stdrpt:2")) {
@@ -520,6 +523,10 @@ public class Option {
 		return Collections.unmodifiableList(config);
 	}
 
+	public Map<String, String> getDefines() {
+		return Collections.unmodifiableMap(defines);
+	}
+
 	public final List<String> getResult() {
 		return Collections.unmodifiableList(result);
 	}
@@ -651,6 +658,10 @@ public class Option {
 		return checkMetadata;
 	}
 
+	public final boolean isIncremental() {
+		return incremental;
+	}
+
 	public final OptionPreprocOutputMode getPreprocessorOutputMode() {
 		return preprocessorOutput;
 	}
@@ -109,6 +109,7 @@ public class OptionPrint {
 		System.out.println("    -metadata\t\tTo retrieve PlantUML sources from PNG images");
 		System.out.println("    -nometadata\t\tTo NOT export metadata in PNG/SVG generated files");
 		System.out.println("    -checkmetadata\t\tSkip PNG files that don't need to be regenerated");
+		System.out.println("    -incremental\t\tOnly regenerate images whose sources changed since the last run");
 		System.out.println("    -version\t\tTo display information about PlantUML and Java versions");
 		System.out.println("    -v[erbose]\t\tTo have log information");
 		System.out.println("    -quiet\t\tTo NOT print error message into the console");
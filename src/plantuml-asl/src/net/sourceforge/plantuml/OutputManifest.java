@@ -0,0 +1,414 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.sourceforge.plantuml.api.ImageDataSimple;
+import net.sourceforge.plantuml.code.AsciiEncoder;
+import net.sourceforge.plantuml.security.SFile;
+import net.sourceforge.plantuml.version.Version;
+
+/**
+ * Remembers, for the sources rendered into an output directory, the files they were read from and the files they
+ * generated. A source whose files all kept their size and date, or their content, is up to date and is not read
+ * again. In a changed source, blocks whose preprocessed text is unchanged keep their images.
+ * 
+ * The manifest is a text file named plantuml.manifest, with one tab separated record per line:
+ * <ul>
+ * <li>S path settings lineError urlIncluded: a source, followed by its records</li>
+ * <li>F path length lastModified digest: the source itself, then each included file</li>
+ * <li>B etag@line description: a block, followed by its outputs</li>
+ * <li>O path length lastModified status: a generated file</li>
+ * </ul>
+ */
+public class OutputManifest {
+
+	public static final String FILENAME = "plantuml.manifest";
+
+	private final SFile dir;
+	private final Map<String, Source> sources = new TreeMap<String, Source>();
+	private boolean modified;
+
+	private OutputManifest(SFile dir) {
+		this.dir = dir.getAbsoluteFile();
+	}
+
+	static class Source {
+		private final String settings;
+		private final int lineError;
+		private final boolean urlIncluded;
+		private final List<Stat> files = new ArrayList<Stat>();
+		private final List<Block> blocks = new ArrayList<Block>();
+
+		Source(String settings, int lineError, boolean urlIncluded) {
+			this.settings = settings;
+			this.lineError = lineError;
+			this.urlIncluded = urlIncluded;
+		}
+	}
+
+	static class Stat {
+		private final String path;
+		private long length;
+		private long lastModified;
+		private final String digest;
+
+		Stat(String path, long length, long lastModified, String digest) {
+			this.path = path;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.digest = digest;
+		}
+	}
+
+	static class Block {
+		private final String etag;
+		private final String description;
+		private final List<Stat> outputs = new ArrayList<Stat>();
+		private final List<Integer> status = new ArrayList<Integer>();
+
+		Block(String etag, String description) {
+			this.etag = etag;
+			this.description = description.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+		}
+
+		String getDescription() {
+			return description;
+		}
+	}
+
+	public static OutputManifest load(SFile dir) {
+		final OutputManifest result = new OutputManifest(dir);
+		final SFile file = result.getFile();
+		if (file.exists() == false) {
+			return result;
+		}
+		final BufferedReader br = file.openBufferedReader();
+		if (br == null) {
+			return result;
+		}
+		try {
+			Source source = null;
+			Block block = null;
+			String s;
+			while ((s = br.readLine()) != null) {
+				final String[] fields = s.split("\t");
+				if (fields[0].equals("S") && fields.length == 5) {
+					source = new Source(fields[2], Integer.parseInt(fields[3]), fields[4].equals("1"));
+					block = null;
+					result.sources.put(fields[1], source);
+				} else if (fields[0].equals("F") && fields.length == 5 && source != null) {
+					source.files.add(new Stat(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+							fields[4]));
+				} else if (fields[0].equals("B") && fields.length == 3 && source != null) {
+					block = new Block(fields[1], fields[2]);
+					source.blocks.add(block);
+				} else if (fields[0].equals("O") && fields.length == 5 && block != null) {
+					block.outputs.add(new Stat(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]), null));
+					block.status.add(Integer.parseInt(fields[4]));
+				}
+			}
+		} catch (Exception e) {
+			Log.error("Cannot read " + file.getPrintablePath() + ", rebuilding everything: " + e);
+			result.sources.clear();
+		} finally {
+			try {
+				br.close();
+			} catch (IOException e) {
+				Log.error("Error " + e);
+			}
+		}
+		return result;
+	}
+
+	public synchronized void save() throws IOException {
+		if (modified == false) {
+			return;
+		}
+		final PrintWriter pw = getFile().createPrintWriter("UTF-8");
+		try {
+			for (Map.Entry<String, Source> ent : sources.entrySet()) {
+				final Source source = ent.getValue();
+				pw.print("S\t" + ent.getKey() + "\t" + source.settings + "\t" + source.lineError + "\t"
+						+ (source.urlIncluded ? "1" : "0") + "\n");
+				for (Stat f : source.files) {
+					pw.print("F\t" + f.path + "\t" + f.length + "\t" + f.lastModified + "\t" + f.digest + "\n");
+				}
+				for (Block block : source.blocks) {
+					pw.print("B\t" + block.etag + "\t" + block.description + "\n");
+					for (int i = 0; i < block.outputs.size(); i++) {
+						final Stat f = block.outputs.get(i);
+						pw.print("O\t" + f.path + "\t" + f.length + "\t" + f.lastModified + "\t" + block.status.get(i)
+								+ "\n");
+					}
+				}
+			}
+		} finally {
+			pw.close();
+		}
+		modified = false;
+	}
+
+	private SFile getFile() {
+		return dir.file(FILENAME);
+	}
+
+	/**
+	 * Returns a key for the options that change the images of a source.
+	 */
+	public static String getSettings(FileFormatOption fileFormatOption, String charset, List<String> config,
+			Map<String, String> defines) {
+		final StringBuilder sb = new StringBuilder(Version.etag());
+		sb.append(fileFormatOption.getCacheKey());
+		sb.append('\n');
+		sb.append(charset);
+		for (String s : config) {
+			sb.append('\n');
+			sb.append(s);
+		}
+		for (Map.Entry<String, String> ent : new TreeMap<String, String>(defines).entrySet()) {
+			sb.append('\n');
+			sb.append(ent.getKey());
+			sb.append('=');
+			sb.append(ent.getValue());
+		}
+		return digest(sb.toString());
+	}
+
+	/**
+	 * Tells if the files generated from this source are up to date, without reading the source. A source that
+	 * includes an URL is never up to date.
+	 */
+	public synchronized boolean isUpToDate(File source, String settings) {
+		final Source recorded = sources.get(getPath(source));
+		if (recorded == null || recorded.settings.equals(settings) == false || recorded.blocks.size() == 0
+				|| recorded.urlIncluded) {
+			return false;
+		}
+		for (Stat f : recorded.files) {
+			if (isUnchanged(f) == false) {
+				return false;
+			}
+		}
+		for (Block block : recorded.blocks) {
+			if (isGenerated(block) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the line of the first error in this source when it was last rendered, or -1.
+	 */
+	public synchronized int getLineError(File source) {
+		final Source recorded = sources.get(getPath(source));
+		if (recorded == null) {
+			return -1;
+		}
+		return recorded.lineError;
+	}
+
+	/**
+	 * Returns the files generated by this block if it was recorded at the same line, was rendered into the same first
+	 * file, and that they are still there.
+	 */
+	synchronized Block getBlock(File source, String settings, BlockUml blockUml, boolean withMetadata,
+			SFile firstFile) {
+		final String etag = getEtag(blockUml, withMetadata);
+		final Source recorded = sources.get(getPath(source));
+		if (recorded == null || recorded.settings.equals(settings) == false) {
+			return null;
+		}
+		final String path = getPath(firstFile.internal);
+		for (Block block : recorded.blocks) {
+			if (block.etag.equals(etag) && block.outputs.size() > 0 && block.outputs.get(0).path.equals(path)
+					&& isGenerated(block)) {
+				return block;
+			}
+		}
+		return null;
+	}
+
+	// Images carry the source line numbers, so a block that moved must be rendered again
+	private static String getEtag(BlockUml blockUml, boolean withMetadata) {
+		final String key = blockUml.getCacheKey(withMetadata);
+		final List<StringLocated> data = blockUml.getData();
+		if (data.size() == 0 || data.get(0).getLocation() == null) {
+			return key;
+		}
+		return key + "@" + data.get(0).getLocation().getPosition();
+	}
+
+	List<FileImageData> getFiles(Block block) {
+		final List<FileImageData> result = new ArrayList<FileImageData>();
+		for (int i = 0; i < block.outputs.size(); i++) {
+			final ImageDataSimple imageData = new ImageDataSimple(0, 0);
+			imageData.setStatus(block.status.get(i));
+			result.add(new FileImageData(SFile.fromFile(getFile(block.outputs.get(i).path)), imageData));
+		}
+		return result;
+	}
+
+	Block createBlock(BlockUml blockUml, boolean withMetadata, String description, List<FileImageData> files) {
+		final Block result = new Block(getEtag(blockUml, withMetadata), description);
+		for (FileImageData fdata : files) {
+			final File f = fdata.getFile().internal;
+			result.outputs.add(new Stat(getPath(f), f.length(), f.lastModified(), null));
+			result.status.add(fdata.getStatus());
+		}
+		return result;
+	}
+
+	synchronized void put(File source, String settings, Collection<File> included, boolean urlIncluded,
+			List<Block> blocks, int lineError) {
+		final Source recorded = new Source(settings, lineError, urlIncluded);
+		final List<File> files = new ArrayList<File>();
+		files.add(source);
+		files.addAll(included);
+		final Map<String, Stat> previous = new HashMap<String, Stat>();
+		final Source old = sources.get(getPath(source));
+		if (old != null) {
+			for (Stat f : old.files) {
+				previous.put(f.path, f);
+			}
+		}
+		for (File f : files) {
+			final String path = getPath(f);
+			final Stat known = previous.get(path);
+			if (known != null && known.length == f.length() && known.lastModified == f.lastModified()) {
+				recorded.files.add(known);
+			} else {
+				recorded.files.add(new Stat(path, f.length(), f.lastModified(), digest(SFile.fromFile(f))));
+			}
+		}
+		recorded.blocks.addAll(blocks);
+		sources.put(getPath(source), recorded);
+		modified = true;
+	}
+
+	synchronized void remove(File source) {
+		if (sources.remove(getPath(source)) != null) {
+			modified = true;
+		}
+	}
+
+	private boolean isUnchanged(Stat f) {
+		final File file = getFile(f.path);
+		if (file.length() != f.length) {
+			return false;
+		}
+		if (file.lastModified() == f.lastModified) {
+			return true;
+		}
+		// Touched but maybe not modified, as after a checkout
+		if (f.digest.equals(digest(SFile.fromFile(file))) == false) {
+			return false;
+		}
+		f.lastModified = file.lastModified();
+		modified = true;
+		return true;
+	}
+
+	private boolean isGenerated(Block block) {
+		for (Stat f : block.outputs) {
+			final File file = getFile(f.path);
+			if (file.length() != f.length || file.lastModified() != f.lastModified) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String getPath(File f) {
+		final String path = f.getAbsolutePath();
+		final String base = dir.getAbsolutePath() + File.separator;
+		if (path.startsWith(base)) {
+			return path.substring(base.length());
+		}
+		return path;
+	}
+
+	private File getFile(String path) {
+		final File f = new File(path);
+		if (f.isAbsolute()) {
+			return f;
+		}
+		return new File(dir.getAbsolutePath(), path);
+	}
+
+	private static String digest(SFile f) {
+		final InputStream is = f.openFile();
+		if (is == null) {
+			return "NODIGEST";
+		}
+		try {
+			final MessageDigest msgDigest = MessageDigest.getInstance("MD5");
+			final byte[] buffer = new byte[8192];
+			int nb;
+			while ((nb = is.read(buffer)) != -1) {
+				msgDigest.update(buffer, 0, nb);
+			}
+			return new AsciiEncoder().encode(msgDigest.digest());
+		} catch (Exception e) {
+			Log.error("Cannot read " + f.getPrintablePath() + ": " + e);
+			return "NODIGEST";
+		} finally {
+			try {
+				is.close();
+			} catch (IOException e) {
+				Log.error("Error " + e);
+			}
+		}
+	}
+
+	private static String digest(String data) {
+		try {
+			final MessageDigest msgDigest = MessageDigest.getInstance("MD5");
+			return new AsciiEncoder().encode(msgDigest.digest(data.getBytes("UTF-8")));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -32,7 +32,9 @@ package net.sourceforge.plantuml;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.plantuml.activitydiagram.ActivityDiagramFactory;
 import net.sourceforge.plantuml.activitydiagram3.ActivityDiagramFactory3;
@@ -116,9 +118,9 @@ public class PSystemBuilder {
 
 			final DiagramType diagramType = umlSource.getDiagramType();
 			final List<PSystemError> errors = new ArrayList<PSystemError>();
-			final List<PSystemFactory> factories = getAllFactories(skinParam);
-			for (PSystemFactory systemFactory : factories) {
-				if (diagramType != systemFactory.getDiagramType()) {
+			for (Factory factory : Factory.byType(diagramType)) {
+				final PSystemFactory systemFactory = factory.get(skinParam);
+				if (systemFactory == null) {
 					continue;
 				}
 				final Diagram sys = systemFactory.createSystem(umlSource);
@@ -141,64 +143,207 @@ public class PSystemBuilder {
 		}
 	}
 
-	private static List<PSystemFactory> getAllFactories(ISkinSimple skinParam) {
-		final List<PSystemFactory> factories = new ArrayList<PSystemFactory>();
-		factories.add(new PSystemWelcomeFactory());
-		factories.add(new PSystemColorsFactory());
-		factories.add(new SequenceDiagramFactory(skinParam));
-		factories.add(new ClassDiagramFactory(skinParam));
-		factories.add(new ActivityDiagramFactory(skinParam));
-		factories.add(new DescriptionDiagramFactory(skinParam));
-		factories.add(new StateDiagramFactory(skinParam));
-		factories.add(new ActivityDiagramFactory3(skinParam));
-		// factories.add(new CompositeDiagramFactory(skinParam));
-		factories.add(new BpmDiagramFactory(DiagramType.BPM));
-		// factories.add(new PostIdDiagramFactory());
-		factories.add(new PSystemLicenseFactory());
-		factories.add(new PSystemVersionFactory());
-		factories.add(new PSystemDonorsFactory());
-		factories.add(new PSystemSkinparameterListFactory());
-		factories.add(new PSystemListFontsFactory());
-		factories.add(new PSystemOpenIconicFactory());
-		factories.add(new PSystemListOpenIconicFactory());
-		factories.add(new PSystemListInternalSpritesFactory());
-		factories.add(new PSystemSaltFactory2(DiagramType.SALT));
-		factories.add(new PSystemSaltFactory2(DiagramType.UML));
-		factories.add(new PSystemDotFactory(DiagramType.DOT));
-		factories.add(new PSystemDotFactory(DiagramType.UML));
-		factories.add(new NwDiagramFactory());
-		factories.add(new MindMapDiagramFactory());
-		factories.add(new WBSDiagramFactory());
-		factories.add(new PSystemDitaaFactory(DiagramType.DITAA));
-		factories.add(new PSystemDitaaFactory(DiagramType.UML));
-		factories.add(new PSystemDefinitionFactory());
-		factories.add(new ListSpriteDiagramFactory(skinParam));
-		factories.add(new StdlibDiagramFactory(skinParam));
-		factories.add(new PSystemMathFactory(DiagramType.MATH));
-		factories.add(new PSystemLatexFactory(DiagramType.LATEX));
-		// factories.add(new PSystemStatsFactory());
-		factories.add(new PSystemCreoleFactory());
-		factories.add(new PSystemEggFactory());
-		factories.add(new PSystemAppleTwoFactory());
-		factories.add(new PSystemRIPFactory());
-		// factories.add(new PSystemLostFactory());
-		if (SecurityUtils.getSecurityProfile() == SecurityProfile.UNSECURE) {
-			factories.add(new PSystemPathFactory());
+	/**
+	 * All factories, in the order they are tried. A factory is only created when it is tried, so a diagram recognized
+	 * early never loads the factories after it. Factories without per diagram state are then shared by all diagrams,
+	 * the others are created for each diagram.
+	 */
+	private enum Factory {
+		WELCOME(DiagramType.UML, true), //
+		COLORS(DiagramType.UML, true), //
+		SEQUENCE(DiagramType.UML, false), //
+		CLASS(DiagramType.UML, false), //
+		ACTIVITY(DiagramType.UML, false), //
+		DESCRIPTION(DiagramType.UML, false), //
+		STATE(DiagramType.UML, false), //
+		ACTIVITY3(DiagramType.UML, false), //
+		// COMPOSITE(DiagramType.UML, false), //
+		BPM(DiagramType.BPM, true), //
+		// POST_ID(DiagramType.UML, true), //
+		LICENSE(DiagramType.UML, true), //
+		VERSION(DiagramType.UML, true), //
+		DONORS(DiagramType.UML, true), //
+		SKINPARAMETER_LIST(DiagramType.UML, true), //
+		LIST_FONTS(DiagramType.UML, true), //
+		OPEN_ICONIC(DiagramType.UML, true), //
+		LIST_OPEN_ICONIC(DiagramType.UML, true), //
+		LIST_INTERNAL_SPRITES(DiagramType.UML, true), //
+		SALT(DiagramType.SALT, true), //
+		SALT_UML(DiagramType.UML, true), //
+		DOT(DiagramType.DOT, false), //
+		DOT_UML(DiagramType.UML, false), //
+		NW(DiagramType.UML, true), //
+		MINDMAP(DiagramType.MINDMAP, true), //
+		WBS(DiagramType.WBS, true), //
+		DITAA(DiagramType.DITAA, true), //
+		DITAA_UML(DiagramType.UML, true), //
+		DEFINITION(DiagramType.DEFINITION, true), //
+		LIST_SPRITE(DiagramType.UML, false), //
+		STDLIB(DiagramType.UML, false), //
+		MATH(DiagramType.MATH, true), //
+		LATEX(DiagramType.LATEX, true), //
+		// STATS(DiagramType.UML, true), //
+		CREOLE(DiagramType.CREOLE, true), //
+		EGG(DiagramType.UML, true), //
+		APPLE_TWO(DiagramType.UML, true), //
+		RIP(DiagramType.UML, true), //
+		// LOST(DiagramType.UML, true), //
+		PATH(DiagramType.UML, false), //
+		OREGON(DiagramType.UML, true), //
+		CHARLIE(DiagramType.UML, true), //
+		GANTT(DiagramType.GANTT, true), //
+		GANTT_UML(DiagramType.UML, true), //
+		FLOW(DiagramType.FLOW, true), //
+		// TREE(DiagramType.JUNGLE, true), //
+		// CUTE(DiagramType.CUTE, true), //
+		DEDICATION(DiagramType.UML, true), //
+		TIMING(DiagramType.UML, true), //
+		HELP(DiagramType.UML, true), //
+		WIRE(DiagramType.WIRE, true), //
+		JSON(DiagramType.JSON, true), //
+		GIT(DiagramType.GIT, true);
+
+		private static final Map<DiagramType, List<Factory>> byType = new EnumMap<DiagramType, List<Factory>>(
+				DiagramType.class);
+
+		static {
+			for (DiagramType type : DiagramType.values()) {
+				final List<Factory> factories = new ArrayList<Factory>();
+				for (Factory factory : values()) {
+					if (factory.type == type) {
+						factories.add(factory);
+					}
+				}
+				byType.put(type, Collections.unmodifiableList(factories));
+			}
+		}
+
+		private final DiagramType type;
+		private final boolean shared;
+		private volatile PSystemFactory instance;
+
+		private Factory(DiagramType type, boolean shared) {
+			this.type = type;
+			this.shared = shared;
+		}
+
+		static List<Factory> byType(DiagramType type) {
+			return byType.get(type);
+		}
+
+		PSystemFactory get(ISkinSimple skinParam) {
+			if (shared == false) {
+				return create(skinParam);
+			}
+			if (instance == null) {
+				instance = create(skinParam);
+				assert instance.getDiagramType() == type;
+			}
+			return instance;
+		}
+
+		private PSystemFactory create(ISkinSimple skinParam) {
+			switch (this) {
+			case WELCOME:
+				return new PSystemWelcomeFactory();
+			case COLORS:
+				return new PSystemColorsFactory();
+			case SEQUENCE:
+				return new SequenceDiagramFactory(skinParam);
+			case CLASS:
+				return new ClassDiagramFactory(skinParam);
+			case ACTIVITY:
+				return new ActivityDiagramFactory(skinParam);
+			case DESCRIPTION:
+				return new DescriptionDiagramFactory(skinParam);
+			case STATE:
+				return new StateDiagramFactory(skinParam);
+			case ACTIVITY3:
+				return new ActivityDiagramFactory3(skinParam);
+			case BPM:
+				return new BpmDiagramFactory(DiagramType.BPM);
+			case LICENSE:
+				return new PSystemLicenseFactory();
+			case VERSION:
+				return new PSystemVersionFactory();
+			case DONORS:
+				return new PSystemDonorsFactory();
+			case SKINPARAMETER_LIST:
+				return new PSystemSkinparameterListFactory();
+			case LIST_FONTS:
+				return new PSystemListFontsFactory();
+			case OPEN_ICONIC:
+				return new PSystemOpenIconicFactory();
+			case LIST_OPEN_ICONIC:
+				return new PSystemListOpenIconicFactory();
+			case LIST_INTERNAL_SPRITES:
+				return new PSystemListInternalSpritesFactory();
+			case SALT:
+				return new PSystemSaltFactory2(DiagramType.SALT);
+			case SALT_UML:
+				return new PSystemSaltFactory2(DiagramType.UML);
+			case DOT:
+				return new PSystemDotFactory(DiagramType.DOT);
+			case DOT_UML:
+				return new PSystemDotFactory(DiagramType.UML);
+			case NW:
+				return new NwDiagramFactory();
+			case MINDMAP:
+				return new MindMapDiagramFactory();
+			case WBS:
+				return new WBSDiagramFactory();
+			case DITAA:
+				return new PSystemDitaaFactory(DiagramType.DITAA);
+			case DITAA_UML:
+				return new PSystemDitaaFactory(DiagramType.UML);
+			case DEFINITION:
+				return new PSystemDefinitionFactory();
+			case LIST_SPRITE:
+				return new ListSpriteDiagramFactory(skinParam);
+			case STDLIB:
+				return new StdlibDiagramFactory(skinParam);
+			case MATH:
+				return new PSystemMathFactory(DiagramType.MATH);
+			case LATEX:
+				return new PSystemLatexFactory(DiagramType.LATEX);
+			case CREOLE:
+				return new PSystemCreoleFactory();
+			case EGG:
+				return new PSystemEggFactory();
+			case APPLE_TWO:
+				return new PSystemAppleTwoFactory();
+			case RIP:
+				return new PSystemRIPFactory();
+			case PATH:
+				if (SecurityUtils.getSecurityProfile() == SecurityProfile.UNSECURE) {
+					return new PSystemPathFactory();
+				}
+				return null;
+			case OREGON:
+				return new PSystemOregonFactory();
+			case CHARLIE:
+				return new PSystemCharlieFactory();
+			case GANTT:
+				return new GanttDiagramFactory(DiagramType.GANTT);
+			case GANTT_UML:
+				return new GanttDiagramFactory(DiagramType.UML);
+			case FLOW:
+				return new FlowDiagramFactory();
+			case DEDICATION:
+				return new PSystemDedicationFactory();
+			case TIMING:
+				return new TimingDiagramFactory();
+			case HELP:
+				return new HelpFactory();
+			case WIRE:
+				return new WireDiagramFactory();
+			case JSON:
+				return new JsonDiagramFactory();
+			case GIT:
+				return new GitDiagramFactory();
+			}
+			throw new IllegalStateException();
 		}
-		factories.add(new PSystemOregonFactory());
-		factories.add(new PSystemCharlieFactory());
-		factories.add(new GanttDiagramFactory(DiagramType.GANTT));
-		factories.add(new GanttDiagramFactory(DiagramType.UML));
-		factories.add(new FlowDiagramFactory());
-		// factories.add(new PSystemTreeFactory(DiagramType.JUNGLE));
-		// factories.add(new PSystemCuteFactory(DiagramType.CUTE));
-		factories.add(new PSystemDedicationFactory());
-		factories.add(new TimingDiagramFactory());
-		factories.add(new HelpFactory());
-		factories.add(new WireDiagramFactory());
-		factories.add(new JsonDiagramFactory());
-		factories.add(new GitDiagramFactory());
-		return factories;
 	}
 
 	private boolean isOk(Diagram ps) {
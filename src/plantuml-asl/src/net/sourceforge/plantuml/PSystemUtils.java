@@ -58,20 +58,10 @@ public class PSystemUtils {
 	public static List<FileImageData> exportDiagrams(Diagram system, SuggestedFile suggestedFile,
 			FileFormatOption fileFormatOption, boolean checkMetadata) throws IOException {
 
-		final SFile existingFile = suggestedFile.getFile(0);
-		if (checkMetadata && fileFormatOption.getFileFormat().doesSupportMetadata() && existingFile.exists()
-				&& system.getNbImages() == 1) {
-			// final String version = Version.versionString();
-			// System.out.println(system.getMetadata());
-			// System.out.println(data);
-			// System.out.println(version);
-			// System.out.println(data.contains(version));
-			final boolean sameMetadata = fileFormatOption.getFileFormat().equalsMetadata(system.getMetadata(),
-					existingFile);
-			if (sameMetadata) {
-				Log.info("Skipping " + existingFile.getPrintablePath() + " because metadata has not changed.");
-				return Arrays.asList(new FileImageData(existingFile, null));
-			}
+		if (checkMetadata && isUpToDate(system, suggestedFile, fileFormatOption)) {
+			final SFile existingFile = suggestedFile.getFile(0);
+			Log.info("Skipping " + existingFile.getPrintablePath() + " because metadata has not changed.");
+			return Arrays.asList(new FileImageData(existingFile, null));
 		}
 
 		if (system instanceof NewpagedDiagram) {
@@ -92,6 +82,68 @@ public class PSystemUtils {
 		return exportDiagramsDefault(system, suggestedFile, fileFormatOption);
 	}
 
+	private static boolean isUpToDate(Diagram system, SuggestedFile suggestedFile, FileFormatOption fileFormatOption)
+			throws IOException {
+		final SFile existingFile = suggestedFile.getFile(0);
+		if (fileFormatOption.getFileFormat().doesSupportMetadata() && existingFile.exists()
+				&& system.getNbImages() == 1) {
+			// final String version = Version.versionString();
+			// System.out.println(system.getMetadata());
+			// System.out.println(data);
+			// System.out.println(version);
+			// System.out.println(data.contains(version));
+			return fileFormatOption.getFileFormat().equalsMetadata(system.getMetadata(), existingFile);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of files that exportDiagrams is going to create for this diagram, or -1 if it cannot be
+	 * known before exporting.
+	 */
+	public static int getNbFiles(Diagram system, SuggestedFile suggestedFile, FileFormatOption fileFormatOption,
+			boolean checkMetadata) throws IOException {
+		if (checkMetadata && isUpToDate(system, suggestedFile, fileFormatOption)) {
+			return 1;
+		}
+		if (system instanceof NewpagedDiagram || system instanceof SequenceDiagram) {
+			return system.getNbImages();
+		}
+		if (system instanceof CucaDiagram) {
+			if (fileFormatOption.getFileFormat() == FileFormat.HTML) {
+				return -1;
+			}
+			if (fileFormatOption.getFileFormat() == FileFormat.PNG) {
+				final CucaDiagram cuca = (CucaDiagram) system;
+				return cuca.getHorizontalPages() * cuca.getVerticalPages();
+			}
+		}
+		if (system instanceof GanttDiagram && fileFormatOption.getFileFormat() == FileFormat.PNG) {
+			final GanttDiagram gantt = (GanttDiagram) system;
+			return gantt.getHorizontalPages() * gantt.getVerticalPages();
+		}
+		return 1;
+	}
+
+	/**
+	 * Exports a single page of a diagram made of several pages, as exportDiagrams does for each page.
+	 */
+	public static FileImageData exportPage(NewpagedDiagram system, SuggestedFile suggestedFile, int i,
+			FileFormatOption fileFormat) throws IOException {
+		final SFile f = suggestedFile.getFile(i);
+		if (canFileBeWritten(f) == false) {
+			return null;
+		}
+		final OutputStream fos = f.createBufferedOutputStream();
+		try {
+			system.exportDiagram(fos, i, fileFormat);
+		} finally {
+			fos.close();
+		}
+		Log.info("File size : " + f.length());
+		return new FileImageData(f, null);
+	}
+
 	private static List<FileImageData> exportDiagramsNewpaged(NewpagedDiagram system, SuggestedFile suggestedFile,
 			FileFormatOption fileFormat) throws IOException {
 		final List<FileImageData> result = new ArrayList<FileImageData>();
@@ -36,6 +36,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import net.sourceforge.plantuml.core.Diagram;
 import net.sourceforge.plantuml.core.DiagramDescription;
@@ -60,7 +68,10 @@ public class Pipe {
 	}
 
 	public void managePipe(ErrorStatus error) throws IOException {
-		final boolean noStdErr = option.isPipeNoStdErr();
+		if (option.getNbThreads() > 1) {
+			managePipeConcurrently(error);
+			return;
+		}
 		int nb = 0;
 		do {
 			final String source = readOneDiagram();
@@ -72,60 +83,158 @@ public class Pipe {
 				return;
 			}
 			nb++;
-			final Defines defines = option.getDefaultDefines();
-			final SourceStringReader sourceStringReader = new SourceStringReader(defines, source, option.getConfig());
-			if (option.isComputeurl()) {
-				for (BlockUml s : sourceStringReader.getBlocks()) {
-					ps.println(s.getEncodedUrl());
+			manageOneDiagram(source, option.getFileFormatOption(), ps, System.err, error);
+			ps.flush();
+		} while (closed == false);
+		if (nb == 0) {
+			// error.goNoData();
+		}
+	}
+
+	/**
+	 * Reads diagrams on a separate thread and renders them on <code>option.getNbThreads()</code> workers. The results
+	 * are written in input order. At most twice the number of workers diagrams are pending at any time, so memory
+	 * stays bounded however many diagrams are piped in.
+	 */
+	private void managePipeConcurrently(final ErrorStatus error) throws IOException {
+		final int nbThreads = option.getNbThreads();
+		final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+		final BlockingQueue<Future<PipeResult>> pending = new ArrayBlockingQueue<Future<PipeResult>>(2 * nbThreads);
+		final FutureTask<PipeResult> end = new FutureTask<PipeResult>(new Callable<PipeResult>() {
+			public PipeResult call() {
+				return null;
+			}
+		});
+		end.run();
+		final IOException readError[] = new IOException[1];
+		final Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					do {
+						final String source = readOneDiagram();
+						if (source == null) {
+							return;
+						}
+						final FileFormatOption fileFormatOption = option.getFileFormatOption();
+						pending.put(executor.submit(new Callable<PipeResult>() {
+							public PipeResult call() throws IOException {
+								final PipeResult result = new PipeResult();
+								manageOneDiagram(source, fileFormatOption, result.out, result.err, error);
+								return result;
+							}
+						}));
+					} while (closed == false);
+				} catch (IOException e) {
+					readError[0] = e;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					try {
+						pending.put(end);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
 				}
-			} else if (option.isSyntax()) {
-				final Diagram system = sourceStringReader.getBlocks().get(0).getDiagram();
-				if (system instanceof UmlDiagram) {
-					error.goOk();
-					ps.println(((UmlDiagram) system).getUmlDiagramType().name());
-					ps.println(system.getDescription());
-				} else if (system instanceof PSystemError) {
-					error.goWithError();
-					stdrpt.printInfo(ps, (PSystemError) system);
-				} else {
-					error.goOk();
-					ps.println("OTHER");
-					ps.println(system.getDescription());
+			}
+		}, "PipeReader");
+		reader.setDaemon(true);
+		reader.start();
+		try {
+			while (true) {
+				final Future<PipeResult> future = pending.take();
+				if (future == end) {
+					break;
 				}
-			} else if (option.isPipeMap()) {
-				final String result = sourceStringReader.getCMapData(option.getImageIndex(),
-						option.getFileFormatOption());
-				// https://forum.plantuml.net/10049/2019-pipemap-diagrams-containing-links-give-zero-exit-code
-				// We don't check errors
+				future.get().writeTo(ps, System.err);
+			}
+			reader.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+			ps.flush();
+		}
+		if (readError[0] != null) {
+			throw readError[0];
+		}
+	}
+
+	private void manageOneDiagram(String source, FileFormatOption fileFormatOption, PrintStream ps, PrintStream err,
+			ErrorStatus error) throws IOException {
+		final boolean noStdErr = option.isPipeNoStdErr();
+		final Defines defines = option.getDefaultDefines();
+		final SourceStringReader sourceStringReader = new SourceStringReader(defines, source, option.getConfig());
+		if (option.isComputeurl()) {
+			for (BlockUml s : sourceStringReader.getBlocks()) {
+				ps.println(s.getEncodedUrl());
+			}
+		} else if (option.isSyntax()) {
+			final Diagram system = sourceStringReader.getBlocks().get(0).getDiagram();
+			if (system instanceof UmlDiagram) {
 				error.goOk();
-				if (result == null) {
-					ps.println();
-				} else {
-					ps.println(result);
-				}
+				ps.println(((UmlDiagram) system).getUmlDiagramType().name());
+				ps.println(system.getDescription());
+			} else if (system instanceof PSystemError) {
+				error.goWithError();
+				stdrpt.printInfo(ps, (PSystemError) system);
 			} else {
-				final OutputStream os = noStdErr ? new ByteArrayOutputStream() : ps;
-				final DiagramDescription result = sourceStringReader.outputImage(os, option.getImageIndex(),
-						option.getFileFormatOption());
-				printInfo(noStdErr ? ps : System.err, sourceStringReader);
-				if (result != null && "(error)".equalsIgnoreCase(result.getDescription())) {
-					error.goWithError();
-				} else {
-					error.goOk();
-					if (noStdErr) {
-						final ByteArrayOutputStream baos = (ByteArrayOutputStream) os;
-						baos.close();
-						ps.write(baos.toByteArray());
-					}
-				}
-				if (option.getPipeDelimitor() != null) {
-					ps.println(option.getPipeDelimitor());
+				error.goOk();
+				ps.println("OTHER");
+				ps.println(system.getDescription());
+			}
+		} else if (option.isPipeMap()) {
+			final String result = sourceStringReader.getCMapData(option.getImageIndex(), fileFormatOption);
+			// https://forum.plantuml.net/10049/2019-pipemap-diagrams-containing-links-give-zero-exit-code
+			// We don't check errors
+			error.goOk();
+			if (result == null) {
+				ps.println();
+			} else {
+				ps.println(result);
+			}
+		} else {
+			final OutputStream os = noStdErr ? new ByteArrayOutputStream() : ps;
+			final DiagramDescription result = sourceStringReader.outputImage(os, option.getImageIndex(),
+					fileFormatOption);
+			printInfo(noStdErr ? ps : err, sourceStringReader);
+			if (result != null && "(error)".equalsIgnoreCase(result.getDescription())) {
+				error.goWithError();
+			} else {
+				error.goOk();
+				if (noStdErr) {
+					final ByteArrayOutputStream baos = (ByteArrayOutputStream) os;
+					baos.close();
+					ps.write(baos.toByteArray());
 				}
 			}
+			if (option.getPipeDelimitor() != null) {
+				ps.println(option.getPipeDelimitor());
+			}
+		}
+	}
+
+	static class PipeResult {
+
+		private final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+		private final ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+		private final PrintStream out = new PrintStream(outBytes);
+		private final PrintStream err = new PrintStream(errBytes);
+
+		void writeTo(PrintStream ps, PrintStream stderr) throws IOException {
+			out.flush();
+			err.flush();
+			if (errBytes.size() > 0) {
+				errBytes.writeTo(stderr);
+				stderr.flush();
+			}
+			outBytes.writeTo(ps);
 			ps.flush();
-		} while (closed == false);
-		if (nb == 0) {
-			// error.goNoData();
 		}
 	}
 
@@ -43,6 +43,8 @@ import java.io.PrintWriter;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -77,6 +79,8 @@ public class Run {
 
 	private static Cypher cypher;
 
+	private static final ConcurrentMap<File, OutputManifest> manifests = new ConcurrentHashMap<File, OutputManifest>();
+
 	public static void main(String[] argsArray)
 			throws NoPlantumlCompressionException, IOException, InterruptedException {
 		System.setProperty("log4j.debug", "false");
@@ -331,7 +335,8 @@ public class Run {
 	private static void goPicoweb(Option option) throws IOException {
 		final int picoWebport = option.getPicowebPort();
 		System.err.println("webPort=" + picoWebport);
-		PicoWebServer.startServer(picoWebport);
+		final int nbThreads = option.getNbThreads() > 0 ? option.getNbThreads() : Option.defaultNbThreads();
+		PicoWebServer.startServer(picoWebport, nbThreads);
 	}
 
 	public static void printFonts() {
@@ -386,8 +391,47 @@ public class Run {
 			if (lockFile != null) {
 				lockFile.delete();
 			}
+			saveManifests();
+		}
+
+	}
+
+	private static OutputManifest getManifest(File f, Option option) {
+		File dir;
+		if (option.getOutputFile() != null) {
+			dir = option.getOutputFile().getAbsoluteFile().getParentFile();
+		} else if (option.getOutputDir() == null) {
+			dir = f.getAbsoluteFile().getParentFile();
+		} else {
+			String path = option.getOutputDir().getPath();
+			if (path.endsWith("$")) {
+				path = path.substring(0, path.length() - 1);
+			}
+			dir = new File(path);
+			if (dir.isAbsolute() == false) {
+				dir = new File(f.getAbsoluteFile().getParentFile(), path);
+			}
+		}
+		dir = dir.getAbsoluteFile();
+		OutputManifest result = manifests.get(dir);
+		if (result == null) {
+			final OutputManifest loaded = OutputManifest.load(new SFile(dir.getPath()));
+			result = manifests.putIfAbsent(dir, loaded);
+			if (result == null) {
+				result = loaded;
+			}
 		}
+		return result;
+	}
 
+	private static void saveManifests() {
+		for (OutputManifest manifest : manifests.values()) {
+			try {
+				manifest.save();
+			} catch (IOException e) {
+				Log.error("Cannot save " + OutputManifest.FILENAME + ": " + e);
+			}
+		}
 	}
 
 	private static void processArgs(Option option, ErrorStatus error)
@@ -414,7 +458,7 @@ public class Run {
 		foundNbFiles(files.size());
 		for (File f : files) {
 			try {
-				manageFileInternal(f, option, error);
+				manageFileInternal(f, option, error, null);
 				incDone(error.hasError());
 				if (error.hasError() && option.isFailfastOrFailfast2()) {
 					return;
@@ -428,6 +472,8 @@ public class Run {
 	private static void multithread(final Option option, final ErrorStatus error) throws InterruptedException {
 		Log.info("Using several threads: " + option.getNbThreads());
 		final ExecutorService executor = Executors.newFixedThreadPool(option.getNbThreads());
+		// Blocks of a file get their own pool, as files wait for them while holding a thread of the first one
+		final ExecutorService blockExecutor = Executors.newFixedThreadPool(option.getNbThreads());
 
 		int nb = 0;
 		for (String s : option.getResult()) {
@@ -441,7 +487,7 @@ public class Run {
 							return;
 						}
 						try {
-							manageFileInternal(f, option, error);
+							manageFileInternal(f, option, error, blockExecutor);
 						} catch (IOException e) {
 							e.printStackTrace();
 						} catch (InterruptedException e) {
@@ -455,6 +501,7 @@ public class Run {
 		foundNbFiles(nb);
 		executor.shutdown();
 		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+		blockExecutor.shutdown();
 	}
 
 	private static void foundNbFiles(int nb) {
@@ -471,7 +518,7 @@ public class Run {
 		ProgressBar.incTotal(nb);
 	}
 
-	private static void manageFileInternal(File f, Option option, ErrorStatus error)
+	private static void manageFileInternal(File f, Option option, ErrorStatus error, ExecutorService blockExecutor)
 			throws IOException, InterruptedException {
 		Log.info("Working on " + f.getPath());
 		if (OptionFlags.getInstance().isExtractFromMetadata()) {
@@ -490,6 +537,26 @@ public class Run {
 			System.out.println("------------------------");
 			return;
 		}
+		final boolean incremental = option.isIncremental() && option.isComputeurl() == false
+				&& option.isCheckOnly() == false && option.getPreprocessorOutputMode() == null;
+		OutputManifest manifest = null;
+		String settings = null;
+		if (incremental) {
+			manifest = getManifest(f, option);
+			settings = OutputManifest.getSettings(option.getFileFormatOption(), option.getCharset(),
+					option.getConfig(), option.getDefines());
+			if (manifest.isUpToDate(f, settings)) {
+				Log.info("Skipping " + f.getPath() + " because it has not changed.");
+				final int lineError = manifest.getLineError(f);
+				if (lineError != -1) {
+					option.getStdrpt().errorLine(lineError, f);
+					error.goWithError();
+				} else {
+					error.goOk();
+				}
+				return;
+			}
+		}
 		final ISourceFileReader sourceFileReader;
 		if (option.getOutputFile() == null) {
 			File outputDir = option.getOutputDir();
@@ -507,6 +574,10 @@ public class Run {
 					option.getConfig(), option.getCharset(), option.getFileFormatOption());
 		}
 		sourceFileReader.setCheckMetadata(option.isCheckMetadata());
+		sourceFileReader.setExecutor(blockExecutor);
+		if (incremental) {
+			sourceFileReader.setManifest(manifest, settings);
+		}
 
 		if (option.isComputeurl()) {
 			error.goOk();
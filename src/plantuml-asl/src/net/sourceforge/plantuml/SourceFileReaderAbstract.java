@@ -36,6 +36,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Reader;
@@ -44,8 +45,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import net.sourceforge.plantuml.core.Diagram;
+import net.sourceforge.plantuml.cucadiagram.dot.GraphvizUtils;
 import net.sourceforge.plantuml.error.PSystemError;
 import net.sourceforge.plantuml.preproc.FileWithSuffix;
 import net.sourceforge.plantuml.security.SFile;
@@ -130,20 +137,63 @@ public abstract class SourceFileReaderAbstract {
 
 	protected int cpt;
 
+	private ExecutorService executor;
+	private OutputManifest manifest;
+	private String manifestSettings;
+
+	/**
+	 * Renders the blocks of the file, and the pages of diagrams using newpage, concurrently on this executor.
+	 * Generated files keep the names and the order they have when rendering one block after the other. A null
+	 * executor, the default, renders them one after the other.
+	 */
+	public final void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Reuses the images of blocks that did not change since they were recorded in this manifest, and records the
+	 * images of this file in it.
+	 */
+	public final void setManifest(OutputManifest manifest, String settings) {
+		this.manifest = manifest;
+		this.manifestSettings = settings;
+	}
+
 	final public List<GeneratedImage> getGeneratedImages() throws IOException {
 		Log.info("Reading file: " + file);
 
 		cpt = 0;
+		if (executor != null && fileFormatOption.getFileFormat() != FileFormat.HTML) {
+			return getGeneratedImagesConcurrently();
+		}
 		final List<GeneratedImage> result = new ArrayList<GeneratedImage>();
+		final List<OutputManifest.Block> manifestBlocks = new ArrayList<OutputManifest.Block>();
 
 		for (BlockUml blockUml : builder.getBlockUmls()) {
 			final SuggestedFile suggested = getSuggestedFile(blockUml);
 
+			final OutputManifest.Block reused = getReusedBlock(blockUml, suggested);
+			if (reused != null) {
+				final List<FileImageData> files = manifest.getFiles(reused);
+				if (files.size() > 1) {
+					cpt += files.size() - 1;
+				}
+				for (FileImageData fdata : files) {
+					final String desc = "[" + file.getName() + "] " + reused.getDescription();
+					result.add(new GeneratedImageImpl(fdata.getFile(), desc, blockUml, fdata.getStatus()));
+				}
+				manifestBlocks.add(reused);
+				continue;
+			}
+
 			final Diagram system;
 			try {
 				system = blockUml.getDiagram();
 			} catch (Throwable t) {
 				t.printStackTrace();
+				if (manifest != null) {
+					manifest.remove(file);
+				}
 				return getCrashedImage(blockUml, t, suggested.getFile(0));
 			}
 
@@ -157,6 +207,10 @@ public abstract class SourceFileReaderAbstract {
 			if (exportDiagrams.size() > 1) {
 				cpt += exportDiagrams.size() - 1;
 			}
+			if (manifest != null) {
+				manifestBlocks.add(manifest.createBlock(blockUml, fileFormatOption.isWithMetadata(),
+						"" + system.getDescription(), exportDiagrams));
+			}
 
 			for (FileImageData fdata : exportDiagrams) {
 				final String desc = "[" + file.getName() + "] " + system.getDescription();
@@ -167,12 +221,239 @@ public abstract class SourceFileReaderAbstract {
 			}
 
 		}
+		record(result, manifestBlocks);
 
 		Log.info("Number of image(s): " + result.size());
 
 		return Collections.unmodifiableList(result);
 	}
 
+	private OutputManifest.Block getReusedBlock(BlockUml blockUml, SuggestedFile suggested) {
+		if (manifest == null) {
+			return null;
+		}
+		final OutputManifest.Block result = manifest.getBlock(file, manifestSettings, blockUml,
+				fileFormatOption.isWithMetadata(), suggested.getFile(0));
+		if (result != null) {
+			Log.info("Keeping " + suggested.getFile(0).getName() + " because its block has not changed.");
+		}
+		return result;
+	}
+
+	private void record(List<GeneratedImage> result, List<OutputManifest.Block> manifestBlocks)
+			throws FileNotFoundException {
+		if (manifest == null) {
+			return;
+		}
+		int lineError = -1;
+		for (GeneratedImage image : result) {
+			lineError = image.lineErrorRaw();
+			if (lineError != -1) {
+				break;
+			}
+		}
+		manifest.put(file, manifestSettings, FileWithSuffix.convert(getIncludedFiles()), builder.isUrlIncluded(),
+				manifestBlocks, lineError);
+	}
+
+	private List<GeneratedImage> getGeneratedImagesConcurrently() throws IOException {
+		final List<BlockUml> blocks = builder.getBlockUmls();
+		final ThreadContext context = ThreadContext.capture();
+
+		// Rendering uses the style flag set while parsing, so it is kept with each diagram
+		final List<Future<Boolean>> betaStyles = new ArrayList<Future<Boolean>>();
+		for (final BlockUml blockUml : blocks) {
+			betaStyles.add(executor.submit(new Callable<Boolean>() {
+				public Boolean call() {
+					context.apply();
+					blockUml.getDiagram();
+					return UseStyle.useBetaStyle();
+				}
+			}));
+		}
+
+		// Files are named in order, as the number of files of a diagram shifts the names of the following ones
+		final List<BlockUml> exported = new ArrayList<BlockUml>();
+		final List<OutputManifest.Block> reusedBlocks = new ArrayList<OutputManifest.Block>();
+		final List<List<Future<List<FileImageData>>>> exports = new ArrayList<List<Future<List<FileImageData>>>>();
+		List<GeneratedImage> crash = null;
+		for (int i = 0; i < blocks.size(); i++) {
+			final BlockUml blockUml = blocks.get(i);
+			final SuggestedFile suggested = getSuggestedFile(blockUml);
+
+			final OutputManifest.Block reused = getReusedBlock(blockUml, suggested);
+			if (reused != null) {
+				final List<FileImageData> files = manifest.getFiles(reused);
+				if (files.size() > 1) {
+					cpt += files.size() - 1;
+				}
+				final FutureTask<List<FileImageData>> done = new FutureTask<List<FileImageData>>(
+						new Callable<List<FileImageData>>() {
+							public List<FileImageData> call() {
+								return files;
+							}
+						});
+				done.run();
+				exported.add(blockUml);
+				reusedBlocks.add(reused);
+				exports.add(Collections.<Future<List<FileImageData>>>singletonList(done));
+				continue;
+			}
+
+			final boolean betaStyle;
+			try {
+				betaStyle = get(betaStyles.get(i));
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+				if (manifest != null) {
+					manifest.remove(file);
+				}
+				crash = getCrashedImage(blockUml, e.getCause(), suggested.getFile(0));
+				for (Future<Boolean> pending : betaStyles) {
+					pending.cancel(false);
+				}
+				break;
+			}
+			final Diagram system = blockUml.getDiagram();
+
+			if (OptionFlags.getInstance().isSilentlyCompletelyIgnoreErrors() && system instanceof PSystemError) {
+				continue;
+			}
+
+			OptionFlags.getInstance().logData(SFile.fromFile(file), system);
+			final int nbFiles = PSystemUtils.getNbFiles(system, suggested, fileFormatOption, checkMetadata);
+			if (nbFiles > 1) {
+				cpt += nbFiles - 1;
+			}
+			exported.add(blockUml);
+			reusedBlocks.add(null);
+			exports.add(export(system, suggested, context.withBetaStyle(betaStyle)));
+		}
+
+		final List<GeneratedImage> result = new ArrayList<GeneratedImage>();
+		final List<OutputManifest.Block> manifestBlocks = new ArrayList<OutputManifest.Block>();
+		for (int i = 0; i < exported.size(); i++) {
+			final BlockUml blockUml = exported.get(i);
+			final OutputManifest.Block reused = reusedBlocks.get(i);
+			final List<FileImageData> files = new ArrayList<FileImageData>();
+			for (Future<List<FileImageData>> export : exports.get(i)) {
+				final List<FileImageData> exportDiagrams;
+				try {
+					exportDiagrams = get(export);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException) {
+						throw (IOException) e.getCause();
+					}
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					}
+					throw new IOException(e.getCause());
+				}
+				files.addAll(exportDiagrams);
+			}
+			if (reused != null) {
+				for (FileImageData fdata : files) {
+					final String desc = "[" + file.getName() + "] " + reused.getDescription();
+					result.add(new GeneratedImageImpl(fdata.getFile(), desc, blockUml, fdata.getStatus()));
+				}
+				manifestBlocks.add(reused);
+				continue;
+			}
+			final Diagram system = blockUml.getDiagram();
+			for (FileImageData fdata : files) {
+				final String desc = "[" + file.getName() + "] " + system.getDescription();
+				final SFile f = fdata.getFile();
+				exportWarnOrErrIfWord(f, system);
+				final GeneratedImage generatedImage = new GeneratedImageImpl(f, desc, blockUml, fdata.getStatus());
+				result.add(generatedImage);
+			}
+			if (manifest != null) {
+				manifestBlocks.add(manifest.createBlock(blockUml, fileFormatOption.isWithMetadata(),
+						"" + system.getDescription(), files));
+			}
+		}
+		if (crash != null) {
+			return crash;
+		}
+		record(result, manifestBlocks);
+
+		Log.info("Number of image(s): " + result.size());
+
+		return Collections.unmodifiableList(result);
+	}
+
+	private List<Future<List<FileImageData>>> export(final Diagram system, final SuggestedFile suggested,
+			final ThreadContext context) {
+		final List<Future<List<FileImageData>>> result = new ArrayList<Future<List<FileImageData>>>();
+		if (system instanceof NewpagedDiagram) {
+			for (int i = 0; i < system.getNbImages(); i++) {
+				final int page = i;
+				result.add(executor.submit(new Callable<List<FileImageData>>() {
+					public List<FileImageData> call() throws IOException {
+						context.apply();
+						final FileImageData fdata = PSystemUtils.exportPage((NewpagedDiagram) system, suggested, page,
+								fileFormatOption);
+						if (fdata == null) {
+							return Collections.emptyList();
+						}
+						return Collections.singletonList(fdata);
+					}
+				}));
+			}
+			return result;
+		}
+		result.add(executor.submit(new Callable<List<FileImageData>>() {
+			public List<FileImageData> call() throws IOException {
+				context.apply();
+				return PSystemUtils.exportDiagrams(system, suggested, fileFormatOption, checkMetadata);
+			}
+		}));
+		return result;
+	}
+
+	private static <V> V get(Future<V> future) throws ExecutionException, InterruptedIOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	/**
+	 * Thread local settings of the reading thread, applied to the threads of the executor.
+	 */
+	private static class ThreadContext {
+
+		private final SFile currentDir;
+		private final int imageLimit;
+		private final boolean betaStyle;
+
+		private ThreadContext(SFile currentDir, int imageLimit, boolean betaStyle) {
+			this.currentDir = currentDir;
+			this.imageLimit = imageLimit;
+			this.betaStyle = betaStyle;
+		}
+
+		static ThreadContext capture() {
+			return new ThreadContext(FileSystem.getInstance().getCurrentDir(), GraphvizUtils.getenvImageLimit(),
+					UseStyle.useBetaStyle());
+		}
+
+		ThreadContext withBetaStyle(boolean betaStyle) {
+			return new ThreadContext(currentDir, imageLimit, betaStyle);
+		}
+
+		void apply() {
+			FileSystem.getInstance().setCurrentDir(currentDir);
+			GraphvizUtils.setLocalImageLimit(imageLimit);
+			UseStyle.setBetaStyle(betaStyle);
+		}
+	}
+
 	abstract protected SuggestedFile getSuggestedFile(BlockUml blockUml) throws FileNotFoundException;
 
 }
@@ -30,13 +30,17 @@
  */
 package net.sourceforge.plantuml;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import net.sourceforge.plantuml.api.CachedImage;
+import net.sourceforge.plantuml.api.RenderCache;
 import net.sourceforge.plantuml.core.Diagram;
 import net.sourceforge.plantuml.core.DiagramDescription;
 import net.sourceforge.plantuml.core.ImageData;
@@ -166,6 +170,38 @@ public class SourceStringReader {
 
 	}
 
+	/**
+	 * Same as {@link #outputImage(OutputStream, int, FileFormatOption)}, but the image is taken from the cache if it
+	 * was already rendered for an identical source and options. Configuration lines and defines are part of the
+	 * preprocessed source, so they are taken into account. Files read while rendering, such as images, are not.
+	 */
+	public DiagramDescription outputImage(OutputStream os, final int numImage,
+			final FileFormatOption fileFormatOption, RenderCache cache) throws IOException {
+		if (blocks.size() == 0) {
+			return outputImage(os, numImage, fileFormatOption);
+		}
+		final StringBuilder key = new StringBuilder();
+		for (BlockUml b : blocks) {
+			key.append(b.getCacheKey(fileFormatOption.isWithMetadata()));
+			key.append(' ');
+		}
+		key.append(numImage);
+		key.append(' ');
+		key.append(fileFormatOption.getCacheKey());
+		final CachedImage image = cache.get(key.toString(), new Callable<CachedImage>() {
+			public CachedImage call() throws IOException {
+				final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				final DiagramDescription description = outputImage(baos, numImage, fileFormatOption);
+				return new CachedImage(baos.toByteArray(), description == null ? null : description.getDescription());
+			}
+		});
+		image.writeTo(os);
+		if (image.getDescription() == null) {
+			return null;
+		}
+		return new DiagramDescription(image.getDescription());
+	}
+
 	public DiagramDescription generateDiagramDescription(int numImage, FileFormatOption fileFormatOption) {
 		if (blocks.size() == 0) {
 			return null;
@@ -87,7 +87,13 @@ final public class StringLocated {
 
 	public StringLocated getTrimmed() {
 		if (trimmed == null) {
-			this.trimmed = new StringLocated(StringUtils.trin(this.getString()), location, preprocessorError);
+			final String trin = StringUtils.trin(this.getString());
+			if (trin == this.s) {
+				// Most lines are trimmed already: avoid keeping a second copy
+				this.trimmed = this;
+				return this;
+			}
+			this.trimmed = new StringLocated(trin, location, preprocessorError);
 			trimmed.fox = this.fox;
 			trimmed.trimmed = trimmed;
 		}
@@ -403,9 +403,10 @@ public class StringUtils {
 		return sb.toString();
 	}
 
+	private static final Pattern UNICODE_UPLUS = Pattern.compile("\\<U\\+([0-9a-fA-F]{4,5})\\>");
+
 	public static String manageUnicodeNotationUplus(String s) {
-		final Pattern pattern = Pattern.compile("\\<U\\+([0-9a-fA-F]{4,5})\\>");
-		final Matcher matcher = pattern.matcher(s);
+		final Matcher matcher = UNICODE_UPLUS.matcher(s);
 		final StringBuffer result = new StringBuffer();
 		while (matcher.find()) {
 			final String num = matcher.group(1);
@@ -417,9 +418,10 @@ public class StringUtils {
 		return result.toString();
 	}
 
+	private static final Pattern AMP_DIESE = Pattern.compile("\\&#([0-9]+);");
+
 	public static String manageAmpDiese(String s) {
-		final Pattern pattern = Pattern.compile("\\&#([0-9]+);");
-		final Matcher matcher = pattern.matcher(s);
+		final Matcher matcher = AMP_DIESE.matcher(s);
 		final StringBuffer result = new StringBuffer();
 		while (matcher.find()) {
 			final String num = matcher.group(1);
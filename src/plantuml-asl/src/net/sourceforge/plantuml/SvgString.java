@@ -76,18 +76,20 @@ public class SvgString {
 		return result;
 	}
 
+	private static final Pattern BACKGROUND = Pattern.compile("background:([^;]+)");
+
 	private String extractBackground(String style) {
-		final Pattern p = Pattern.compile("background:([^;]+)");
-		final Matcher m = p.matcher(style);
+		final Matcher m = BACKGROUND.matcher(style);
 		if (m.find()) {
 			return m.group(1);
 		}
 		return null;
 	}
 
+	private static final Pattern SVG_STYLE = Pattern.compile("(?i)\\<svg[^>]+style=\"([^\">]+)\"");
+
 	private String extractSvgStyle() {
-		final Pattern p = Pattern.compile("(?i)\\<svg[^>]+style=\"([^\">]+)\"");
-		final Matcher m = p.matcher(svg);
+		final Matcher m = SVG_STYLE.matcher(svg);
 		if (m.find()) {
 			return m.group(1);
 		}
@@ -0,0 +1,74 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An image rendered once and kept by a {@link RenderCache}.
+ */
+public final class CachedImage {
+
+	private final byte[] data;
+	private final String description;
+
+	public CachedImage(byte[] data, String description) {
+		if (data == null) {
+			throw new IllegalArgumentException();
+		}
+		this.data = data;
+		this.description = description;
+	}
+
+	/**
+	 * The bytes of the image. The array is shared and must not be modified.
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * The description of the diagram, or null if there was none.
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	public int size() {
+		return data.length;
+	}
+
+	public void writeTo(OutputStream os) throws IOException {
+		os.write(data);
+	}
+
+}
@@ -0,0 +1,226 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps rendered images in memory, so that identical requests are only rendered once.
+ * 
+ * Images are evicted least recently used first, once their total size exceeds the given number of bytes. When
+ * several threads ask for the same missing image, only one renders it and the others wait for its result.
+ * 
+ * @see net.sourceforge.plantuml.SourceStringReader#outputImage(java.io.OutputStream, int,
+ *      net.sourceforge.plantuml.FileFormatOption, RenderCache)
+ */
+public class RenderCache {
+
+	private final long maxBytes;
+	private final RenderCacheStore store;
+	private final Map<String, CachedImage> images = new LinkedHashMap<String, CachedImage>(16, 0.75f, true);
+	private final ConcurrentMap<String, Rendering> rendering = new ConcurrentHashMap<String, Rendering>();
+	private long bytes;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public RenderCache(long maxBytes) {
+		this(maxBytes, null);
+	}
+
+	public RenderCache(long maxBytes, RenderCacheStore store) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxBytes = maxBytes;
+		this.store = store;
+	}
+
+	/**
+	 * Returns the image cached with this key, calling the renderer if there is none.
+	 */
+	public CachedImage get(String key, Callable<CachedImage> renderer) throws IOException {
+		CachedImage result = lookup(key);
+		if (result != null) {
+			hits.incrementAndGet();
+			return result;
+		}
+		final Rendering task = new Rendering(renderer);
+		final Rendering running = rendering.putIfAbsent(key, task);
+		if (running != null) {
+			hits.incrementAndGet();
+			return waitFor(running);
+		}
+		try {
+			// Another thread may have finished this image since the first lookup
+			result = lookup(key);
+			if (result != null) {
+				hits.incrementAndGet();
+				// Threads already waiting for this task get the image as well
+				task.complete(result);
+				return result;
+			}
+			misses.incrementAndGet();
+			task.run();
+			result = waitFor(task);
+			put(key, result);
+			if (store != null) {
+				store.put(key, result);
+			}
+			return result;
+		} finally {
+			rendering.remove(key, task);
+		}
+	}
+
+	private CachedImage lookup(String key) {
+		synchronized (images) {
+			final CachedImage result = images.get(key);
+			if (result != null) {
+				return result;
+			}
+		}
+		if (store == null) {
+			return null;
+		}
+		final CachedImage result = store.get(key);
+		if (result != null) {
+			put(key, result);
+		}
+		return result;
+	}
+
+	private void put(String key, CachedImage image) {
+		if (image.size() > maxBytes) {
+			return;
+		}
+		synchronized (images) {
+			final CachedImage old = images.put(key, image);
+			if (old != null) {
+				bytes -= old.size();
+			}
+			bytes += image.size();
+			for (Iterator<CachedImage> it = images.values().iterator(); bytes > maxBytes && it.hasNext();) {
+				bytes -= it.next().size();
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	private static CachedImage waitFor(FutureTask<CachedImage> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private static class Rendering extends FutureTask<CachedImage> {
+
+		Rendering(Callable<CachedImage> renderer) {
+			super(renderer);
+		}
+
+		void complete(CachedImage image) {
+			set(image);
+		}
+
+	}
+
+	public void clear() {
+		synchronized (images) {
+			images.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * Number of requests served without rendering, including those that waited for another thread.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Number of requests that rendered their image.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Number of images removed from memory to stay within the size limit.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Total size in bytes of the images kept in memory.
+	 */
+	public long getSize() {
+		synchronized (images) {
+			return bytes;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + getHits() + " misses=" + getMisses() + " evictions=" + getEvictions() + " size="
+				+ getSize();
+	}
+
+}
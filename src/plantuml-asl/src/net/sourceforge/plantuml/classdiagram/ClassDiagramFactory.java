@@ -88,6 +88,11 @@ public class ClassDiagramFactory extends PSystemCommandFactory {
 		return new ClassDiagram(skinParam);
 	}
 
+	@Override
+	protected List<Command<?>> bindCommands(List<Command<?>> shared) {
+		return CommandNewpage.bind(shared, this);
+	}
+
 	@Override
 	protected List<Command> createCommands() {
 		final List<Command> cmds = new ArrayList<Command>();
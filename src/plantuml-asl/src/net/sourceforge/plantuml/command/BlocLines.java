@@ -92,9 +92,8 @@ public class BlocLines implements Iterable<StringLocated> {
 	}
 
 	public static BlocLines single(StringLocated single) {
-		final List<StringLocated> result = new ArrayList<StringLocated>();
-		result.add(single);
-		return new BlocLines(result);
+		// Called for every line of the source: no need for a growable list
+		return new BlocLines(Collections.singletonList(single));
 	}
 
 	public static BlocLines singleString(String single) {
@@ -34,6 +34,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.plantuml.AbstractPSystem;
 import net.sourceforge.plantuml.ErrorUml;
@@ -56,7 +58,9 @@ import net.sourceforge.plantuml.version.IteratorCounter2;
 
 public abstract class PSystemCommandFactory extends PSystemAbstractFactory {
 
-	private List<Command> cmds;
+	private static final ConcurrentMap<String, List<Command<?>>> cache = new ConcurrentHashMap<String, List<Command<?>>>();
+
+	private List<Command<?>> cmds;
 
 	protected PSystemCommandFactory() {
 		this(DiagramType.UML);
@@ -146,10 +150,7 @@ public abstract class PSystemCommandFactory extends PSystemAbstractFactory {
 
 	private Step getCandidate(final IteratorCounter2 it) {
 		final BlocLines single = BlocLines.single(it.peek());
-		if (cmds == null) {
-			cmds = createCommands();
-		}
-		for (Command cmd : cmds) {
+		for (Command cmd : getCommands()) {
 			final CommandControl result = cmd.isValid(single);
 			if (result == CommandControl.OK) {
 				it.next();
@@ -204,6 +205,31 @@ public abstract class PSystemCommandFactory extends PSystemAbstractFactory {
 		return lines;
 	}
 
+	private List<Command<?>> getCommands() {
+		if (cmds == null) {
+			final String key = getClass().getName() + " " + getDiagramType();
+			List<Command<?>> shared = cache.get(key);
+			if (shared == null) {
+				final List<Command<?>> created = new ArrayList<Command<?>>();
+				for (Command<?> cmd : createCommands()) {
+					created.add(cmd);
+				}
+				cache.putIfAbsent(key, Collections.unmodifiableList(created));
+				shared = cache.get(key);
+			}
+			cmds = bindCommands(shared);
+		}
+		return cmds;
+	}
+
+	/**
+	 * Commands are created once per factory class and diagram type, and shared by all factories. Factories with
+	 * commands that need the factory itself override this to replace them in a copy of the shared list.
+	 */
+	protected List<Command<?>> bindCommands(List<Command<?>> shared) {
+		return shared;
+	}
+
 	// -----------------------------------
 
 	protected abstract List<Command> createCommands();
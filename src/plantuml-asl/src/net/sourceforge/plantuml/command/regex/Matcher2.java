@@ -164,4 +164,13 @@ public class Matcher2 {
 		}
 	}
 
+	public String replaceAll(String replacement) {
+		final long now = System.currentTimeMillis();
+		try {
+			return matcher.replaceAll(replacement);
+		} finally {
+			addTime(System.currentTimeMillis() - now);
+		}
+	}
+
 }
@@ -30,29 +30,66 @@
  */
 package net.sourceforge.plantuml.command.regex;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 // Splitter.java to be finished
 public abstract class MyPattern {
 
+	// Patterns are interned by source and flags, so that building the same
+	// pattern again (per object or per call) does not compile it again.
+	// The registry is bounded because some patterns are built from user input:
+	// the least recently used ones are dropped first.
+	private static final int MAX_INTERNED = 4096;
+
+	private static final Map<String, Pattern2> interned = new LinkedHashMap<String, Pattern2>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Pattern2> eldest) {
+			return size() > MAX_INTERNED;
+		}
+	};
+	private static final AtomicInteger compileCount = new AtomicInteger();
+
 	public static Pattern2 cmpile(String p) {
-		p = transformAndCheck(p);
-		return new Pattern2(Pattern.compile(p));
+		return intern(p, 0, true);
 	}
 
 	public static Pattern2 cmpileNockeck(String p) {
-		p = transform(p);
-		return new Pattern2(Pattern.compile(p));
+		return intern(p, 0, false);
 	}
 
 	public static Pattern2 cmpile(String p, int type) {
-		p = transformAndCheck(p);
-		return new Pattern2(Pattern.compile(p, type));
+		return intern(p, type, true);
 	}
 
 	public static Pattern2 cmpileNockeck(String p, int type) {
-		p = transform(p);
-		return new Pattern2(Pattern.compile(p, type));
+		return intern(p, type, false);
+	}
+
+	private static Pattern2 intern(String p, int type, boolean check) {
+		final String key = type + ":" + p;
+		synchronized (interned) {
+			final Pattern2 result = interned.get(key);
+			if (result != null) {
+				return result;
+			}
+		}
+		compileCount.incrementAndGet();
+		final String transformed = check ? transformAndCheck(p) : transform(p);
+		final Pattern2 result = new Pattern2(Pattern.compile(transformed, type));
+		synchronized (interned) {
+			interned.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Number of patterns actually compiled through this class since startup.
+	 */
+	public static int getCompileCount() {
+		return compileCount.get();
 	}
 
 	private static String transformAndCheck(String p) {
@@ -62,9 +99,9 @@ public abstract class MyPattern {
 
 	private static String transform(String p) {
 		// Replace ReadLineReader.java
-		p = p.replaceAll("%s", "\\\\s\u00A0"); // space
-		p = p.replaceAll("%q", "'\u2018\u2019"); // quote
-		p = p.replaceAll("%g", "\"\u201c\u201d\u00ab\u00bb"); // double quote
+		p = p.replace("%s", "\\s\u00A0"); // space
+		p = p.replace("%q", "'\u2018\u2019"); // quote
+		p = p.replace("%g", "\"\u201c\u201d\u00ab\u00bb"); // double quote
 		return p;
 	}
 
@@ -73,7 +110,7 @@ public abstract class MyPattern {
 	}
 
 	public static CharSequence removeAll(CharSequence src, String regex) {
-		return src.toString().replaceAll(transform(regex), "");
+		return cmpile(regex).matcher(src).replaceAll("");
 	}
 
 }
@@ -112,6 +112,8 @@ final public class UmlSource {
 				final String s = cs.getString();
 				if (StringUtils.endsWithBackslash(s)) {
 					pending.append(s.substring(0, s.length() - 1));
+				} else if (pending.length() == 0 && cs.getPreprocessorError() == null) {
+					this.source.add(cs);
 				} else {
 					pending.append(s);
 					this.source.add(new StringLocated(pending.toString(), cs.getLocation()));
@@ -246,9 +248,10 @@ final public class UmlSource {
 		return source.get(0).getString().startsWith("@startdef");
 	}
 
+	private static final Pattern ID = Pattern.compile("id=([\\w]+)\\b");
+
 	public String getId() {
-		final Pattern p = Pattern.compile("id=([\\w]+)\\b");
-		final Matcher m = p.matcher(source.get(0).getString());
+		final Matcher m = ID.matcher(source.get(0).getString());
 		if (m.find()) {
 			return m.group(1);
 		}
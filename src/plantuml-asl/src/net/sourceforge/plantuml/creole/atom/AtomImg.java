@@ -35,6 +35,9 @@ import java.awt.geom.Dimension2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import net.sourceforge.plantuml.Dimension2DDouble;
 import net.sourceforge.plantuml.FileSystem;
@@ -62,16 +65,53 @@ import net.sourceforge.plantuml.ugraphic.UImage;
 public class AtomImg extends AbstractAtom implements Atom {
 
 	private static final String DATA_IMAGE_PNG_BASE64 = "data:image/png;base64,";
+	private static final long MAX_DECODED_PIXELS = 16L * 1024 * 1024;
+	private static final Map<String, BufferedImage> decoded = new LinkedHashMap<String, BufferedImage>(16, 0.75f,
+			true);
+	private static long decodedPixels;
+
 	private final BufferedImage image;
 	private final double scale;
 	private final Url url;
-	private final String rawFileName;
+	private final UImage uimage;
 
 	private AtomImg(BufferedImage image, double scale, Url url, String rawFileName) {
+		this(image, scale, url, rawFileName, false);
+	}
+
+	private AtomImg(BufferedImage image, double scale, Url url, String rawFileName, boolean shared) {
 		this.image = image;
 		this.scale = scale;
 		this.url = url;
-		this.rawFileName = rawFileName;
+		final UImage uimage = new UImage(new PixelImage(image, AffineTransformType.TYPE_BILINEAR))
+				.withRawFileName(rawFileName).scale(scale);
+		this.uimage = shared ? uimage.shared() : uimage;
+	}
+
+	// The same image is often repeated in a diagram: it is decoded once and shared
+	private static synchronized BufferedImage getDecoded(String key) {
+		return decoded.get(key);
+	}
+
+	private static synchronized void putDecoded(String key, BufferedImage image) {
+		final long pixels = getPixels(image);
+		if (pixels > MAX_DECODED_PIXELS) {
+			return;
+		}
+		final BufferedImage old = decoded.put(key, image);
+		if (old != null) {
+			decodedPixels -= getPixels(old);
+		}
+		decodedPixels += pixels;
+		for (Iterator<BufferedImage> it = decoded.values().iterator(); decodedPixels > MAX_DECODED_PIXELS
+				&& it.hasNext();) {
+			decodedPixels -= getPixels(it.next());
+			it.remove();
+		}
+	}
+
+	private static long getPixels(BufferedImage image) {
+		return (long) image.getWidth() * image.getHeight();
 	}
 
 	public static Atom createQrcode(String flash, double scale) {
@@ -90,6 +130,10 @@ public class AtomImg extends AbstractAtom implements Atom {
 		final FontConfiguration fc = FontConfiguration.blackBlueTrue(font);
 
 		if (src.startsWith(DATA_IMAGE_PNG_BASE64)) {
+			final BufferedImage cached = getDecoded(src);
+			if (cached != null) {
+				return new AtomImg(cached, scale, url, null, true);
+			}
 			final String data = src.substring(DATA_IMAGE_PNG_BASE64.length(), src.length());
 			try {
 				final byte bytes[] = Base64Coder.decode(data);
@@ -121,14 +165,19 @@ public class AtomImg extends AbstractAtom implements Atom {
 				}
 				return new AtomImgSvg(new TileImageSvg(tmp));
 			}
-			final BufferedImage read = f.readRasterImageFromFile();
+			final String key = f.getAbsolutePath() + "\t" + f.length() + "\t" + f.lastModified();
+			BufferedImage read = getDecoded(key);
+			if (read == null) {
+				read = f.readRasterImageFromFile();
+			}
 			if (read == null) {
 				if (SecurityUtils.getSecurityProfile() == SecurityProfile.UNSECURE) {
 					return AtomTextUtils.createLegacy("(Cannot decode: " + f.getPrintablePath() + ")", fc);
 				}
 				return AtomTextUtils.createLegacy("(Cannot decode)", fc);
 			}
-			return new AtomImg(f.readRasterImageFromFile(), scale, url, src);
+			putDecoded(key, read);
+			return new AtomImg(read, scale, url, src, true);
 		} catch (IOException e) {
 			e.printStackTrace();
 			if (SecurityUtils.getSecurityProfile() == SecurityProfile.UNSECURE) {
@@ -144,7 +193,8 @@ public class AtomImg extends AbstractAtom implements Atom {
 		if (read == null) {
 			return AtomTextUtils.createLegacy("(Cannot decode: " + source + ")", fc);
 		}
-		return new AtomImg(read, scale, url, null);
+		putDecoded(source, read);
+		return new AtomImg(read, scale, url, null, true);
 	}
 
 	private static Atom buildRasterFromUrl(String text, final FontConfiguration fc, SURL source, double scale, Url url)
@@ -185,8 +235,7 @@ public class AtomImg extends AbstractAtom implements Atom {
 		if (url != null) {
 			ug.startUrl(url);
 		}
-		ug.draw(new UImage(new PixelImage(image, AffineTransformType.TYPE_BILINEAR)).withRawFileName(rawFileName)
-				.scale(scale));
+		ug.draw(uimage);
 		if (url != null) {
 			ug.closeUrl();
 		}
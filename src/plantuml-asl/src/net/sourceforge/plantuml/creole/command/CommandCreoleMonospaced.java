@@ -38,15 +38,15 @@ import net.sourceforge.plantuml.graphic.FontConfiguration;
 
 public class CommandCreoleMonospaced implements Command {
 
-	private final Pattern2 pattern;
+	private static final Pattern2 pattern = MyPattern.cmpile("^(?i)(\"\"(.*?)\"\")");
+
 	private final String monospacedFamily;
 
 	public static Command create(String monospacedFamily) {
-		return new CommandCreoleMonospaced("^(?i)(\"\"(.*?)\"\")", monospacedFamily);
+		return new CommandCreoleMonospaced(monospacedFamily);
 	}
 
-	private CommandCreoleMonospaced(String p, String monospacedFamily) {
-		this.pattern = MyPattern.cmpile(p);
+	private CommandCreoleMonospaced(String monospacedFamily) {
 		this.monospacedFamily = monospacedFamily;
 	}
 
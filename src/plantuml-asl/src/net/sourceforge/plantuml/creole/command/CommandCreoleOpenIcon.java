@@ -41,16 +41,16 @@ import net.sourceforge.plantuml.ugraphic.color.HColorSet;
 
 public class CommandCreoleOpenIcon implements Command {
 
-	private final Pattern2 pattern;
+	private static final Pattern2 pattern = MyPattern.cmpile("^(?i)(" + Splitter.openiconPattern + ")");
+
 	private final HColorSet colorSet;
 
-	private CommandCreoleOpenIcon(HColorSet colorSet, String p) {
-		this.pattern = MyPattern.cmpile(p);
+	private CommandCreoleOpenIcon(HColorSet colorSet) {
 		this.colorSet = colorSet;
 	}
 
 	public static Command create(HColorSet colorSet) {
-		return new CommandCreoleOpenIcon(colorSet, "^(?i)(" + Splitter.openiconPattern + ")");
+		return new CommandCreoleOpenIcon(colorSet);
 	}
 
 	public int matchingSize(String line) {
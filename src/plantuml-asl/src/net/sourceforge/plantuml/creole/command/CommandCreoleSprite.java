@@ -41,16 +41,16 @@ import net.sourceforge.plantuml.ugraphic.color.HColorSet;
 
 public class CommandCreoleSprite implements Command {
 
-	private final Pattern2 pattern;
+	private static final Pattern2 pattern = MyPattern.cmpile("^(?i)(" + Splitter.spritePattern2 + ")");
+
 	private final HColorSet colorSet;
 
-	private CommandCreoleSprite(HColorSet colorSet, String p) {
-		this.pattern = MyPattern.cmpile(p);
+	private CommandCreoleSprite(HColorSet colorSet) {
 		this.colorSet = colorSet;
 	}
 
 	public static Command create(HColorSet colorSet) {
-		return new CommandCreoleSprite(colorSet, "^(?i)(" + Splitter.spritePattern2 + ")");
+		return new CommandCreoleSprite(colorSet);
 	}
 
 	public int matchingSize(String line) {
@@ -84,11 +84,12 @@ public class AtomTextUtils {
 		return createAtomText(url.getLabel(), url, fontConfiguration, skinSimple);
 	}
 
+	private static final Pattern ICON_SPRITE_OR_IMG = Pattern.compile(
+			Splitter.openiconPattern + "|" + Splitter.spritePattern2 + "|" + Splitter.imgPatternNoSrcColon);
+
 	private static Atom createAtomText(final String text, Url url, FontConfiguration fontConfiguration,
 			ISkinSimple skinSimple) {
-		final Pattern p = Pattern.compile(
-				Splitter.openiconPattern + "|" + Splitter.spritePattern2 + "|" + Splitter.imgPatternNoSrcColon);
-		final Matcher m = p.matcher(text);
+		final Matcher m = ICON_SPRITE_OR_IMG.matcher(text);
 		final List<Atom> result = new ArrayList<Atom>();
 		while (m.find()) {
 			final StringBuffer sb = new StringBuffer();
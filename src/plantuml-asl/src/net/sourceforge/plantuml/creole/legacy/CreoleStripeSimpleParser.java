@@ -46,6 +46,14 @@ import net.sourceforge.plantuml.utils.CharHidder;
 
 public class CreoleStripeSimpleParser {
 
+	private static final Pattern2 P4 = MyPattern.cmpile("^--([^-]*)--$");
+	private static final Pattern2 P5 = MyPattern.cmpile("^==([^=]*)==$");
+	private static final Pattern2 P5B = MyPattern.cmpile("^===*==$");
+	private static final Pattern2 P7 = MyPattern.cmpile("^\\.\\.([^\\.]*)\\.\\.$");
+	private static final Pattern2 P1 = MyPattern.cmpile("^(\\*+)([^*]+(?:[^*]|\\*\\*[^*]+\\*\\*)*)$");
+	private static final Pattern2 P2 = MyPattern.cmpile("^(#+)(.+)$");
+	private static final Pattern2 P3 = MyPattern.cmpile("^(=+)(.+)$");
+
 	final private String line;
 	final private StripeStyle style;
 	private final CreoleMode modeSimpleLine;
@@ -71,31 +79,27 @@ public class CreoleStripeSimpleParser {
 			return;
 		}
 
-		final Pattern2 p4 = MyPattern.cmpile("^--([^-]*)--$");
-		final Matcher2 m4 = p4.matcher(line);
+		final Matcher2 m4 = P4.matcher(line);
 		if (m4.find()) {
 			this.line = m4.group(1);
 			this.style = new StripeStyle(StripeStyleType.HORIZONTAL_LINE, 0, '-');
 			return;
 		}
 
-		final Pattern2 p5 = MyPattern.cmpile("^==([^=]*)==$");
-		final Matcher2 m5 = p5.matcher(line);
+		final Matcher2 m5 = P5.matcher(line);
 		if (m5.find()) {
 			this.line = m5.group(1);
 			this.style = new StripeStyle(StripeStyleType.HORIZONTAL_LINE, 0, '=');
 			return;
 		}
-		final Pattern2 p5b = MyPattern.cmpile("^===*==$");
-		final Matcher2 m5b = p5b.matcher(line);
+		final Matcher2 m5b = P5B.matcher(line);
 		if (m5b.find()) {
 			this.line = "";
 			this.style = new StripeStyle(StripeStyleType.HORIZONTAL_LINE, 0, '=');
 			return;
 		}
 
-		final Pattern2 p7 = MyPattern.cmpile("^\\.\\.([^\\.]*)\\.\\.$");
-		final Matcher2 m7 = p7.matcher(line);
+		final Matcher2 m7 = P7.matcher(line);
 		if (m7.find()) {
 			this.line = m7.group(1);
 			this.style = new StripeStyle(StripeStyleType.HORIZONTAL_LINE, 0, '.');
@@ -103,8 +107,7 @@ public class CreoleStripeSimpleParser {
 		}
 
 		if (mode == CreoleMode.FULL) {
-			final Pattern2 p1 = MyPattern.cmpile("^(\\*+)([^*]+(?:[^*]|\\*\\*[^*]+\\*\\*)*)$");
-			final Matcher2 m1 = p1.matcher(line);
+			final Matcher2 m1 = P1.matcher(line);
 			if (m1.find()) {
 				this.line = StringUtils.trin(m1.group(2));
 				final int order = m1.group(1).length() - 1;
@@ -114,8 +117,7 @@ public class CreoleStripeSimpleParser {
 		}
 
 		if (mode == CreoleMode.FULL) {
-			final Pattern2 p2 = MyPattern.cmpile("^(#+)(.+)$");
-			final Matcher2 m2 = p2.matcher(CharHidder.hide(line));
+			final Matcher2 m2 = P2.matcher(CharHidder.hide(line));
 			if (m2.find()) {
 				this.line = StringUtils.trin(CharHidder.unhide(m2.group(2)));
 				final int order = CharHidder.unhide(m2.group(1)).length() - 1;
@@ -124,8 +126,7 @@ public class CreoleStripeSimpleParser {
 			}
 		}
 
-		final Pattern2 p3 = MyPattern.cmpile("^(=+)(.+)$");
-		final Matcher2 m3 = p3.matcher(line);
+		final Matcher2 m3 = P3.matcher(line);
 		if (m3.find()) {
 			this.line = StringUtils.trin(m3.group(2));
 			final int order = m3.group(1).length() - 1;
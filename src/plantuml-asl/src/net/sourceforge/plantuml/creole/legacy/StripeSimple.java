@@ -31,6 +31,7 @@
 package net.sourceforge.plantuml.creole.legacy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -83,7 +84,12 @@ public class StripeSimple implements Stripe {
 	final private Atom header;
 
 	final private List<Atom> atoms = new ArrayList<Atom>();
-	final private List<Command> commands = new ArrayList<Command>();
+	final private boolean creoleUnderline;
+	final private boolean svgAttribute;
+	final private Command commandOpenIcon;
+	final private Command commandSprite;
+	final private Command commandMonospaced;
+	final private Command commandUrl;
 	private HorizontalAlignment align = HorizontalAlignment.LEFT;
 
 	public void setCellAlignment(HorizontalAlignment align) {
@@ -114,50 +120,12 @@ public class StripeSimple implements Stripe {
 		this.style = style;
 		this.skinParam = skinParam;
 
-		// class Splitter
-		this.commands.add(CommandCreoleStyle.createCreole(FontStyle.BOLD));
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.BOLD));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.BOLD));
-		this.commands.add(CommandCreoleStyle.createCreole(FontStyle.ITALIC));
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.ITALIC));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.ITALIC));
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.PLAIN));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.PLAIN));
-		if (modeSimpleLine == CreoleMode.FULL) {
-			this.commands.add(CommandCreoleStyle.createCreole(FontStyle.UNDERLINE));
-		}
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.UNDERLINE));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.UNDERLINE));
-		this.commands.add(CommandCreoleStyle.createCreole(FontStyle.STRIKE));
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.STRIKE));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.STRIKE));
-		this.commands.add(CommandCreoleStyle.createCreole(FontStyle.WAVE));
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.WAVE));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.WAVE));
-		this.commands.add(CommandCreoleStyle.createLegacy(FontStyle.BACKCOLOR));
-		this.commands.add(CommandCreoleStyle.createLegacyEol(FontStyle.BACKCOLOR));
-		this.commands.add(CommandCreoleSizeChange.create());
-		this.commands.add(CommandCreoleSizeChange.createEol());
-		this.commands.add(CommandCreoleColorChange.create());
-		this.commands.add(CommandCreoleColorChange.createEol());
-		this.commands.add(CommandCreoleColorAndSizeChange.create());
-		this.commands.add(CommandCreoleColorAndSizeChange.createEol());
-		this.commands.add(CommandCreoleExposantChange.create(FontPosition.EXPOSANT));
-		this.commands.add(CommandCreoleExposantChange.create(FontPosition.INDICE));
-		this.commands.add(CommandCreoleImg.create());
-		this.commands.add(CommandCreoleQrcode.create());
-		this.commands.add(CommandCreoleOpenIcon.create(skinParam.getIHtmlColorSet()));
-		this.commands.add(CommandCreoleMath.create());
-		this.commands.add(CommandCreoleLatex.create());
-		this.commands.add(CommandCreoleSprite.create(skinParam.getIHtmlColorSet()));
-		this.commands.add(CommandCreoleSpace.create());
-		this.commands.add(CommandCreoleFontFamilyChange.create());
-		this.commands.add(CommandCreoleFontFamilyChange.createEol());
-		this.commands.add(CommandCreoleMonospaced.create(skinParam.getMonospacedFamily()));
-		this.commands.add(CommandCreoleUrl.create(skinParam));
-		if (SecurityUtils.allowSvgText()) {
-			this.commands.add(CommandCreoleSvgAttributeChange.create());
-		}
+		this.creoleUnderline = modeSimpleLine == CreoleMode.FULL;
+		this.svgAttribute = SecurityUtils.allowSvgText();
+		this.commandOpenIcon = CommandCreoleOpenIcon.create(skinParam.getIHtmlColorSet());
+		this.commandSprite = CommandCreoleSprite.create(skinParam.getIHtmlColorSet());
+		this.commandMonospaced = CommandCreoleMonospaced.create(skinParam.getMonospacedFamily());
+		this.commandUrl = CommandCreoleUrl.create(skinParam);
 
 		this.header = style.getHeader(fontConfiguration, context);
 
@@ -248,37 +216,118 @@ public class StripeSimple implements Stripe {
 	}
 
 	private void modifyStripe(String line) {
-		final StringBuilder pending = new StringBuilder();
-
-		while (line.length() > 0) {
-			final Command cmd = searchCommand(line);
-			if (cmd == null) {
-				pending.append(line.charAt(0));
-				line = line.substring(1);
-			} else {
-				addPending(pending);
-				line = cmd.executeAndGetRemaining(line, this);
+		int i = 0;
+		while (i < line.length()) {
+			final char c = line.charAt(i);
+			if (c < COMMANDS.length && COMMANDS[c] != null) {
+				final String remaining = line.substring(i);
+				final Command cmd = searchCommand(remaining);
+				if (cmd != null) {
+					addPending(line.substring(0, i));
+					line = cmd.executeAndGetRemaining(remaining, this);
+					i = 0;
+					continue;
+				}
 			}
+			i++;
 		}
-		addPending(pending);
+		addPending(line);
 	}
 
-	private void addPending(StringBuilder pending) {
+	private void addPending(String pending) {
 		if (pending.length() == 0) {
 			return;
 		}
-		atoms.add(AtomTextUtils.createLegacy(pending.toString(), fontConfiguration));
-		pending.setLength(0);
+		atoms.add(AtomTextUtils.createLegacy(pending, fontConfiguration));
 	}
 
 	private Command searchCommand(String line) {
-		for (Command cmd : commands) {
-			final int i = cmd.matchingSize(line);
-			if (i != 0) {
+		for (Command cmd : COMMANDS[line.charAt(0)]) {
+			if (cmd == CREOLE_UNDERLINE && creoleUnderline == false) {
+				continue;
+			}
+			if (cmd == SVG_ATTRIBUTE && svgAttribute == false) {
+				continue;
+			}
+			if (cmd == OPEN_ICON) {
+				cmd = commandOpenIcon;
+			} else if (cmd == SPRITE) {
+				cmd = commandSprite;
+			} else if (cmd == MONOSPACED) {
+				cmd = commandMonospaced;
+			} else if (cmd == URL) {
+				cmd = commandUrl;
+			}
+			if (cmd.matchingSize(line) != 0) {
 				return cmd;
 			}
 		}
 		return null;
 	}
 
+	// Commands grouped by the only character their pattern can start with, in
+	// priority order. Commands depending on the skin are placeholders replaced by
+	// the instance of the stripe.
+	private static final Command CREOLE_UNDERLINE = CommandCreoleStyle.createCreole(FontStyle.UNDERLINE);
+	private static final Command SVG_ATTRIBUTE = CommandCreoleSvgAttributeChange.create();
+	private static final Command OPEN_ICON = CommandCreoleOpenIcon.create(null);
+	private static final Command SPRITE = CommandCreoleSprite.create(null);
+	private static final Command MONOSPACED = CommandCreoleMonospaced.create(null);
+	private static final Command URL = CommandCreoleUrl.create(null);
+
+	private static final Command[][] COMMANDS = new Command[128][];
+
+	static {
+		addCommand('*', CommandCreoleStyle.createCreole(FontStyle.BOLD));
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.BOLD));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.BOLD));
+		addCommand('/', CommandCreoleStyle.createCreole(FontStyle.ITALIC));
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.ITALIC));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.ITALIC));
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.PLAIN));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.PLAIN));
+		addCommand('_', CREOLE_UNDERLINE);
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.UNDERLINE));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.UNDERLINE));
+		addCommand('-', CommandCreoleStyle.createCreole(FontStyle.STRIKE));
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.STRIKE));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.STRIKE));
+		addCommand('~', CommandCreoleStyle.createCreole(FontStyle.WAVE));
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.WAVE));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.WAVE));
+		addCommand('<', CommandCreoleStyle.createLegacy(FontStyle.BACKCOLOR));
+		addCommand('<', CommandCreoleStyle.createLegacyEol(FontStyle.BACKCOLOR));
+		addCommand('<', CommandCreoleSizeChange.create());
+		addCommand('<', CommandCreoleSizeChange.createEol());
+		addCommand('<', CommandCreoleColorChange.create());
+		addCommand('<', CommandCreoleColorChange.createEol());
+		addCommand('<', CommandCreoleColorAndSizeChange.create());
+		addCommand('<', CommandCreoleColorAndSizeChange.createEol());
+		addCommand('<', CommandCreoleExposantChange.create(FontPosition.EXPOSANT));
+		addCommand('<', CommandCreoleExposantChange.create(FontPosition.INDICE));
+		addCommand('<', CommandCreoleImg.create());
+		addCommand('<', CommandCreoleQrcode.create());
+		addCommand('<', OPEN_ICON);
+		addCommand('<', CommandCreoleMath.create());
+		addCommand('<', CommandCreoleLatex.create());
+		addCommand('<', SPRITE);
+		addCommand('<', CommandCreoleSpace.create());
+		addCommand('<', CommandCreoleFontFamilyChange.create());
+		addCommand('<', CommandCreoleFontFamilyChange.createEol());
+		addCommand('"', MONOSPACED);
+		addCommand('[', URL);
+		addCommand('<', SVG_ATTRIBUTE);
+	}
+
+	private static void addCommand(char first, Command cmd) {
+		final Command[] current = COMMANDS[first];
+		if (current == null) {
+			COMMANDS[first] = new Command[] { cmd };
+		} else {
+			final Command[] result = Arrays.copyOf(current, current.length + 1);
+			result[current.length] = cmd;
+			COMMANDS[first] = result;
+		}
+	}
+
 }
@@ -64,9 +64,10 @@ public class BodierMap implements Bodier {
 
 	}
 
+	private static final Pattern LINKED_ENTRY = Pattern.compile("(\\*-+\\>)");
+
 	public static String getLinkedEntry(String s) {
-		final Pattern p = Pattern.compile("(\\*-+\\>)");
-		final Matcher m = p.matcher(s);
+		final Matcher m = LINKED_ENTRY.matcher(s);
 		if (m.find()) {
 			return m.group(1);
 		}
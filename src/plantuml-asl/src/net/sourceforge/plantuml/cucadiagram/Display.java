@@ -311,12 +311,13 @@ public class Display implements Iterable<CharSequence> {
 		return new Display(result, this.naturalHorizontalAlignment, this.isNull, this.defaultCreoleMode);
 	}
 
+	private static final Pattern UNDERLINED_NAME = Pattern.compile("^([^:]+?)(\\s*:.+)$");
+
 	public Display underlinedName() {
-		final Pattern p = Pattern.compile("^([^:]+?)(\\s*:.+)$");
 		final List<CharSequence> result = new ArrayList<CharSequence>();
 		for (CharSequence line : displayData) {
 			if (result.size() == 0) {
-				final Matcher m = p.matcher(line);
+				final Matcher m = UNDERLINED_NAME.matcher(line);
 				if (m.matches())
 					result.add("<u>" + m.group(1) + "</u>" + m.group(2));
 				else
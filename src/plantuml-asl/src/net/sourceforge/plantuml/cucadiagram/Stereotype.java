@@ -200,11 +200,12 @@ public class Stereotype implements CharSequence {
 		return "<<O-O>>".equalsIgnoreCase(label);
 	}
 
+	private static final Pattern MULTIPLE_LABELS = Pattern.compile("\\<\\<\\s?((?:\\<&\\w+\\>|[^<>])+?)\\s?\\>\\>");
+
 	public List<String> getMultipleLabels() {
 		final List<String> result = new ArrayList<String>();
 		if (label != null) {
-			final Pattern p = Pattern.compile("\\<\\<\\s?((?:\\<&\\w+\\>|[^<>])+?)\\s?\\>\\>");
-			final Matcher m = p.matcher(label);
+			final Matcher m = MULTIPLE_LABELS.matcher(label);
 			while (m.find()) {
 				result.add(m.group(1));
 			}
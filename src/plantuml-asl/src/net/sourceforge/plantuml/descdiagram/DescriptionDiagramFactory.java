@@ -70,6 +70,11 @@ public class DescriptionDiagramFactory extends PSystemCommandFactory {
 		return new DescriptionDiagram(skinParam);
 	}
 
+	@Override
+	protected List<Command<?>> bindCommands(List<Command<?>> shared) {
+		return CommandNewpage.bind(shared, this);
+	}
+
 	@Override
 	protected List<Command> createCommands() {
 		final List<Command> cmds = new ArrayList<Command>();
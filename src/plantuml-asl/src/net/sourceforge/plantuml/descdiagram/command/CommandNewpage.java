@@ -30,9 +30,13 @@
  */
 package net.sourceforge.plantuml.descdiagram.command;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.sourceforge.plantuml.LineLocation;
 import net.sourceforge.plantuml.NewpagedDiagram;
 import net.sourceforge.plantuml.UmlDiagram;
+import net.sourceforge.plantuml.command.Command;
 import net.sourceforge.plantuml.command.CommandExecutionResult;
 import net.sourceforge.plantuml.command.SingleLineCommand2;
 import net.sourceforge.plantuml.command.PSystemCommandFactory;
@@ -50,6 +54,16 @@ public class CommandNewpage extends SingleLineCommand2<UmlDiagram> {
 		this.factory = factory;
 	}
 
+	public static List<Command<?>> bind(List<Command<?>> shared, PSystemCommandFactory factory) {
+		final List<Command<?>> result = new ArrayList<Command<?>>(shared);
+		for (int i = 0; i < result.size(); i++) {
+			if (result.get(i) instanceof CommandNewpage) {
+				result.set(i, new CommandNewpage(factory));
+			}
+		}
+		return result;
+	}
+
 	static IRegex getRegexConcat() {
 		return RegexConcat.build(CommandNewpage.class.getName(), RegexLeaf.start(), //
 				new RegexLeaf("newpage"), RegexLeaf.end());
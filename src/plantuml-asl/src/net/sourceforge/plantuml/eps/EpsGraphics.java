@@ -33,7 +33,6 @@ package net.sourceforge.plantuml.eps;
 import java.awt.Color;
 import java.awt.geom.PathIterator;
 import java.awt.image.BufferedImage;
-import java.util.Locale;
 import java.util.StringTokenizer;
 
 import net.sourceforge.plantuml.BackSlash;
@@ -44,6 +43,7 @@ import net.sourceforge.plantuml.ugraphic.USegment;
 import net.sourceforge.plantuml.ugraphic.USegmentType;
 import net.sourceforge.plantuml.ugraphic.color.ColorMapper;
 import net.sourceforge.plantuml.ugraphic.color.HColorGradient;
+import net.sourceforge.plantuml.utils.FixedDecimal;
 import net.sourceforge.plantuml.utils.MathUtils;
 import net.sourceforge.plantuml.version.Version;
 
@@ -583,27 +583,11 @@ public class EpsGraphics {
 	}
 
 	public static String formatSimple4(double x) {
-		if (x == 0) {
-			return "0";
-		}
-		String s = String.format(Locale.US, "%1.4f", x);
-		s = s.replaceAll("(\\.\\d*?)0+$", "$1");
-		if (s.endsWith(".")) {
-			s = s.substring(0, s.length() - 1);
-		}
-		return s;
+		return FixedDecimal.format(x, 4);
 	}
 
 	private static String formatSimple2(double x) {
-		if (x == 0) {
-			return "0";
-		}
-		String s = String.format(Locale.US, "%1.2f", x);
-		s = s.replaceAll("(\\.\\d*?)0+$", "$1");
-		if (s.endsWith(".")) {
-			s = s.substring(0, s.length() - 1);
-		}
-		return s;
+		return FixedDecimal.format(x, 2);
 	}
 
 	protected void append(String s, boolean checkConsistence) {
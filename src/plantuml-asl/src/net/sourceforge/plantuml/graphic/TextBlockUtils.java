@@ -186,15 +186,15 @@ public class TextBlockUtils {
 	}
 
 	public static FontRenderContext getFontRenderContext() {
-		return FileFormat.gg.getFontRenderContext();
+		return FileFormat.getDummyGraphics().getFontRenderContext();
 	}
 
 	public static LineMetrics getLineMetrics(UFont font, String text) {
-		return font.getLineMetrics(FileFormat.gg, text);
+		return font.getLineMetrics(FileFormat.getDummyGraphics(), text);
 	}
 
 	public static FontMetrics getFontMetrics(Font font) {
-		return FileFormat.gg.getFontMetrics(font);
+		return FileFormat.getDummyGraphics().getFontMetrics(font);
 	}
 
 	public static TextBlock fullInnerPosition(final TextBlock bloc, final String display) {
@@ -212,7 +212,7 @@ public class SmetanaForJson {
 		agsafeset(edge, new CString("tailport"), new CString("P" + num), new CString(""));
 
 		StringBuilder sb = new StringBuilder();
-		sb.append("N" + a0.UID + " -> N" + a1.UID + " [tailport=\"P" + num + "\", arrowsize=.75]");
+		sb.append("N" + System.identityHashCode(a0) + " -> N" + System.identityHashCode(a1) + " [tailport=\"P" + num + "\", arrowsize=.75]");
 		if (NUM == 0 && printFirst)
 			System.err.println(sb);
 
@@ -237,7 +237,7 @@ public class SmetanaForJson {
 		}
 
 		StringBuilder sb = new StringBuilder();
-		sb.append("N" + node.UID + " [");
+		sb.append("N" + System.identityHashCode(node) + " [");
 		sb.append("shape=record, height=" + width + ", width=" + height + ", label=\"" + dotLabel.replace('x', '.')
 				+ "\"]");
 		if (NUM == 0 && printFirst)
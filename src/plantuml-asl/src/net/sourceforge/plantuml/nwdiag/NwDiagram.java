@@ -195,13 +195,14 @@ public class NwDiagram extends UmlDiagram {
 		return CommandExecutionResult.error("");
 	}
 
+	private static final Pattern ATTRIBUTE = Pattern.compile("\\s*(\\w+)\\s*=\\s*(\"([^\"]*)\"|[^\\s,]+)");
+
 	private Map<String, String> toSet(String definition) {
 		final Map<String, String> result = new HashMap<String, String>();
 		if (definition == null) {
 			return result;
 		}
-		final Pattern p = Pattern.compile("\\s*(\\w+)\\s*=\\s*(\"([^\"]*)\"|[^\\s,]+)");
-		final Matcher m = p.matcher(definition);
+		final Matcher m = ATTRIBUTE.matcher(definition);
 		while (m.find()) {
 			final String name = m.group(1);
 			final String value = m.group(3) == null ? m.group(2) : m.group(3);
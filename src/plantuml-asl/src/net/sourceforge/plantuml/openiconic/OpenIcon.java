@@ -38,6 +38,8 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.plantuml.Dimension2DDouble;
 import net.sourceforge.plantuml.graphic.AbstractTextBlock;
@@ -54,13 +56,22 @@ public class OpenIcon {
 	private List<String> rawData = new ArrayList<String>();
 	private final String id;
 
+	// Icons are parsed once: the set is bounded by the icons bundled with PlantUML
+	private static final ConcurrentMap<String, OpenIcon> icons = new ConcurrentHashMap<String, OpenIcon>();
+
 	public static OpenIcon retrieve(String name) {
+		final OpenIcon cached = icons.get(name);
+		if (cached != null) {
+			return cached;
+		}
 		final InputStream is = getResource(name);
 		if (is == null) {
 			return null;
 		}
 		try {
-			return new OpenIcon(is, name);
+			final OpenIcon result = new OpenIcon(is, name);
+			icons.putIfAbsent(name, result);
+			return result;
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
@@ -0,0 +1,107 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.picoweb;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of rendered diagrams, bounded by the total number of bytes.
+ * <p>
+ * Entries are keyed by the request path, which already is an encoding of the
+ * diagram source and the output format. Only immutable renderings are stored:
+ * errors, diagrams including files or URLs, diagrams reading the time or the
+ * environment and diagrams drawing external images are rendered on each request.
+ */
+public class PicoWebCache {
+
+	private final long maxBytes;
+	private final LinkedHashMap<String, RenderedDiagram> entries = new LinkedHashMap<String, RenderedDiagram>(16,
+			0.75f, true);
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public PicoWebCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	public synchronized RenderedDiagram get(String path) {
+		final RenderedDiagram result = entries.get(path);
+		if (result == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return result;
+	}
+
+	public synchronized void put(String path, RenderedDiagram diagram) {
+		final long size = diagram.size();
+		if (size > maxBytes) {
+			return;
+		}
+		final RenderedDiagram old = entries.put(path, diagram);
+		if (old != null) {
+			bytes -= old.size();
+		}
+		bytes += size;
+		for (Iterator<Map.Entry<String, RenderedDiagram>> it = entries.entrySet().iterator(); bytes > maxBytes
+				&& it.hasNext();) {
+			bytes -= it.next().getValue().size();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public synchronized int getEntries() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+}
@@ -0,0 +1,109 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.picoweb;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Render latency histogram and request counters of {@link PicoWebServer}, exposed in the Prometheus text format.
+ */
+public class PicoWebMetrics {
+
+	private static final double BUCKETS[] = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length);
+	private final AtomicLong renderCount = new AtomicLong();
+	private final AtomicLong renderNanos = new AtomicLong();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong notModified = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	public void renderDone(long nanos) {
+		final double seconds = nanos / 1e9;
+		for (int i = 0; i < BUCKETS.length; i++) {
+			if (seconds <= BUCKETS[i]) {
+				buckets.incrementAndGet(i);
+				break;
+			}
+		}
+		renderCount.incrementAndGet();
+		renderNanos.addAndGet(nanos);
+	}
+
+	public void request() {
+		requests.incrementAndGet();
+	}
+
+	public void notModified() {
+		notModified.incrementAndGet();
+	}
+
+	public void rejected() {
+		rejected.incrementAndGet();
+	}
+
+	public String toText(PicoWebCache cache) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("# HELP plantuml_render_seconds Time spent rendering diagrams.\n");
+		sb.append("# TYPE plantuml_render_seconds histogram\n");
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS.length; i++) {
+			cumulative += buckets.get(i);
+			sb.append("plantuml_render_seconds_bucket{le=\"" + BUCKETS[i] + "\"} " + cumulative + "\n");
+		}
+		final long count = renderCount.get();
+		sb.append("plantuml_render_seconds_bucket{le=\"+Inf\"} " + count + "\n");
+		sb.append("plantuml_render_seconds_sum " + String.format(Locale.US, "%.6f", renderNanos.get() / 1e9) + "\n");
+		sb.append("plantuml_render_seconds_count " + count + "\n");
+		counter(sb, "plantuml_http_requests_total", requests.get());
+		counter(sb, "plantuml_http_not_modified_total", notModified.get());
+		counter(sb, "plantuml_http_rejected_total", rejected.get());
+		counter(sb, "plantuml_cache_hits_total", cache.getHits());
+		counter(sb, "plantuml_cache_misses_total", cache.getMisses());
+		counter(sb, "plantuml_cache_evictions_total", cache.getEvictions());
+		gauge(sb, "plantuml_cache_bytes", cache.getBytes());
+		gauge(sb, "plantuml_cache_entries", cache.getEntries());
+		return sb.toString();
+	}
+
+	private static void counter(StringBuilder sb, String name, long value) {
+		sb.append("# TYPE " + name + " counter\n");
+		sb.append(name + " " + value + "\n");
+	}
+
+	private static void gauge(StringBuilder sb, String name, long value) {
+		sb.append("# TYPE " + name + " gauge\n");
+		sb.append(name + " " + value + "\n");
+	}
+
+}
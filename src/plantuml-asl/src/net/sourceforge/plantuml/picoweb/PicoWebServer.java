@@ -35,22 +35,41 @@ import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.sourceforge.plantuml.BlockUml;
 import net.sourceforge.plantuml.ErrorUml;
 import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.Option;
 import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.StringLocated;
 import net.sourceforge.plantuml.StringUtils;
 import net.sourceforge.plantuml.code.NoPlantumlCompressionException;
 import net.sourceforge.plantuml.code.Transcoder;
 import net.sourceforge.plantuml.code.TranscoderUtil;
+import net.sourceforge.plantuml.command.BlocLines;
+import net.sourceforge.plantuml.command.Command;
+import net.sourceforge.plantuml.command.CommandControl;
+import net.sourceforge.plantuml.command.CommandFactorySprite;
+import net.sourceforge.plantuml.command.CommandSpriteFile;
 import net.sourceforge.plantuml.core.Diagram;
 import net.sourceforge.plantuml.core.ImageData;
 import net.sourceforge.plantuml.error.PSystemError;
@@ -59,10 +78,29 @@ import net.sourceforge.plantuml.version.Version;
 
 public class PicoWebServer implements Runnable {
 
+	private static final int KEEP_ALIVE_TIMEOUT_MS = 2000;
+	private static final int KEEP_ALIVE_MAX_REQUESTS = 100;
+	// Idle keep-alive connections hold a thread, so connections have their own pool and renderings are limited
+	private static final int MAX_CONNECTIONS = 64;
+	private static final long CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+	private static final PicoWebCache cache = new PicoWebCache(CACHE_MAX_BYTES);
+	private static final PicoWebMetrics metrics = new PicoWebMetrics();
+
+	private static final Command<?> SPRITE_FILE = new CommandSpriteFile();
+	private static final Command<?> SPRITE_DATA = new CommandFactorySprite().createSingleLine();
+	private static final Command<?> SPRITE_BLOCK = new CommandFactorySprite().createMultiLine(false);
+
 	private final Socket connect;
+	private final Semaphore renderings;
 
 	public PicoWebServer(Socket c) {
+		this(c, null);
+	}
+
+	private PicoWebServer(Socket c, Semaphore renderings) {
 		this.connect = c;
+		this.renderings = renderings;
 	}
 
 	public static void main(String[] args) throws IOException {
@@ -70,11 +108,51 @@ public class PicoWebServer implements Runnable {
 	}
 
 	public static void startServer(final int port) throws IOException {
+		startServer(port, Option.defaultNbThreads());
+	}
+
+	public static void startServer(final int port, final int nbThreads) throws IOException {
+		final Semaphore renderings = new Semaphore(Math.max(1, nbThreads));
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONNECTIONS, MAX_CONNECTIONS, 60L,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_CONNECTIONS), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						final Thread result = new Thread(r, "PicoWebServer-" + count.incrementAndGet());
+						result.setDaemon(true);
+						return result;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
 		final ServerSocket serverConnect = new ServerSocket(port);
 		while (true) {
-			final PicoWebServer myServer = new PicoWebServer(serverConnect.accept());
-			final Thread thread = new Thread(myServer);
-			thread.start();
+			final Socket socket = serverConnect.accept();
+			try {
+				executor.execute(new PicoWebServer(socket, renderings));
+			} catch (RejectedExecutionException e) {
+				metrics.rejected();
+				sendUnavailable(socket);
+			}
+		}
+	}
+
+	private static void sendUnavailable(Socket socket) {
+		try {
+			final OutputStream out = socket.getOutputStream();
+			write(out, "HTTP/1.1 503 Service Unavailable");
+			write(out, "Retry-After: 1");
+			write(out, "Content-length: 0");
+			write(out, "Connection: close");
+			write(out, "");
+			out.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
 	}
 
@@ -83,35 +161,26 @@ public class PicoWebServer implements Runnable {
 		BufferedOutputStream out = null;
 
 		try {
+			connect.setSoTimeout(KEEP_ALIVE_TIMEOUT_MS);
 			in = new BufferedReader(new InputStreamReader(connect.getInputStream(), "UTF-8"));
 			out = new BufferedOutputStream(connect.getOutputStream());
-
-			final String first = in.readLine();
-			if (first == null) {
-				return;
-			}
-
-			final StringTokenizer parse = new StringTokenizer(first);
-			final String method = parse.nextToken().toUpperCase();
-
-			if (method.equals("GET")) {
-				final String path = parse.nextToken();
-				if (path.startsWith("/plantuml/png/") && sendDiagram(out, path, "image/png", FileFormat.PNG))
-					return;
-				if (path.startsWith("/plantuml/svg/") && sendDiagram(out, path, "image/svg+xml", FileFormat.SVG))
+			for (int i = 1; i <= KEEP_ALIVE_MAX_REQUESTS; i++) {
+				if (serveRequest(in, out, i < KEEP_ALIVE_MAX_REQUESTS) == false) {
 					return;
+				}
 			}
-			write(out, "HTTP/1.1 302 Found");
-			write(out, "Location: /plantuml/png/oqbDJyrBuGh8ISmh2VNrKGZ8JCuFJqqAJYqgIotY0aefG5G00000");
-			write(out, "");
-			out.flush();
-
+		} catch (SocketTimeoutException e) {
+			// Idle keep-alive connection: just close it
 		} catch (Throwable e) {
 			e.printStackTrace();
 		} finally {
 			try {
-				in.close();
-				out.close();
+				if (in != null) {
+					in.close();
+				}
+				if (out != null) {
+					out.close();
+				}
 				connect.close();
 			} catch (Throwable e) {
 				e.printStackTrace();
@@ -119,8 +188,154 @@ public class PicoWebServer implements Runnable {
 		}
 	}
 
-	private boolean sendDiagram(BufferedOutputStream out, String path, final String mime, final FileFormat format)
+	/**
+	 * Serves a single request of the connection.
+	 * 
+	 * @return true if the connection should be kept open for another request
+	 */
+	private boolean serveRequest(BufferedReader in, BufferedOutputStream out, boolean mayKeepAlive)
+			throws IOException, NoPlantumlCompressionException {
+		final String first = in.readLine();
+		if (first == null || first.length() == 0) {
+			return false;
+		}
+		final Map<String, String> headers = readHeaders(in);
+		metrics.request();
+
+		final StringTokenizer parse = new StringTokenizer(first);
+		final String method = parse.nextToken().toUpperCase();
+		final String path = parse.hasMoreTokens() ? parse.nextToken() : "/";
+		final String protocol = parse.hasMoreTokens() ? parse.nextToken() : "HTTP/1.0";
+		final boolean keepAlive = mayKeepAlive && method.equals("GET") && isKeepAlive(protocol, headers);
+		final String connection = "Connection: " + (keepAlive ? "keep-alive" : "close");
+
+		if (method.equals("GET")) {
+			if (path.equals("/metrics")) {
+				sendMetrics(out, connection);
+				return keepAlive;
+			}
+			if (path.startsWith("/plantuml/png/")
+					&& sendDiagram(out, path, "image/png", FileFormat.PNG, headers, connection))
+				return keepAlive;
+			if (path.startsWith("/plantuml/svg/")
+					&& sendDiagram(out, path, "image/svg+xml", FileFormat.SVG, headers, connection))
+				return keepAlive;
+		}
+		write(out, "HTTP/1.1 302 Found");
+		write(out, "Location: /plantuml/png/oqbDJyrBuGh8ISmh2VNrKGZ8JCuFJqqAJYqgIotY0aefG5G00000");
+		write(out, "Content-length: 0");
+		write(out, connection);
+		write(out, "");
+		out.flush();
+		return keepAlive;
+	}
+
+	private static Map<String, String> readHeaders(BufferedReader in) throws IOException {
+		final Map<String, String> result = new HashMap<String, String>();
+		String line;
+		while ((line = in.readLine()) != null && line.length() > 0) {
+			final int x = line.indexOf(':');
+			if (x > 0) {
+				result.put(StringUtils.goLowerCase(line.substring(0, x).trim()), line.substring(x + 1).trim());
+			}
+		}
+		return result;
+	}
+
+	private static boolean isKeepAlive(String protocol, Map<String, String> headers) {
+		final String connection = headers.get("connection");
+		if (protocol.equalsIgnoreCase("HTTP/1.0")) {
+			return connection != null && connection.equalsIgnoreCase("keep-alive");
+		}
+		return connection == null || connection.equalsIgnoreCase("close") == false;
+	}
+
+	private void sendMetrics(BufferedOutputStream out, String connection) throws IOException {
+		final byte[] data = metrics.toText(cache).getBytes("UTF-8");
+		write(out, "HTTP/1.1 200 OK");
+		write(out, "Cache-Control: no-cache");
+		write(out, "Server: PlantUML PicoWebServer " + Version.versionString());
+		write(out, "Date: " + new Date());
+		write(out, "Content-type: text/plain; version=0.0.4; charset=utf-8");
+		write(out, "Content-length: " + data.length);
+		write(out, connection);
+		write(out, "");
+		out.write(data);
+		out.flush();
+	}
+
+	private boolean sendDiagram(BufferedOutputStream out, String path, final String mime, final FileFormat format,
+			Map<String, String> headers, String connection) throws NoPlantumlCompressionException, IOException {
+		RenderedDiagram diagram = cache.get(path);
+		if (diagram == null) {
+			diagram = renderWithPermit(path, mime, format);
+			if (diagram == null) {
+				return false;
+			}
+			if (diagram.isImmutable()) {
+				cache.put(path, diagram);
+			}
+		}
+		final boolean notModified = diagram.getEtag().equals(headers.get("if-none-match"));
+		if (notModified) {
+			metrics.notModified();
+			write(out, "HTTP/1.1 304 Not Modified");
+		} else {
+			write(out, "HTTP/1.1 " + httpReturnCode(diagram.getStatus()));
+		}
+		if (diagram.isImmutable()) {
+			write(out, "Cache-Control: public, max-age=31536000, immutable");
+		} else {
+			write(out, "Cache-Control: no-cache");
+		}
+		write(out, "ETag: " + diagram.getEtag());
+		write(out, "Server: PlantUML PicoWebServer " + Version.versionString());
+		write(out, "Date: " + new Date());
+		if (notModified) {
+			write(out, connection);
+			write(out, "");
+			out.flush();
+			return true;
+		}
+		write(out, "Content-type: " + diagram.getMime());
+		write(out, "Content-length: " + diagram.getData().length);
+		write(out, "X-PlantUML-Diagram-Width: " + diagram.getWidth());
+		write(out, "X-PlantUML-Diagram-Height: " + diagram.getHeight());
+		write(out, "X-PlantUML-Diagram-Description: " + diagram.getDescription());
+		for (String s : diagram.getErrorHeaders()) {
+			write(out, s);
+		}
+		write(out, "X-Patreon: Support us on https://plantuml.com/patreon");
+		write(out, "X-Donate: https://plantuml.com/paypal");
+		write(out, "X-Quote: " + StringUtils.rot(QuoteUtils.getSomeQuote()));
+		write(out, connection);
+		write(out, "");
+		out.write(diagram.getData());
+		out.flush();
+		return true;
+	}
+
+	private RenderedDiagram renderWithPermit(String path, final String mime, final FileFormat format)
 			throws NoPlantumlCompressionException, IOException {
+		if (renderings == null) {
+			return render(path, mime, format);
+		}
+		try {
+			renderings.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		try {
+			return render(path, mime, format);
+		} finally {
+			renderings.release();
+		}
+	}
+
+	private RenderedDiagram render(String path, final String mime, final FileFormat format)
+			throws NoPlantumlCompressionException, IOException {
+		final long start = System.nanoTime();
 		final int x = path.lastIndexOf('/');
 		final String compressed = path.substring(x + 1);
 		final Transcoder transcoder = TranscoderUtil.getDefaultTranscoderProtected();
@@ -129,37 +344,45 @@ public class PicoWebServer implements Runnable {
 
 		final List<BlockUml> blocks = ssr.getBlocks();
 		if (blocks.size() > 0) {
-			final Diagram system = blocks.get(0).getDiagram();
+			final BlockUml block = blocks.get(0);
+			final Diagram system = block.getDiagram();
 			final ByteArrayOutputStream os = new ByteArrayOutputStream();
 			final ImageData imageData = system.exportDiagram(os, 0, new FileFormatOption(format));
 			os.close();
-			final byte[] fileData = os.toByteArray();
-			write(out, "HTTP/1.1 " + httpReturnCode(imageData.getStatus()));
-			write(out, "Cache-Control: no-cache");
-			write(out, "Server: PlantUML PicoWebServer " + Version.versionString());
-			write(out, "Date: " + new Date());
-			write(out, "Content-type: " + mime);
-			write(out, "Content-length: " + fileData.length);
-			write(out, "X-PlantUML-Diagram-Width: " + imageData.getWidth());
-			write(out, "X-PlantUML-Diagram-Height: " + imageData.getHeight());
-			write(out, "X-PlantUML-Diagram-Description: " + system.getDescription().getDescription());
+			final List<String> errorHeaders = new ArrayList<String>();
 			if (system instanceof PSystemError) {
 				final PSystemError error = (PSystemError) system;
 				for (ErrorUml err : error.getErrorsUml()) {
-					write(out, "X-PlantUML-Diagram-Error: " + err.getError());
-					write(out, "X-PlantUML-Diagram-Error-Line: " + (1 + err.getLineLocation().getPosition()));
+					errorHeaders.add("X-PlantUML-Diagram-Error: " + err.getError());
+					errorHeaders.add("X-PlantUML-Diagram-Error-Line: " + (1 + err.getLineLocation().getPosition()));
 				}
 			}
-			write(out, "X-Patreon: Support us on https://plantuml.com/patreon");
-			write(out, "X-Donate: https://plantuml.com/paypal");
-			write(out, "X-Quote: " + StringUtils.rot(QuoteUtils.getSomeQuote()));
-			write(out, "");
-			out.flush();
-			out.write(fileData);
-			out.flush();
-			return true;
+			final boolean immutable = system instanceof PSystemError == false && isImmutable(block);
+			final RenderedDiagram result = new RenderedDiagram(os.toByteArray(), mime, imageData.getStatus(),
+					imageData.getWidth(), imageData.getHeight(), system.getDescription().getDescription(),
+					errorHeaders, immutable);
+			metrics.renderDone(System.nanoTime() - start);
+			return result;
+		}
+		return null;
+	}
+
+	private static boolean isImmutable(BlockUml block) {
+		if (block.getIncluded().isEmpty() == false || block.isUrlIncluded() || block.isTimeOrEnvironmentRead()) {
+			return false;
+		}
+		for (StringLocated s : block.getData()) {
+			// Images and sprites read from files or URLs may change
+			if (StringUtils.goLowerCase(s.getString()).replace("<img:data:", "").contains("<img")) {
+				return false;
+			}
+			final BlocLines single = BlocLines.single(s);
+			if (SPRITE_FILE.isValid(single) == CommandControl.OK && SPRITE_DATA.isValid(single) != CommandControl.OK
+					&& SPRITE_BLOCK.isValid(single) == CommandControl.NOT_OK) {
+				return false;
+			}
 		}
-		return false;
+		return true;
 	}
 
 	private String httpReturnCode(int status) {
@@ -169,7 +392,7 @@ public class PicoWebServer implements Runnable {
 		return "" + status + " ERROR";
 	}
 
-	private void write(OutputStream os, String s) throws IOException {
+	private static void write(OutputStream os, String s) throws IOException {
 		s = s + "\r\n";
 		os.write(s.getBytes("UTF-8"));
 	}
@@ -0,0 +1,128 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.picoweb;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+
+import net.sourceforge.plantuml.SignatureUtils;
+
+/**
+ * The immutable result of rendering one diagram, as served by {@link PicoWebServer}.
+ */
+public class RenderedDiagram {
+
+	private final byte[] data;
+	private final String mime;
+	private final int status;
+	private final int width;
+	private final int height;
+	private final String description;
+	private final List<String> errorHeaders;
+	private final String etag;
+	private final boolean immutable;
+
+	/**
+	 * @param immutable
+	 *            true when the same request will always render the same data: the diagram has no error, does not
+	 *            depend on any included file or URL, on the time or the environment, nor on any external image
+	 */
+	public RenderedDiagram(byte[] data, String mime, int status, int width, int height, String description,
+			List<String> errorHeaders, boolean immutable) {
+		this.data = data;
+		this.mime = mime;
+		this.status = status;
+		this.width = width;
+		this.height = height;
+		this.description = description;
+		this.errorHeaders = Collections.unmodifiableList(errorHeaders);
+		this.etag = "\"" + getMD5Hex(data) + "\"";
+		this.immutable = immutable;
+	}
+
+	private static String getMD5Hex(byte[] data) {
+		try {
+			return SignatureUtils.toHexString(MessageDigest.getInstance("MD5").digest(data));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Approximate number of bytes retained by this rendered diagram.
+	 */
+	public long size() {
+		long result = 256 + data.length + 2 * description.length();
+		for (String s : errorHeaders) {
+			result += 2 * s.length();
+		}
+		return result;
+	}
+
+	public final byte[] getData() {
+		return data;
+	}
+
+	public final String getMime() {
+		return mime;
+	}
+
+	public final int getStatus() {
+		return status;
+	}
+
+	public final int getWidth() {
+		return width;
+	}
+
+	public final int getHeight() {
+		return height;
+	}
+
+	public final String getDescription() {
+		return description;
+	}
+
+	public final List<String> getErrorHeaders() {
+		return errorHeaders;
+	}
+
+	public final String getEtag() {
+		return etag;
+	}
+
+	public final boolean isImmutable() {
+		return immutable;
+	}
+
+}
@@ -229,10 +229,10 @@ public class Defines implements Truth {
 		return line;
 	}
 
+	private static final Pattern WORD = Pattern.compile("[A-Za-z_][A-Za-z_0-9]*");
+
 	private Set<String> words(String line) {
-		final String ID = "[A-Za-z_][A-Za-z_0-9]*";
-		Pattern p = Pattern.compile(ID);
-		Matcher m = p.matcher(line);
+		Matcher m = WORD.matcher(line);
 		final Set<String> words = new HashSet<String>();
 		while (m.find()) {
 			words.add(m.group(0));
@@ -107,6 +107,13 @@ public class FileWithSuffix {
 		return null;
 	}
 
+	SFile getRegularFile() {
+		if (file instanceof AFileRegular && entry == null) {
+			return file.getUnderlyingFile();
+		}
+		return null;
+	}
+
 	public boolean fileOk() {
 		return file != null && file.isOk();
 	}
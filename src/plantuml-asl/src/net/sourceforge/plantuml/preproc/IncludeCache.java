@@ -0,0 +1,183 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.preproc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.plantuml.AFileRegular;
+import net.sourceforge.plantuml.LineLocation;
+import net.sourceforge.plantuml.LineLocationImpl;
+import net.sourceforge.plantuml.StringLocated;
+import net.sourceforge.plantuml.security.SFile;
+import net.sourceforge.plantuml.utils.StartUtils;
+
+/**
+ * Process-wide cache of the lines of included files, so that a skin or macro file included by many diagrams is read
+ * from disk only once. Entries are keyed by canonical path and charset, and are only reused while the modification
+ * time and size of the file are unchanged. Nested includes are separate entries checked on their own.
+ */
+public class IncludeCache {
+
+	private static final long MAX_BYTES = 16L * 1024 * 1024;
+
+	private static final Map<String, Content> cache = new LinkedHashMap<String, Content>(16, 0.75f, true);
+	private static long totalBytes;
+	private static long hitCount;
+	private static long bytesSaved;
+
+	private IncludeCache() {
+	}
+
+	/**
+	 * Returns the content of a regular file, or <code>null</code> when the file cannot be cached or read.
+	 */
+	public static Content getContent(FileWithSuffix f2, String charset) throws IOException {
+		final SFile file = f2.getRegularFile();
+		if (file == null) {
+			return null;
+		}
+		final String key = file.getCanonicalFile().getPath() + "\0" + charset;
+		final long lastModified = file.lastModified();
+		final long length = file.length();
+		synchronized (cache) {
+			final Content cached = cache.get(key);
+			if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+				hitCount++;
+				bytesSaved += length;
+				return cached;
+			}
+		}
+		final Reader reader = f2.getReader(charset);
+		if (reader == null) {
+			return null;
+		}
+		final List<String> lines = new ArrayList<String>();
+		final ReadLine source = ReadLineReader.create(reader, f2.getDescription());
+		try {
+			StringLocated s = null;
+			while ((s = source.readLine()) != null) {
+				lines.add(s.getString());
+			}
+		} finally {
+			source.close();
+		}
+		final Content content = new Content(lines, lastModified, length);
+		synchronized (cache) {
+			final Content previous = cache.put(key, content);
+			if (previous != null) {
+				totalBytes -= previous.bytes;
+			}
+			totalBytes += content.bytes;
+			final Iterator<Content> it = cache.values().iterator();
+			while (totalBytes > MAX_BYTES && it.hasNext()) {
+				totalBytes -= it.next().bytes;
+				it.remove();
+			}
+		}
+		return content;
+	}
+
+	public static long getHitCount() {
+		synchronized (cache) {
+			return hitCount;
+		}
+	}
+
+	public static long getBytesSaved() {
+		synchronized (cache) {
+			return bytesSaved;
+		}
+	}
+
+	public static class Content {
+
+		private final List<String> lines;
+		private final long lastModified;
+		private final long length;
+		private final long bytes;
+		private final boolean containsStartDiagram;
+
+		private Content(List<String> lines, long lastModified, long length) throws IOException {
+			this.lines = lines;
+			this.lastModified = lastModified;
+			this.length = length;
+			long chars = 0;
+			for (String line : lines) {
+				chars += line.length();
+			}
+			this.bytes = 2 * chars;
+			this.containsStartDiagram = containsStartDiagram(new UncommentReadLine(getReadLine("?", null)));
+		}
+
+		private static boolean containsStartDiagram(ReadLine r) throws IOException {
+			StringLocated s = null;
+			while ((s = r.readLine()) != null) {
+				if (StartUtils.isArobaseStartDiagram(s.getString())) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public boolean containsStartDiagram() {
+			return containsStartDiagram;
+		}
+
+		/**
+		 * Replays the lines with the same locations as {@link ReadLineReader} would give them.
+		 */
+		public ReadLine getReadLine(final String description, final LineLocation parent) {
+			return new ReadLine() {
+				private final Iterator<String> iterator = lines.iterator();
+				private LineLocationImpl location = new LineLocationImpl(description == null ? "?" : description,
+						parent);
+
+				public StringLocated readLine() {
+					location = location.oneLineRead();
+					if (iterator.hasNext() == false) {
+						return null;
+					}
+					return new StringLocated(iterator.next(), location);
+				}
+
+				public void close() {
+				}
+			};
+		}
+	}
+
+}
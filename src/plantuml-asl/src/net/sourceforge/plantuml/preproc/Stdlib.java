@@ -37,11 +37,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
-import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -57,10 +58,19 @@ import net.sourceforge.plantuml.security.SFile;
 public class Stdlib {
 
 	private static final Map<String, Stdlib> all = new ConcurrentHashMap<String, Stdlib>();
-	private static final String SEPARATOR = "\uF8FF";
+	static final String SEPARATOR = "\uF8FF";
 	private static final Pattern sizePattern = Pattern.compile("\\[(\\d+)x(\\d+)/16\\]");
 
-	private final Map<String, SoftReference<String>> cache = new ConcurrentHashMap<String, SoftReference<String>>();
+	private static final long CACHE_MAX_CHARS = 8 * 1024 * 1024;
+	private static final LinkedHashMap<String, String> cache = new LinkedHashMap<String, String>(16, 0.75f, true);
+	private static long cacheChars;
+
+	// Decompressed libraries, least recently used dropped first
+	private static final long ARCHIVES_MAX_BYTES = 16 * 1024 * 1024;
+	private static final LinkedHashMap<String, StdlibArchive> archives = new LinkedHashMap<String, StdlibArchive>(16,
+			0.75f, true);
+	private static long archivesBytes;
+
 	private final String name;
 	private final Map<String, String> info = new HashMap<String, String>();
 
@@ -102,15 +112,86 @@ public class Stdlib {
 	}
 
 	private String loadRessource(String file) throws IOException {
-		final SoftReference<String> cached = cache.get(file.toLowerCase());
+		final String key = name + "/" + file.toLowerCase();
+		final String cached = getCached(key);
 		if (cached != null) {
-			final String cachedResult = cached.get();
-			if (cachedResult != null) {
-				// Log.info("Using cache for " + file);
-				return cachedResult;
-			}
+			return cached;
 		}
 		Log.info("No cache for " + file);
+		final StdlibArchive archive = getArchive();
+		final String result = archive == null ? loadRessourceSequential(file) : archive.load(file);
+		if (result != null) {
+			putCached(key, result);
+		}
+		return result;
+	}
+
+	private static String getCached(String key) {
+		synchronized (cache) {
+			return cache.get(key);
+		}
+	}
+
+	private static void putCached(String key, String value) {
+		synchronized (cache) {
+			final String old = cache.put(key, value);
+			if (old != null) {
+				cacheChars -= old.length();
+			}
+			cacheChars += value.length();
+			for (Iterator<String> it = cache.values().iterator(); cacheChars > CACHE_MAX_CHARS && it.hasNext();) {
+				cacheChars -= it.next().length();
+				it.remove();
+			}
+		}
+	}
+
+	private synchronized StdlibArchive getArchive() {
+		if (archiveFailed) {
+			return null;
+		}
+		synchronized (archives) {
+			final StdlibArchive archive = archives.get(name);
+			if (archive != null) {
+				return archive;
+			}
+		}
+		try {
+			final DataInputStream dataStream = getDataStream();
+			final InputStream spriteStream = getSpriteStream();
+			if (dataStream == null || spriteStream == null) {
+				archiveFailed = true;
+				return null;
+			}
+			final StdlibArchive archive = StdlibArchive.create(name, dataStream, spriteStream);
+			putArchive(name, archive);
+			return archive;
+		} catch (IOException e) {
+			Log.info("Cannot index stdlib " + name + ", scanning instead: " + e);
+			archiveFailed = true;
+			return null;
+		}
+	}
+
+	private static void putArchive(String name, StdlibArchive archive) {
+		if (archive.getSize() > ARCHIVES_MAX_BYTES) {
+			return;
+		}
+		synchronized (archives) {
+			final StdlibArchive old = archives.put(name, archive);
+			if (old != null) {
+				archivesBytes -= old.getSize();
+			}
+			archivesBytes += archive.getSize();
+			for (Iterator<StdlibArchive> it = archives.values().iterator(); archivesBytes > ARCHIVES_MAX_BYTES
+					&& it.hasNext();) {
+				archivesBytes -= it.next().getSize();
+				it.remove();
+			}
+		}
+	}
+
+	private String loadRessourceSequential(String file) throws IOException {
 		final DataInputStream dataStream = getDataStream();
 		if (dataStream == null) {
 			return null;
@@ -136,9 +217,7 @@ public class Stdlib {
 					final String s = dataStream.readUTF();
 					if (s.equals(SEPARATOR)) {
 						if (found != null) {
-							final String result = found.toString();
-							cache.put(file.toLowerCase(), new SoftReference<String>(result));
-							return result;
+							return found.toString();
 						}
 						break;
 					}
@@ -147,13 +226,9 @@ public class Stdlib {
 						found.append("\n");
 					}
 					if (isSpriteLine(s)) {
-						final Matcher m = sizePattern.matcher(s);
-						final boolean ok = m.find();
-						if (ok == false) {
-							throw new IOException(s);
-						}
-						final int width = Integer.parseInt(m.group(1));
-						final int height = Integer.parseInt(m.group(2));
+						final int size[] = getSpriteSize(s);
+						final int width = size[0];
+						final int height = size[1];
 						if (found == null) {
 							skipSprite(width, height, spriteStream);
 						} else {
@@ -171,17 +246,31 @@ public class Stdlib {
 
 	}
 
+	private boolean archiveFailed;
+
 	private Stdlib(String name, String info) throws IOException {
 		this.name = name;
 		fillMap(info);
 	}
 
 	private void skipSprite(int width, int height, InputStream inputStream) throws IOException {
+		inputStream.skip(getSpriteBytes(width, height));
+	}
+
+	static int getSpriteBytes(int width, int height) {
 		final int nbLines = (height + 1) / 2;
-		inputStream.skip(nbLines * width);
+		return nbLines * width;
 	}
 
-	private String readSprite(int width, int height, InputStream inputStream) throws IOException {
+	static int[] getSpriteSize(String spriteLine) throws IOException {
+		final Matcher m = sizePattern.matcher(spriteLine);
+		if (m.find() == false) {
+			throw new IOException(spriteLine);
+		}
+		return new int[] { Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)) };
+	}
+
+	static String readSprite(int width, int height, InputStream inputStream) throws IOException {
 		final int nbLines = (height + 1) / 2;
 		final StringBuilder result = new StringBuilder();
 		int line = 0;
@@ -207,11 +296,11 @@ public class Stdlib {
 		return result.toString();
 	}
 
-	private String toHexString(final int b) {
+	private static String toHexString(final int b) {
 		return Integer.toHexString(b).toUpperCase();
 	}
 
-	private boolean isSpriteLine(String s) {
+	static boolean isSpriteLine(String s) {
 		return s.trim().startsWith("sprite") && s.trim().endsWith("{");
 	}
 
@@ -290,13 +379,9 @@ public class Stdlib {
 					}
 					fos.println(s);
 					if (isSpriteLine(s)) {
-						final Matcher m = sizePattern.matcher(s);
-						final boolean ok = m.find();
-						if (ok == false) {
-							throw new IOException(s);
-						}
-						final int width = Integer.parseInt(m.group(1));
-						final int height = Integer.parseInt(m.group(2));
+						final int size[] = getSpriteSize(s);
+						final int width = size[0];
+						final int height = size[1];
 						final String sprite = readSprite(width, height, spriteStream);
 						fos.println(sprite);
 						fos.println("}");
@@ -330,13 +415,9 @@ public class Stdlib {
 						break;
 					}
 					if (isSpriteLine(s)) {
-						final Matcher m = sizePattern.matcher(s);
-						final boolean ok = m.find();
-						if (ok == false) {
-							throw new IOException(s);
-						}
-						final int width = Integer.parseInt(m.group(1));
-						final int height = Integer.parseInt(m.group(2));
+						final int size[] = getSpriteSize(s);
+						final int width = size[0];
+						final int height = size[1];
 						final String sprite = readSprite(width, height, spriteStream);
 						if (s.contains("_LARGE") == false) {
 							result.add(s + "\n" + sprite + "}");
@@ -0,0 +1,181 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.preproc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sourceforge.plantuml.Log;
+
+/**
+ * Random access to the files of one stdlib library.
+ * <p>
+ * The brotli data and sprite streams of the library cannot be seeked, so they are decompressed once into
+ * memory. A table of contents built from them gives the position of each file in both streams, so a lookup
+ * decodes only the requested file. When a file name appears twice, the first one is used, as the former
+ * sequential scan did.
+ * <p>
+ * Archives are kept by {@link Stdlib} only while they fit in a shared memory budget, and are decompressed again
+ * when needed after being dropped.
+ */
+class StdlibArchive {
+
+	private final ByteBuffer data;
+	private final ByteBuffer sprites;
+	private final Map<String, int[]> toc = new HashMap<String, int[]>();
+
+	private StdlibArchive(ByteBuffer data, ByteBuffer sprites) throws IOException {
+		this.data = data;
+		this.sprites = sprites;
+		buildToc();
+	}
+
+	int getSize() {
+		return data.capacity() + sprites.capacity();
+	}
+
+	static StdlibArchive create(String name, InputStream dataStream, InputStream spriteStream) throws IOException {
+		final byte data[] = readFully(dataStream);
+		final byte sprites[] = readFully(spriteStream);
+		Log.info("Indexed stdlib " + name + " (" + (data.length + sprites.length) + " bytes)");
+		return new StdlibArchive(ByteBuffer.wrap(data), ByteBuffer.wrap(sprites));
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final byte buffer[] = new byte[65536];
+		try {
+			int len;
+			while ((len = is.read(buffer)) > 0) {
+				baos.write(buffer, 0, len);
+			}
+		} finally {
+			is.close();
+		}
+		return baos.toByteArray();
+	}
+
+	private void buildToc() throws IOException {
+		final ByteBuffer dataBuffer = data.duplicate();
+		final DataInputStream dataStream = new DataInputStream(new ByteBufferInputStream(dataBuffer));
+		dataStream.readUTF();
+		int spritePosition = 0;
+		while (true) {
+			final String filename = dataStream.readUTF();
+			if (filename.equals(Stdlib.SEPARATOR)) {
+				return;
+			}
+			toc.putIfAbsent(filename.toLowerCase(), new int[] { dataBuffer.position(), spritePosition });
+			while (true) {
+				final String s = dataStream.readUTF();
+				if (s.equals(Stdlib.SEPARATOR)) {
+					break;
+				}
+				if (Stdlib.isSpriteLine(s)) {
+					final int size[] = Stdlib.getSpriteSize(s);
+					spritePosition += Stdlib.getSpriteBytes(size[0], size[1]);
+				}
+			}
+		}
+	}
+
+	String load(String file) throws IOException {
+		final int position[] = toc.get(file.toLowerCase());
+		if (position == null) {
+			return null;
+		}
+		final ByteBuffer dataBuffer = data.duplicate();
+		dataBuffer.position(position[0]);
+		final ByteBuffer spriteBuffer = sprites.duplicate();
+		spriteBuffer.position(position[1]);
+		final DataInputStream dataStream = new DataInputStream(new ByteBufferInputStream(dataBuffer));
+		final InputStream spriteStream = new ByteBufferInputStream(spriteBuffer);
+		final StringBuilder found = new StringBuilder();
+		while (true) {
+			final String s = dataStream.readUTF();
+			if (s.equals(Stdlib.SEPARATOR)) {
+				return found.toString();
+			}
+			found.append(s);
+			found.append("\n");
+			if (Stdlib.isSpriteLine(s)) {
+				final int size[] = Stdlib.getSpriteSize(s);
+				found.append(Stdlib.readSprite(size[0], size[1], spriteStream));
+				found.append("}\n");
+			}
+		}
+	}
+
+	static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (buffer.hasRemaining() == false) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte b[], int off, int len) {
+			if (buffer.hasRemaining() == false) {
+				return -1;
+			}
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			final int skipped = (int) Math.min(n, buffer.remaining());
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+}
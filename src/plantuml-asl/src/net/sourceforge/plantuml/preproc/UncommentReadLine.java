@@ -70,7 +70,7 @@ public class UncommentReadLine implements ReadLine {
 		if (headerToRemove != null && headerToRemove.startsWith(result.getString())) {
 			return new StringLocated("", result.getLocation());
 		}
-		if (headerToRemove != null && result.getString().startsWith(headerToRemove)) {
+		if (headerToRemove != null && headerToRemove.length() > 0 && result.getString().startsWith(headerToRemove)) {
 			return result.substring(headerToRemove.length(), result.getString().length());
 		}
 		return result;
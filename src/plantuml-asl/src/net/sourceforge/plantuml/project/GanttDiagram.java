@@ -570,9 +570,10 @@ public class GanttDiagram extends TitledDiagram implements ToTaskDraw, WithSprit
 		return openClose.getLoadAt(day) > 0;
 	}
 
+	private static final Pattern RESOURCE = Pattern.compile("([^:]+)(:(\\d+))?");
+
 	public void affectResource(Task result, String description) {
-		final Pattern p = Pattern.compile("([^:]+)(:(\\d+))?");
-		final Matcher m = p.matcher(description);
+		final Matcher m = RESOURCE.matcher(description);
 		if (m.find() == false) {
 			throw new IllegalArgumentException();
 		}
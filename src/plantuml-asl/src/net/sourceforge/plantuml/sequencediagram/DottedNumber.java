@@ -46,9 +46,10 @@ public class DottedNumber {
 		this.separators = separators;
 	}
 
+	private static final Pattern NUM_OR_SEPARATOR = Pattern.compile("(\\d+)|(\\D+)");
+
 	public static DottedNumber create(String value) {
-		final Pattern p = Pattern.compile("(\\d+)|(\\D+)");
-		final Matcher m = p.matcher(value);
+		final Matcher m = NUM_OR_SEPARATOR.matcher(value);
 		final List<Integer> nums = new ArrayList<Integer>();
 		final List<String> separators = new ArrayList<String>();
 		while (m.find()) {
@@ -64,6 +64,8 @@ public class CommandGrouping extends SingleLineCommand2<SequenceDiagram> {
 						)), RegexLeaf.end());
 	}
 
+	private static final Pattern GROUP_TYPE = Pattern.compile("^(.*?)\\[(.*)\\]$");
+
 	@Override
 	protected CommandExecutionResult executeArg(SequenceDiagram diagram, LineLocation location, RegexResult arg) {
 		String type = StringUtils.goLowerCase(arg.get("TYPE", 0));
@@ -77,8 +79,7 @@ public class CommandGrouping extends SingleLineCommand2<SequenceDiagram> {
 			if (StringUtils.isEmpty(comment)) {
 				comment = "group";
 			} else {
-				final Pattern p = Pattern.compile("^(.*?)\\[(.*)\\]$");
-				final Matcher m = p.matcher(comment);
+				final Matcher m = GROUP_TYPE.matcher(comment);
 				if (m.find()) {
 					type = m.group(1);
 					comment = m.group(2);
@@ -31,7 +31,7 @@
 package net.sourceforge.plantuml.sequencediagram.teoz;
 
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -49,9 +49,50 @@ public class EventsHistory {
 	private final List<Event> events;
 	private final Map<Event, Double> ys3 = new HashMap<Event, Double>();
 
+	// Position of the first occurrence of each event
+	private final Map<Event, Integer> positions;
+	// Activation level of the participant once the event at each position is done
+	private final int[] levels;
+	// Position of the next event that is not a note, or -1
+	private final int[] nexts;
+	private final int maxValue;
+
 	public EventsHistory(Participant p, List<Event> events) {
 		this.p = p;
 		this.events = events;
+		final int size = events.size();
+		this.positions = new IdentityHashMap<Event, Integer>(size);
+		this.levels = new int[size];
+		this.nexts = new int[size];
+		int level = 0;
+		int max = 0;
+		for (int i = 0; i < size; i++) {
+			final Event current = events.get(i);
+			if (positions.containsKey(current) == false) {
+				positions.put(current, i);
+			}
+			if (current instanceof LifeEvent) {
+				final LifeEvent le = (LifeEvent) current;
+				if (le.getParticipant() == p && le.isActivate()) {
+					level++;
+				}
+				if (level > max) {
+					max = level;
+				}
+				if (le.getParticipant() == p && le.isDeactivateOrDestroy()) {
+					level--;
+				}
+			}
+			levels[i] = level;
+		}
+		int next = -1;
+		for (int i = size - 1; i >= 0; i--) {
+			nexts[i] = next;
+			if (events.get(i) instanceof Note == false) {
+				next = i;
+			}
+		}
+		this.maxValue = max;
 	}
 
 	public void addStepForLivebox(Event event, double y) {
@@ -63,68 +104,40 @@ public class EventsHistory {
 	}
 
 	public int getLevelAt(Event event, EventsHistoryMode mode) {
-		final int result = getLevelAtInternal(event, mode);
-		// System.err.println("EventsHistory::getLevelAt " + mode + " " + result + " " + event);
-		return result;
-	}
-
-	private int getLevelAtInternal(Event event, EventsHistoryMode mode) {
-		int level = 0; // p.getInitialLife();
-		// System.err.println("--->EventsHistory for " + p + " " + event);
-		for (Iterator<Event> it = events.iterator(); it.hasNext();) {
-			final Event current = it.next();
-			if (current instanceof LifeEvent) {
-				final LifeEvent le = (LifeEvent) current;
-				if (le.getParticipant() == p && le.isActivate()) {
+		final Integer position = positions.get(event);
+		if (position == null) {
+			throw new IllegalArgumentException();
+		}
+		int level = levels[position];
+		if (event instanceof AbstractMessage) {
+			final Event next = nextButSkippingNotes(position);
+			if (next instanceof LifeEvent) {
+				final LifeEvent le = (LifeEvent) next;
+				final AbstractMessage msg = (AbstractMessage) event;
+				if (mode != EventsHistoryMode.IGNORE_FUTURE_ACTIVATE && le.isActivate() && msg.dealWith(p)
+						&& le.getParticipant() == p) {
 					level++;
 				}
-				if (le.getParticipant() == p && le.isDeactivateOrDestroy()) {
+				if (mode == EventsHistoryMode.CONSIDERE_FUTURE_DEACTIVATE && le.isDeactivateOrDestroy()
+						&& msg.dealWith(p) && le.getParticipant() == p) {
 					level--;
 				}
 			}
-			if (event == current) {
-				if (current instanceof AbstractMessage) {
-					final Event next = nextButSkippingNotes(it);
-					if (next instanceof LifeEvent) {
-						final LifeEvent le = (LifeEvent) next;
-						final AbstractMessage msg = (AbstractMessage) current;
-						if (mode != EventsHistoryMode.IGNORE_FUTURE_ACTIVATE && le.isActivate() && msg.dealWith(p)
-								&& le.getParticipant() == p) {
-							level++;
-						}
-						if (mode == EventsHistoryMode.CONSIDERE_FUTURE_DEACTIVATE && le.isDeactivateOrDestroy()
-								&& msg.dealWith(p) && le.getParticipant() == p) {
-							level--;
-						}
-						// System.err.println("Warning, this is message " + current + " next=" + next);
-					}
-
-				}
-				if (level < 0) {
-					return 0;
-				}
-				// System.err.println("<-result1 is " + level);
-				return level;
-			}
 		}
-		throw new IllegalArgumentException();
-		// return level;
+		if (level < 0) {
+			return 0;
+		}
+		return level;
 	}
 
 	private boolean isNextEventADestroy(Event event) {
-		for (Iterator<Event> it = events.iterator(); it.hasNext();) {
-			final Event current = it.next();
-			if (event != current) {
-				continue;
-			}
-			if (current instanceof Message) {
-				final Event next = nextButSkippingNotes(it);
-				if (next instanceof LifeEvent) {
-					final LifeEvent le = (LifeEvent) next;
-					return le.isDestroy(p);
-				}
+		final Integer position = positions.get(event);
+		if (position != null && event instanceof Message) {
+			final Event next = nextButSkippingNotes(position);
+			if (next instanceof LifeEvent) {
+				final LifeEvent le = (LifeEvent) next;
+				return le.isDestroy(p);
 			}
-			return false;
 		}
 		return false;
 	}
@@ -136,38 +149,25 @@ public class EventsHistory {
 				return le.getSpecificColors();
 			}
 		}
-		for (Iterator<Event> it = events.iterator(); it.hasNext();) {
-			final Event current = it.next();
-			if (event != current) {
-				continue;
-			}
-			if (current instanceof Message) {
-				final Event next = nextButSkippingNotes(it);
-				if (next instanceof LifeEvent) {
-					final LifeEvent le = (LifeEvent) next;
-					if (le.isActivate()) {
-						return le.getSpecificColors();
-					}
-					return null;
+		final Integer position = positions.get(event);
+		if (position != null && event instanceof Message) {
+			final Event next = nextButSkippingNotes(position);
+			if (next instanceof LifeEvent) {
+				final LifeEvent le = (LifeEvent) next;
+				if (le.isActivate()) {
+					return le.getSpecificColors();
 				}
 			}
-			return null;
 		}
 		return null;
 	}
 
-	private Event nextButSkippingNotes(Iterator<Event> it) {
-		while (true) {
-			if (it.hasNext() == false) {
-				return null;
-			}
-			final Event next = it.next();
-			if (next instanceof Note) {
-				continue;
-			}
-			// System.err.println("nextButSkippingNotes=" + next);
-			return next;
+	private Event nextButSkippingNotes(int position) {
+		final int next = nexts[position];
+		if (next == -1) {
+			return null;
 		}
+		return events.get(next);
 	}
 
 	public Stairs2 getStairs(double createY, double totalHeight) {
@@ -192,23 +192,7 @@ public class EventsHistory {
 	}
 
 	public int getMaxValue() {
-		int max = 0;
-		int level = 0;
-		for (Event current : events) {
-			if (current instanceof LifeEvent) {
-				final LifeEvent le = (LifeEvent) current;
-				if (le.getParticipant() == p && le.isActivate()) {
-					level++;
-				}
-				if (level > max) {
-					max = level;
-				}
-				if (le.getParticipant() == p && le.isDeactivateOrDestroy()) {
-					level--;
-				}
-			}
-		}
-		return max;
+		return maxValue;
 	}
 
 }
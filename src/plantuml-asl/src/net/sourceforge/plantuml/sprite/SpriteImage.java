@@ -34,6 +34,8 @@ import java.awt.geom.Dimension2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 
 import net.sourceforge.plantuml.Dimension2DDouble;
 import net.sourceforge.plantuml.graphic.AbstractTextBlock;
@@ -50,6 +52,7 @@ import net.sourceforge.plantuml.ugraphic.color.HColorSimple;
 public class SpriteImage implements Sprite {
 
 	private final UImage img;
+	private final SpriteRasterCache rasters = new SpriteRasterCache();
 
 	public SpriteImage(BufferedImage img) {
 		if (img == null) {
@@ -58,15 +61,25 @@ public class SpriteImage implements Sprite {
 		this.img = new UImage(new PixelImage(img, AffineTransformType.TYPE_BILINEAR));
 	}
 
+	private UImage toUImage(HColor color, double scale) {
+		final List<Object> key = Arrays.asList(color, scale);
+		UImage result = rasters.get(key);
+		if (result == null) {
+			if (color == null) {
+				result = img.scale(scale).shared();
+			} else {
+				result = img.muteColor(((HColorSimple) color).getColor999()).scale(scale).shared();
+			}
+			rasters.put(key, result);
+		}
+		return result;
+	}
+
 	public TextBlock asTextBlock(final HColor color, final double scale) {
 		return new AbstractTextBlock() {
 
 			public void drawU(UGraphic ug) {
-				if (color == null) {
-					ug.draw(img.scale(scale));
-				} else {
-					ug.draw(img.muteColor(((HColorSimple) color).getColor999()).scale(scale));
-				}
+				ug.draw(toUImage(color, scale));
 			}
 
 			public Dimension2D calculateDimension(StringBounder stringBounder) {
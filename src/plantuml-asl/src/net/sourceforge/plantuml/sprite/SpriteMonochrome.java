@@ -35,6 +35,8 @@ import java.awt.geom.Dimension2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
 
 import net.sourceforge.plantuml.Dimension2DDouble;
 import net.sourceforge.plantuml.graphic.AbstractTextBlock;
@@ -52,6 +54,7 @@ import net.sourceforge.plantuml.ugraphic.color.HColorUtils;
 
 public class SpriteMonochrome implements Sprite {
 
+	private final SpriteRasterCache rasters = new SpriteRasterCache();
 	private final int width;
 	private final int height;
 	private final int grayLevel;
@@ -216,12 +219,21 @@ public class SpriteMonochrome implements Sprite {
 		return new UImage(new PixelImage(im, AffineTransformType.TYPE_BILINEAR));
 	}
 
+	private UImage toUImage(ColorMapper colorMapper, HColor backcolor, HColor color, double scale) {
+		final List<Object> key = Arrays.asList(colorMapper, backcolor, color, scale);
+		UImage result = rasters.get(key);
+		if (result == null) {
+			result = toUImage(colorMapper, backcolor, color).scale(scale).shared();
+			rasters.put(key, result);
+		}
+		return result;
+	}
+
 	public TextBlock asTextBlock(final HColor color, final double scale) {
 		return new AbstractTextBlock() {
 
 			public void drawU(UGraphic ug) {
-				final UImage image = toUImage(ug.getColorMapper(), ug.getParam().getBackcolor(), color);
-				ug.draw(image.scale(scale));
+				ug.draw(toUImage(ug.getColorMapper(), ug.getParam().getBackcolor(), color, scale));
 			}
 
 			public Dimension2D calculateDimension(StringBounder stringBounder) {
@@ -0,0 +1,62 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.sprite;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.plantuml.ugraphic.UImage;
+
+/**
+ * Keeps the last rasters drawn for a sprite, so that a sprite repeated in a diagram is decoded and scaled once, and
+ * always yields the same image.
+ */
+class SpriteRasterCache {
+
+	private static final int MAX_SIZE = 16;
+
+	private final Map<List<Object>, UImage> rasters = new LinkedHashMap<List<Object>, UImage>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, UImage> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	synchronized UImage get(List<Object> key) {
+		return rasters.get(key);
+	}
+
+	synchronized void put(List<Object> key, UImage image) {
+		rasters.put(key, image);
+	}
+
+}
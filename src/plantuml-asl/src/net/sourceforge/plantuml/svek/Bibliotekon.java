@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,30 +55,45 @@ public class Bibliotekon {
 	private final List<Line> lines1 = new ArrayList<Line>();
 	private final List<Line> allLines = new ArrayList<Line>();
 
+	private final Map<IGroup, Cluster> clusters = new IdentityHashMap<IGroup, Cluster>();
+	private final Map<Node, ILeaf> leaves = new IdentityHashMap<Node, ILeaf>();
+	private final Map<String, ILeaf> leavesByName = new HashMap<String, ILeaf>();
+	private final Map<Link, Line> lines = new IdentityHashMap<Link, Line>();
+	private final Map<IEntity, List<Line>> connectedLines = new IdentityHashMap<IEntity, List<Line>>();
+
 	public Node createNode(ILeaf ent, IEntityImage image, ColorSequence colorSequence, StringBounder stringBounder) {
 		final Node node = new Node(ent, image, colorSequence, stringBounder);
-		nodeMap.put(ent, node);
+		final Node previous = nodeMap.put(ent, node);
+		if (previous != null) {
+			leaves.remove(previous);
+		} else if (leavesByName.containsKey(ent.getCodeGetName()) == false) {
+			leavesByName.put(ent.getCodeGetName(), ent);
+		}
+		leaves.put(node, ent);
 		return node;
 	}
 
 	public Cluster getCluster(IGroup ent) {
-		for (Cluster cl : allCluster) {
-			if (cl.getGroups().contains(ent)) {
-				return cl;
-			}
-		}
-		return null;
+		return clusters.get(ent);
 	}
 
 	public void addLine(Line line) {
 		allLines.add(line);
+		final Link link = line.getLink();
+		if (lines.containsKey(link) == false) {
+			lines.put(link, line);
+		}
+		addConnectedLine(link.getEntity1(), line);
+		if (link.getEntity2() != link.getEntity1()) {
+			addConnectedLine(link.getEntity2(), line);
+		}
 		if (first(line)) {
 			if (line.hasNoteLabelText()) {
 				// lines0.add(0, line);
-				for (int i = 0; i < lines0.size(); i++) {
-					final Line other = lines0.get(i);
-					if (other.hasNoteLabelText() == false && line.sameConnections(other)) {
-						lines0.add(i, line);
+				// Lines without note are appended, so the first one connected in lines0 is the first one added
+				for (Line other : connectedLines.get(link.getEntity1())) {
+					if (first(other) && other.hasNoteLabelText() == false && line.sameConnections(other)) {
+						lines0.add(lines0.indexOf(other), line);
 						return;
 					}
 				}
@@ -90,6 +106,15 @@ public class Bibliotekon {
 		}
 	}
 
+	private void addConnectedLine(IEntity entity, Line line) {
+		List<Line> connected = connectedLines.get(entity);
+		if (connected == null) {
+			connected = new ArrayList<Line>();
+			connectedLines.put(entity, connected);
+		}
+		connected.add(line);
+	}
+
 	private static boolean first(Line line) {
 		final int length = line.getLength();
 		if (length == 1) {
@@ -100,6 +125,11 @@ public class Bibliotekon {
 
 	public void addCluster(Cluster current) {
 		allCluster.add(current);
+		for (IGroup group : current.getGroups()) {
+			if (clusters.containsKey(group) == false) {
+				clusters.put(group, current);
+			}
+		}
 	}
 
 	public Node getNode(IEntity ent) {
@@ -117,10 +147,9 @@ public class Bibliotekon {
 		}
 		assert result == null;
 		if (ent.isGroup()) {
-			for (IEntity i : nodeMap.keySet()) {
-				if (ent.getCodeGetName().equals(i.getCodeGetName())) {
-					return getNode(i).getUid();
-				}
+			final ILeaf leaf = leavesByName.get(ent.getCodeGetName());
+			if (leaf != null) {
+				return getNode(leaf).getUid();
 			}
 			return Cluster.getSpecialPointId(ent);
 		}
@@ -174,40 +203,34 @@ public class Bibliotekon {
 	}
 
 	public List<Line> getAllLineConnectedTo(IEntity leaf) {
-		final List<Line> result = new ArrayList<Line>();
-		for (Line line : allLines) {
-			if (line.isLinkFromOrTo(leaf)) {
-				result.add(line);
-			}
+		final List<Line> result = connectedLines.get(leaf);
+		if (result == null) {
+			return Collections.emptyList();
 		}
-		return Collections.unmodifiableList(result);
+		return Collections.unmodifiableList(new ArrayList<Line>(result));
 	}
 
 	public Line getLine(Link link) {
-		for (Line line : allLines) {
-			if (line.isLink(link)) {
-				return line;
-			}
+		final Line result = lines.get(link);
+		if (result == null) {
+			throw new IllegalArgumentException();
 		}
-		throw new IllegalArgumentException();
+		return result;
 	}
 
 	public IEntity getOnlyOther(IEntity entity) {
-		for (Line line : allLines) {
-			final IEntity other = line.getOther(entity);
-			if (other != null) {
-				return other;
-			}
+		final List<Line> connected = connectedLines.get(entity);
+		if (connected == null) {
+			return null;
 		}
-		return null;
+		return connected.get(0).getOther(entity);
 	}
 
 	public ILeaf getLeaf(Node node) {
-		for (Map.Entry<ILeaf, Node> ent : nodeMap.entrySet()) {
-			if (ent.getValue() == node) {
-				return ent.getKey();
-			}
+		final ILeaf result = leaves.get(node);
+		if (result == null) {
+			throw new IllegalArgumentException();
 		}
-		throw new IllegalArgumentException();
+		return result;
 	}
 }
@@ -990,6 +990,10 @@ public class Line implements Moveable, Hideable, GuideLine {
 		return this.link == link;
 	}
 
+	Link getLink() {
+		return link;
+	}
+
 	public Point2D getStartContactPoint() {
 		final Point2D start = dotPath.getStartPoint();
 		if (start == null) {
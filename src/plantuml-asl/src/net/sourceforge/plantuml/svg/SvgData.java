@@ -76,9 +76,10 @@ public final class SvgData {
 		return modifiedSvgXmlHeader();
 	}
 
+	private static final Pattern POLYGON_POINTS = Pattern.compile("(?i)<polygon\\s+[^>]*points=\"([^\"]+)\"");
+
 	private void init() {
-		final Pattern p = Pattern.compile("(?i)<polygon\\s+[^>]*points=\"([^\"]+)\"");
-		final Matcher m = p.matcher(svg);
+		final Matcher m = POLYGON_POINTS.matcher(svg);
 		double minX = Double.MAX_VALUE;
 		double minY = Double.MAX_VALUE;
 		double maxX = -Double.MAX_VALUE;
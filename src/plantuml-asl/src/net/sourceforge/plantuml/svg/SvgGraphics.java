@@ -41,6 +41,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -65,12 +66,12 @@ import net.sourceforge.plantuml.SvgString;
 import net.sourceforge.plantuml.code.Base64Coder;
 import net.sourceforge.plantuml.security.ImageIO;
 import net.sourceforge.plantuml.security.SecurityUtils;
-import net.sourceforge.plantuml.tikz.TikzGraphics;
 import net.sourceforge.plantuml.ugraphic.UPath;
 import net.sourceforge.plantuml.ugraphic.USegment;
 import net.sourceforge.plantuml.ugraphic.USegmentType;
 import net.sourceforge.plantuml.ugraphic.color.ColorMapper;
 import net.sourceforge.plantuml.ugraphic.color.HColorGradient;
+import net.sourceforge.plantuml.utils.FixedDecimal;
 
 public class SvgGraphics {
 
@@ -112,6 +113,7 @@ public class SvgGraphics {
 	private final String filterUid;
 	private final String shadowId;
 	private final String gradientId;
+	private final String imageId;
 	private final boolean svgDimensionStyle;
 
 	final protected void ensureVisible(double x, double y) {
@@ -148,6 +150,7 @@ public class SvgGraphics {
 			this.filterUid = "b" + getSeed(seed);
 			this.shadowId = "f" + getSeed(seed);
 			this.gradientId = "g" + getSeed(seed);
+			this.imageId = "i" + getSeed(seed);
 			if (hover != null) {
 				defs.appendChild(getPathHover(hover));
 			}
@@ -404,7 +407,7 @@ public class SvgGraphics {
 				if (sb.length() > 0) {
 					sb.append(",");
 				}
-				sb.append(format(coord));
+				FixedDecimal.append(sb, coord * scale, 4);
 			}
 			elt.setAttribute("points", sb.toString());
 			fillMe(elt);
@@ -603,27 +606,28 @@ public class SvgGraphics {
 			final USegmentType type = seg.getSegmentType();
 			final double coord[] = seg.getCoord();
 			if (type == USegmentType.SEG_MOVETO) {
-				sb.append("M" + format(coord[0] + x) + "," + format(coord[1] + y) + " ");
+				appendPair(sb.append('M'), coord[0] + x, coord[1] + y).append(' ');
 				ensureVisible(coord[0] + x + 2 * deltaShadow, coord[1] + y + 2 * deltaShadow);
 			} else if (type == USegmentType.SEG_LINETO) {
-				sb.append("L" + format(coord[0] + x) + "," + format(coord[1] + y) + " ");
+				appendPair(sb.append('L'), coord[0] + x, coord[1] + y).append(' ');
 				ensureVisible(coord[0] + x + 2 * deltaShadow, coord[1] + y + 2 * deltaShadow);
 			} else if (type == USegmentType.SEG_QUADTO) {
-				sb.append("Q" + format(coord[0] + x) + "," + format(coord[1] + y) + " " + format(coord[2] + x) + ","
-						+ format(coord[3] + y) + " ");
+				appendPair(sb.append('Q'), coord[0] + x, coord[1] + y).append(' ');
+				appendPair(sb, coord[2] + x, coord[3] + y).append(' ');
 				ensureVisible(coord[0] + x + 2 * deltaShadow, coord[1] + y + 2 * deltaShadow);
 				ensureVisible(coord[2] + x + 2 * deltaShadow, coord[3] + y + 2 * deltaShadow);
 			} else if (type == USegmentType.SEG_CUBICTO) {
-				sb.append("C" + format(coord[0] + x) + "," + format(coord[1] + y) + " " + format(coord[2] + x) + ","
-						+ format(coord[3] + y) + " " + format(coord[4] + x) + "," + format(coord[5] + y) + " ");
+				appendPair(sb.append('C'), coord[0] + x, coord[1] + y).append(' ');
+				appendPair(sb, coord[2] + x, coord[3] + y).append(' ');
+				appendPair(sb, coord[4] + x, coord[5] + y).append(' ');
 				ensureVisible(coord[0] + x + 2 * deltaShadow, coord[1] + y + 2 * deltaShadow);
 				ensureVisible(coord[2] + x + 2 * deltaShadow, coord[3] + y + 2 * deltaShadow);
 				ensureVisible(coord[4] + x + 2 * deltaShadow, coord[5] + y + 2 * deltaShadow);
 			} else if (type == USegmentType.SEG_ARCTO) {
 				// A25,25 0,0 5,395,40
-				sb.append("A" + format(coord[0]) + "," + format(coord[1]) + " " + formatBoolean(coord[2]) + " "
-						+ formatBoolean(coord[3]) + " " + formatBoolean(coord[4]) + " " + format(coord[5] + x) + ","
-						+ format(coord[6] + y) + " ");
+				appendPair(sb.append('A'), coord[0], coord[1]).append(' ');
+				sb.append(formatBoolean(coord[2]) + " " + formatBoolean(coord[3]) + " " + formatBoolean(coord[4]) + " ");
+				appendPair(sb, coord[5] + x, coord[6] + y).append(' ');
 				ensureVisible(coord[5] + coord[0] + x + 2 * deltaShadow, coord[6] + coord[1] + y + 2 * deltaShadow);
 			} else if (type == USegmentType.SEG_CLOSE) {
 				// Nothing
@@ -670,12 +674,12 @@ public class SvgGraphics {
 	}
 
 	public void moveto(double x, double y) {
-		currentPath.append("M" + format(x) + "," + format(y) + " ");
+		appendPair(currentPath.append('M'), x, y).append(' ');
 		ensureVisible(x, y);
 	}
 
 	public void lineto(double x, double y) {
-		currentPath.append("L" + format(x) + "," + format(y) + " ");
+		appendPair(currentPath.append('L'), x, y).append(' ');
 		ensureVisible(x, y);
 	}
 
@@ -685,8 +689,9 @@ public class SvgGraphics {
 	}
 
 	public void curveto(double x1, double y1, double x2, double y2, double x3, double y3) {
-		currentPath.append("C" + format(x1) + "," + format(y1) + " " + format(x2) + "," + format(y2) + " " + format(x3)
-				+ "," + format(y3) + " ");
+		appendPair(currentPath.append('C'), x1, y1).append(' ');
+		appendPair(currentPath, x2, y2).append(' ');
+		appendPair(currentPath, x3, y3).append(' ');
 		ensureVisible(x1, y1);
 		ensureVisible(x2, y2);
 		ensureVisible(x3, y3);
@@ -694,13 +699,19 @@ public class SvgGraphics {
 	}
 
 	public void quadto(double x1, double y1, double x2, double y2) {
-		currentPath.append("Q" + format(x1) + "," + format(y1) + " " + format(x2) + "," + format(y2) + " ");
+		appendPair(currentPath.append('Q'), x1, y1).append(' ');
+		appendPair(currentPath, x2, y2).append(' ');
 		ensureVisible(x1, y1);
 		ensureVisible(x2, y2);
 	}
 
 	private String format(double x) {
-		return TikzGraphics.format(x * scale);
+		return FixedDecimal.format(x * scale, 4);
+	}
+
+	private StringBuilder appendPair(StringBuilder sb, double x, double y) {
+		FixedDecimal.append(sb, x * scale, 4).append(',');
+		return FixedDecimal.append(sb, y * scale, 4);
 	}
 
 	private String formatBoolean(double x) {
@@ -746,21 +757,67 @@ public class SvgGraphics {
 
 	}
 
+	// Images drawn once, and the ids of the images drawn several times, by PNG payload
+	private final Map<String, Element> firstImages = new HashMap<String, Element>();
+	private final Map<String, String> imageIds = new HashMap<String, String>();
+
 	public void svgImage(BufferedImage image, double x, double y) throws IOException {
+		svgImage(image, x, y, false);
+	}
+
+	/**
+	 * @param shared
+	 *            true when the image is kept by a cache, so that its encoding can be kept as long as the image
+	 */
+	public void svgImage(BufferedImage image, double x, double y, boolean shared) throws IOException {
 		if (hidden == false) {
-			final Element elt = (Element) document.createElement("image");
-			elt.setAttribute("width", format(image.getWidth()));
-			elt.setAttribute("height", format(image.getHeight()));
-			elt.setAttribute("x", format(x));
-			elt.setAttribute("y", format(y));
-			final String s = toBase64(image);
-			elt.setAttribute("xlink:href", "data:image/png;base64," + s);
-			getG().appendChild(elt);
+			final String s = toBase64(image, shared);
+			final Element first = firstImages.get(s);
+			if (first == null) {
+				final Element elt = createImage(image, s);
+				elt.setAttribute("x", format(x));
+				elt.setAttribute("y", format(y));
+				getG().appendChild(elt);
+				firstImages.put(s, elt);
+			} else {
+				getG().appendChild(createUse(getImageId(image, s, first), format(x), format(y)));
+			}
 		}
 		ensureVisible(x, y);
 		ensureVisible(x + image.getWidth(), y + image.getHeight());
 	}
 
+	private Element createImage(BufferedImage image, String data) {
+		final Element elt = document.createElement("image");
+		elt.setAttribute("width", format(image.getWidth()));
+		elt.setAttribute("height", format(image.getHeight()));
+		elt.setAttribute("xlink:href", "data:image/png;base64," + data);
+		return elt;
+	}
+
+	private Element createUse(String id, String x, String y) {
+		final Element elt = document.createElement("use");
+		elt.setAttribute("x", x);
+		elt.setAttribute("y", y);
+		elt.setAttribute("xlink:href", "#" + id);
+		return elt;
+	}
+
+	// The second time an image is drawn, it moves into defs and its first drawing becomes a reference to it
+	private String getImageId(BufferedImage image, String data, Element first) {
+		String id = imageIds.get(data);
+		if (id == null) {
+			id = imageId + imageIds.size();
+			imageIds.put(data, id);
+			final Element elt = createImage(image, data);
+			elt.setAttribute("id", id);
+			defs.appendChild(elt);
+			first.getParentNode().replaceChild(createUse(id, first.getAttribute("x"), first.getAttribute("y")),
+					first);
+		}
+		return id;
+	}
+
 	private final Map<String, String> images = new HashMap<String, String>();
 
 	public void svgImage(SvgString image, double x, double y) {
@@ -787,11 +844,29 @@ public class SvgGraphics {
 		return svg.getSvg(false).replaceFirst(s1, s2);
 	}
 
-	private String toBase64(BufferedImage image) throws IOException {
+	// Sprites and inline images keep their rasters, so the same images come back from one diagram to the next.
+	// Their encodings are dropped with them.
+	private static final Map<BufferedImage, String> encoded = new WeakHashMap<BufferedImage, String>();
+
+	private static String toBase64(BufferedImage image, boolean shared) throws IOException {
+		if (shared) {
+			synchronized (encoded) {
+				final String result = encoded.get(image);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
 		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		ImageIO.write(image, "png", baos);
 		final byte data[] = baos.toByteArray();
-		return new String(Base64Coder.encode(data));
+		final String result = new String(Base64Coder.encode(data));
+		if (shared) {
+			synchronized (encoded) {
+				encoded.put(image, result);
+			}
+		}
+		return result;
 	}
 
 	// Shadow
@@ -879,9 +954,10 @@ public class SvgGraphics {
 		}
 	}
 
+	private static final Pattern UNICODE_UPLUS = Pattern.compile("\\<U\\+([0-9A-Fa-f]+)\\>");
+
 	private String formatTitle(String title) {
-		final Pattern p = Pattern.compile("\\<U\\+([0-9A-Fa-f]+)\\>");
-		final Matcher m = p.matcher(title);
+		final Matcher m = UNICODE_UPLUS.matcher(title);
 		final StringBuffer sb = new StringBuffer();
 		while (m.find()) {
 			final String num = m.group(1);
@@ -890,7 +966,7 @@ public class SvgGraphics {
 		}
 		m.appendTail(sb);
 
-		title = sb.toString().replaceAll("\\\\n", "\n");
+		title = sb.toString().replace("\\n", "\n");
 		return title;
 	}
 
@@ -43,10 +43,10 @@ import java.util.Map;
 
 import net.sourceforge.plantuml.Log;
 import net.sourceforge.plantuml.Url;
-import net.sourceforge.plantuml.eps.EpsGraphics;
 import net.sourceforge.plantuml.ugraphic.UPath;
 import net.sourceforge.plantuml.ugraphic.USegment;
 import net.sourceforge.plantuml.ugraphic.USegmentType;
+import net.sourceforge.plantuml.utils.FixedDecimal;
 import net.sourceforge.plantuml.version.Version;
 
 public class TikzGraphics {
@@ -264,7 +264,7 @@ public class TikzGraphics {
 	}
 
 	public static String format(double x) {
-		return EpsGraphics.formatSimple4(x);
+		return FixedDecimal.format(x, 4);
 	}
 
 	private void out(OutputStream os, String s) throws IOException {
@@ -31,7 +31,9 @@
 package net.sourceforge.plantuml.tim;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.plantuml.LineLocation;
 import net.sourceforge.plantuml.StringLocated;
@@ -44,6 +46,19 @@ import net.sourceforge.plantuml.tim.expression.TokenType;
 
 public abstract class Eater {
 
+	private static final int MAX_EATEN_TOKENS = 4096;
+	private static final Map<String, EatenTokens> eatenTokens = new LinkedHashMap<String, EatenTokens>(16, 0.75f,
+			true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, EatenTokens> eldest) {
+			return size() > MAX_EATEN_TOKENS;
+		}
+	};
+
+	private static final char UNTIL_END = 'E';
+	private static final char UNTIL_COLON = 'C';
+	private static final char UNTIL_ARGUMENT_END = 'A';
+
 	private int i = 0;
 	private final String s;
 	private final LineLocation lineLocation;
@@ -87,8 +102,7 @@ public abstract class Eater {
 	}
 
 	final protected TokenStack eatTokenStack() throws EaterException {
-		final TokenStack tokenStack = new TokenStack();
-		addIntoTokenStack(tokenStack, false);
+		final TokenStack tokenStack = eatCompiledTokenStack(UNTIL_END);
 		if (tokenStack.size() == 0) {
 			throw EaterException.located("Missing expression");
 		}
@@ -97,11 +111,53 @@ public abstract class Eater {
 
 	final protected TValue eatExpressionStopAtColon(TContext context, TMemory memory)
 			throws EaterException, EaterExceptionLocated {
-		final TokenStack tokenStack = new TokenStack();
-		addIntoTokenStack(tokenStack, true);
+		final TokenStack tokenStack = eatCompiledTokenStack(UNTIL_COLON);
 		return tokenStack.getResult(getLineLocation(), context, memory);
 	}
 
+	final protected TokenStack eatArgumentTokenStack() throws EaterException {
+		return eatCompiledTokenStack(UNTIL_ARGUMENT_END);
+	}
+
+	/**
+	 * Tokenizes the expression at the current position. Loops and procedure bodies evaluate the very same text over
+	 * and over, so the compiled tokens of a text are kept and reused, tokenization being independent of any context.
+	 */
+	private TokenStack eatCompiledTokenStack(char until) throws EaterException {
+		final String key = until + s.substring(i);
+		final EatenTokens cached;
+		synchronized (eatenTokens) {
+			cached = eatenTokens.get(key);
+		}
+		if (cached != null) {
+			i += cached.length;
+			return cached.tokenStack;
+		}
+		final int start = i;
+		final TokenStack tokenStack;
+		if (until == UNTIL_ARGUMENT_END) {
+			tokenStack = TokenStack.eatUntilCloseParenthesisOrComma(this);
+		} else {
+			tokenStack = new TokenStack();
+			addIntoTokenStack(tokenStack, until == UNTIL_COLON);
+		}
+		final EatenTokens eaten = new EatenTokens(tokenStack.compile(), i - start);
+		synchronized (eatenTokens) {
+			eatenTokens.put(key, eaten);
+		}
+		return eaten.tokenStack;
+	}
+
+	static private final class EatenTokens {
+		private final TokenStack tokenStack;
+		private final int length;
+
+		private EatenTokens(TokenStack tokenStack, int length) {
+			this.tokenStack = tokenStack;
+			this.length = length;
+		}
+	}
+
 	final protected void addIntoTokenStack(TokenStack tokenStack, boolean stopAtColon) throws EaterException {
 		while (true) {
 			final Token token = TokenType.eatOneToken(this, stopAtColon);
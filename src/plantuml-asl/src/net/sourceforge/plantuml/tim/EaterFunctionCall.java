@@ -79,12 +79,11 @@ public class EaterFunctionCall extends Eater {
 					values.add(result);
 				}
 			} else {
-				final TokenStack tokens = TokenStack.eatUntilCloseParenthesisOrComma(this).withoutSpace();
+				final TokenStack tokens = eatArgumentTokenStack();
 				if (tokens.isSpecialAffectationWhenFunctionCall()) {
 					final String special = tokens.tokenIterator().nextToken().getSurface();
 					updateNamedArguments(special, context, memory);
 				} else {
-					tokens.guessFunctions();
 					final TValue result = tokens.getResult(getLineLocation(), context, memory);
 					values.add(result);
 				}
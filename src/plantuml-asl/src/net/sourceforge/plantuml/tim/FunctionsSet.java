@@ -43,6 +43,9 @@ public class FunctionsSet {
 	private final Map<TFunctionSignature, TFunction> functions = new HashMap<TFunctionSignature, TFunction>();
 	private final Set<TFunctionSignature> functionsFinal = new HashSet<TFunctionSignature>();
 	private final Trie functions3 = new TrieImpl();
+	private final Set<String> names = new HashSet<String>();
+	private final Set<String> legacyNames = new HashSet<String>();
+	private final Set<String> unquotedNames = new HashSet<String>();
 	private TFunctionImpl pendingFunction;
 
 	public TFunction getFunctionSmart(TFunctionSignature searched) {
@@ -69,8 +72,20 @@ public class FunctionsSet {
 		return Collections.unmodifiableMap(functions);
 	}
 
-	public String getLonguestMatchStartingIn(String s) {
-		return functions3.getLonguestMatchStartingIn(s);
+	public boolean hasFunctionName(String functionName) {
+		return names.contains(functionName);
+	}
+
+	public boolean isLegacyName(String functionName) {
+		return legacyNames.contains(functionName);
+	}
+
+	public boolean isUnquotedName(String functionName) {
+		return unquotedNames.contains(functionName);
+	}
+
+	public String getLonguestMatchStartingIn(String s, int pos) {
+		return functions3.getLonguestMatchStartingIn(s, pos);
 	}
 
 	public TFunctionImpl pendingFunction() {
@@ -81,8 +96,34 @@ public class FunctionsSet {
 		if (func.getFunctionType() == TFunctionType.LEGACY_DEFINELONG) {
 			((TFunctionImpl) func).finalizeEnddefinelong();
 		}
-		this.functions.put(func.getSignature(), func);
+		this.register(func);
+	}
+
+	private void register(TFunction func) {
+		final TFunction previous = this.functions.put(func.getSignature(), func);
 		this.functions3.add(func.getSignature().getFunctionName() + "(");
+		if (previous == null) {
+			indexName(func);
+			return;
+		}
+		// A redefinition may change the legacy or unquoted flavour of a name
+		names.clear();
+		legacyNames.clear();
+		unquotedNames.clear();
+		for (TFunction f : functions.values()) {
+			indexName(f);
+		}
+	}
+
+	private void indexName(TFunction func) {
+		final String name = func.getSignature().getFunctionName();
+		names.add(name);
+		if (func.getFunctionType().isLegacy()) {
+			legacyNames.add(name);
+		}
+		if (func.isUnquoted()) {
+			unquotedNames.add(name);
+		}
 	}
 
 	public void executeEndfunction() {
@@ -97,9 +138,7 @@ public class FunctionsSet {
 		}
 		final EaterLegacyDefine legacyDefine = new EaterLegacyDefine(s);
 		legacyDefine.analyze(context, memory);
-		final TFunction function = legacyDefine.getFunction();
-		this.functions.put(function.getSignature(), function);
-		this.functions3.add(function.getSignature().getFunctionName() + "(");
+		this.register(legacyDefine.getFunction());
 	}
 
 	public void executeLegacyDefineLong(TContext context, TMemory memory, StringLocated s)
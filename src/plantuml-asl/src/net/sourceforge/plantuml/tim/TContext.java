@@ -51,6 +51,7 @@ import net.sourceforge.plantuml.json.JsonValue;
 import net.sourceforge.plantuml.preproc.Defines;
 import net.sourceforge.plantuml.preproc.FileWithSuffix;
 import net.sourceforge.plantuml.preproc.ImportedFiles;
+import net.sourceforge.plantuml.preproc.IncludeCache;
 import net.sourceforge.plantuml.preproc.ReadLine;
 import net.sourceforge.plantuml.preproc.ReadLineList;
 import net.sourceforge.plantuml.preproc.ReadLineReader;
@@ -116,9 +117,33 @@ public class TContext {
 
 	// private final Set<FileWithSuffix> usedFiles = new HashSet<FileWithSuffix>();
 	private final Set<FileWithSuffix> filesUsedCurrent = new HashSet<FileWithSuffix>();
+	// Read by !includesub, which must not change what !include considers already included
+	private final Set<FileWithSuffix> filesUsedSub = new HashSet<FileWithSuffix>();
+	private boolean urlIncluded;
+	private boolean timeOrEnvironmentRead;
 
 	public Set<FileWithSuffix> getFilesUsedCurrent() {
-		return Collections.unmodifiableSet(filesUsedCurrent);
+		final Set<FileWithSuffix> result = new HashSet<FileWithSuffix>(filesUsedCurrent);
+		result.addAll(filesUsedSub);
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Tells if some lines were included from an URL, whose content may change without any local file changing.
+	 */
+	public boolean isUrlIncluded() {
+		return urlIncluded;
+	}
+
+	/**
+	 * Tells if a function whose result depends on the time or on the environment was called, such as %date.
+	 */
+	public boolean isTimeOrEnvironmentRead() {
+		return timeOrEnvironmentRead;
+	}
+
+	public void setTimeOrEnvironmentRead() {
+		this.timeOrEnvironmentRead = true;
 	}
 
 	private void addStandardFunctions(Defines defines) {
@@ -372,6 +397,9 @@ public class TContext {
 		if (result == null) {
 			return null;
 		}
+		if (result == located.getString() && located.getPreprocessorError() == null) {
+			return new StringLocated[] { located };
+		}
 		final String[] splited = result.split("\n");
 		final StringLocated[] tab = new StringLocated[splited.length];
 		for (int i = 0; i < splited.length; i++) {
@@ -394,6 +422,8 @@ public class TContext {
 			return str;
 		}
 		final StringBuilder result = new StringBuilder();
+		final VariableManager variableManager = new VariableManager(this, memory, location);
+		boolean replaced = false;
 		for (int i = 0; i < str.length(); i++) {
 			final char c = str.charAt(i);
 			final String presentFunction = getFunctionNameAt(str, i);
@@ -424,12 +454,17 @@ public class TContext {
 						call.getNamedArguments());
 				result.append(functionReturn.toString());
 				i += call.getCurrentPosition() - 1;
-			} else if (new VariableManager(this, memory, location).getVarnameAt(str, i) != null) {
-				i = new VariableManager(this, memory, location).replaceVariables(str, i, result);
+				replaced = true;
+			} else if (variableManager.getVarnameAt(str, i) != null) {
+				i = variableManager.replaceVariables(str, i, result);
+				replaced = true;
 			} else {
 				result.append(c);
 			}
 		}
+		if (replaced == false) {
+			return str;
+		}
 		return result.toString();
 	}
 
@@ -485,6 +520,7 @@ public class TContext {
 						ReadLine readerline = ReadLineReader.create(reader, location, s.getLocation());
 						readerline = new UncommentReadLine(readerline);
 						sub = Sub.fromFile(readerline, blocname, this, memory);
+						filesUsedSub.add(f2);
 					}
 				} catch (IOException e) {
 					e.printStackTrace();
@@ -548,6 +584,7 @@ public class TContext {
 				if (url == null) {
 					throw EaterException.located("Cannot open URL");
 				}
+				urlIncluded = true;
 				reader2 = PreprocessorUtils.getReaderIncludeUrl2(url, s, suf, charset);
 
 			}
@@ -563,7 +600,10 @@ public class TContext {
 						throw EaterException.located("This file has already been included");
 					}
 
-					if (StartDiagramExtractReader.containsStartDiagram(f2, s, charset)) {
+					final IncludeCache.Content content = IncludeCache.getContent(f2, charset);
+					if (content != null && content.containsStartDiagram() == false) {
+						reader2 = content.getReadLine(location, s.getLocation());
+					} else if (StartDiagramExtractReader.containsStartDiagram(f2, s, charset)) {
 						reader2 = StartDiagramExtractReader.build(f2, s, charset);
 					} else {
 						final Reader reader = f2.getReader(charset);
@@ -604,30 +644,15 @@ public class TContext {
 	}
 
 	public boolean isLegacyDefine(String functionName) {
-		for (Map.Entry<TFunctionSignature, TFunction> ent : functionsSet.functions().entrySet()) {
-			if (ent.getKey().getFunctionName().equals(functionName) && ent.getValue().getFunctionType().isLegacy()) {
-				return true;
-			}
-		}
-		return false;
+		return functionsSet.isLegacyName(functionName);
 	}
 
 	public boolean isUnquoted(String functionName) {
-		for (Map.Entry<TFunctionSignature, TFunction> ent : functionsSet.functions().entrySet()) {
-			if (ent.getKey().getFunctionName().equals(functionName) && ent.getValue().isUnquoted()) {
-				return true;
-			}
-		}
-		return false;
+		return functionsSet.isUnquotedName(functionName);
 	}
 
 	public boolean doesFunctionExist(String functionName) {
-		for (Map.Entry<TFunctionSignature, TFunction> ent : functionsSet.functions().entrySet()) {
-			if (ent.getKey().getFunctionName().equals(functionName)) {
-				return true;
-			}
-		}
-		return false;
+		return functionsSet.hasFunctionName(functionName);
 	}
 
 	private String getFunctionNameAt(String s, int pos) {
@@ -635,7 +660,7 @@ public class TContext {
 				&& VariableManager.justAfterBackslashN(s, pos) == false) {
 			return null;
 		}
-		final String fname = functionsSet.getLonguestMatchStartingIn(s.substring(pos));
+		final String fname = functionsSet.getLonguestMatchStartingIn(s, pos);
 		if (fname.length() == 0) {
 			return null;
 		}
@@ -87,4 +87,12 @@ public class TimLoader {
 		return preprocessorError;
 	}
 
+	public final boolean isUrlIncluded() {
+		return context.isUrlIncluded();
+	}
+
+	public final boolean isTimeOrEnvironmentRead() {
+		return context.isTimeOrEnvironmentRead();
+	}
+
 }
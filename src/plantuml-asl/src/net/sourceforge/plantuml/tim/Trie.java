@@ -36,4 +36,6 @@ public interface Trie {
 
 	public String getLonguestMatchStartingIn(String s);
 
+	public String getLonguestMatchStartingIn(String s, int pos);
+
 }
@@ -90,30 +90,33 @@ public class TrieImpl implements Trie {
 	}
 
 	public String getLonguestMatchStartingIn(String s) {
-		return getLonguestMatchStartingIn(this, s);
+		return getLonguestMatchStartingIn(s, 0);
 	}
 
-	private static String getLonguestMatchStartingIn(TrieImpl current, String s) {
-		final StringBuilder result = new StringBuilder();
+	public String getLonguestMatchStartingIn(String s, int pos) {
+		return getLonguestMatchStartingIn(this, s, pos);
+	}
+
+	private static String getLonguestMatchStartingIn(TrieImpl current, String s, int pos) {
+		int i = pos;
 		while (current != null) {
-			if (s.length() == 0) {
+			if (i == s.length()) {
 				if (current.brothers.containsKey('\0')) {
-					return result.toString();
+					return s.substring(pos, i);
 				} else {
 					return "";
 				}
 			}
-			final TrieImpl child = current.brothers.get(s.charAt(0));
+			final TrieImpl child = current.brothers.get(s.charAt(i));
 			if (child == null || child.brothers.size() == 0) {
 				if (current.brothers.containsKey('\0')) {
-					return result.toString();
+					return s.substring(pos, i);
 				} else {
 					return "";
 				}
 			}
-			result.append(s.charAt(0));
 			current = child;
-			s = s.substring(1);
+			i++;
 		}
 		return "";
 
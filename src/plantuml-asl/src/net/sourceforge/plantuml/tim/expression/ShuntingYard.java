@@ -118,7 +118,18 @@ public class ShuntingYard {
 	}
 
 	private boolean isVariableName(String name) {
-		return name.matches("[a-zA-Z0-9.$_]+");
+		if (name.length() == 0) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			final char c = name.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '$'
+					|| c == '_') {
+				continue;
+			}
+			return false;
+		}
+		return true;
 	}
 
 	private boolean thereIsAFunctionAtTheTopOfTheOperatorStack(Token token) {
@@ -49,6 +49,7 @@ import net.sourceforge.plantuml.tim.TMemory;
 public class TokenStack {
 
 	final private List<Token> tokens;
+	final private TokenStack compiled;
 
 	public boolean isSpecialAffectationWhenFunctionCall() {
 		if (tokens.size() != 1) {
@@ -82,7 +83,28 @@ public class TokenStack {
 	}
 
 	private TokenStack(List<Token> list) {
+		this(list, null);
+	}
+
+	private TokenStack(List<Token> list, TokenStack compiled) {
 		this.tokens = list;
+		this.compiled = compiled;
+	}
+
+	/**
+	 * Returns an unmodifiable copy of this stack that also keeps its tokens without spaces and with the functions
+	 * already guessed, so that evaluating it again only runs the shunting yard.
+	 */
+	public TokenStack compile() {
+		final List<Token> copy = Collections.unmodifiableList(new ArrayList<Token>(tokens));
+		final TokenStack tmp = withoutSpace();
+		try {
+			tmp.guessFunctions();
+		} catch (EaterException e) {
+			// The error is reported when the expression gets evaluated
+			return new TokenStack(copy);
+		}
+		return new TokenStack(copy, new TokenStack(Collections.unmodifiableList(tmp.tokens)));
 	}
 
 	public int size() {
@@ -235,8 +257,13 @@ public class TokenStack {
 	public TValue getResult(LineLocation location, TContext context, TMemory memory)
 			throws EaterException, EaterExceptionLocated {
 		final Knowledge knowledge = context.asKnowledge(memory, location);
-		final TokenStack tmp = withoutSpace();
-		tmp.guessFunctions();
+		final TokenStack tmp;
+		if (compiled == null) {
+			tmp = withoutSpace();
+			tmp.guessFunctions();
+		} else {
+			tmp = compiled;
+		}
 		final TokenIterator it = tmp.tokenIterator();
 		final ShuntingYard shuntingYard = new ShuntingYard(it, knowledge);
 		final ReversePolishInterpretor rpn = new ReversePolishInterpretor(location, shuntingYard.getQueue(), knowledge,
@@ -56,6 +56,7 @@ public class FileExists extends SimpleReturnFunction {
 
 	public TValue executeReturnFunction(TContext context, TMemory memory, LineLocation location, List<TValue> values,
 			Map<String, TValue> named) throws EaterException, EaterExceptionLocated {
+		context.setTimeOrEnvironmentRead();
 		if (OptionFlags.ALLOW_INCLUDE == false) {
 			return TValue.fromBoolean(false);
 		}
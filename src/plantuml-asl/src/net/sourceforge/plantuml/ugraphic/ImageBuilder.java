@@ -94,6 +94,9 @@ public class ImageBuilder {
 	private UDrawable udrawable;
 	private boolean randomPixel;
 
+	// Can be turned off to compare recorded drawings with drawings made twice
+	static volatile boolean recording = true;
+
 	public static ImageBuilder build(ImageParameter imageParameter) {
 		return new ImageBuilder(imageParameter);
 	}
@@ -125,7 +128,18 @@ public class ImageBuilder {
 
 	private ImageData writeImageInternal(FileFormatOption fileFormatOption, long seed, OutputStream os,
 			Animation animationArg) throws IOException {
-		Dimension2D dim = getFinalDimension(fileFormatOption.getDefaultStringBounder(param.getSvgCharSizeHack()));
+		final StringBounder stringBounder = fileFormatOption.getDefaultStringBounder(param.getSvgCharSizeHack());
+		final UGraphicRecorder recorder;
+		Dimension2D dim;
+		if (animationArg == null && canRecord(fileFormatOption.getFileFormat())) {
+			// Draw only once: the recording gives the dimension and is then replayed on the real UGraphic
+			recorder = new UGraphicRecorder(param.getColorMapper(), stringBounder, fileFormatOption.getFileFormat());
+			udrawable.drawU(recorder);
+			dim = getFinalDimension(recorder.getMaxX(), recorder.getMaxY());
+		} else {
+			recorder = null;
+			dim = getFinalDimension(stringBounder);
+		}
 		double dx = 0;
 		double dy = 0;
 		if (animationArg != null) {
@@ -152,7 +166,11 @@ public class ImageBuilder {
 		}
 		ug2 = ug2.apply(new UTranslate(left, top));
 		final UGraphic ugDecored = handwritten(ug2);
-		udrawable.drawU(ugDecored);
+		if (recorder == null) {
+			udrawable.drawU(ugDecored);
+		} else {
+			recorder.replay(ugDecored);
+		}
 		ugDecored.flushUg();
 		ug.writeImageTOBEMOVED(os, param.getMetadata(), 96);
 		os.flush();
@@ -179,13 +197,33 @@ public class ImageBuilder {
 	}
 
 	public Dimension2D getFinalDimension(StringBounder stringBounder) {
-		final Dimension2D dim;
-
 		final LimitFinder limitFinder = new LimitFinder(stringBounder, true);
 		udrawable.drawU(limitFinder);
-		dim = new Dimension2DDouble(limitFinder.getMaxX(), limitFinder.getMaxY());
+		return getFinalDimension(limitFinder.getMaxX(), limitFinder.getMaxY());
+	}
+
+	private Dimension2D getFinalDimension(double maxX, double maxY) {
+		return new Dimension2DDouble(maxX + 1 + left + right, maxY + 1 + top + bottom);
+	}
 
-		return new Dimension2DDouble(dim.getWidth() + 1 + left + right, dim.getHeight() + 1 + top + bottom);
+	/**
+	 * Recording is only used for the backends whose drawing code does not depend on the actual UGraphic class, and
+	 * without decorating UGraphic. LaTeX and VDX are left out: they draw text atoms themselves (SPECIALTXT), which
+	 * LimitFinder cannot bound.
+	 */
+	private boolean canRecord(FileFormat fileFormat) {
+		if (recording == false || param.isUseHandwritten() || OptionFlags.OMEGA_CROSSING) {
+			return false;
+		}
+		switch (fileFormat) {
+		case PNG:
+		case SVG:
+		case EPS:
+		case EPS_TEXT:
+			return true;
+		default:
+			return false;
+		}
 	}
 
 	private UGraphic handwritten(UGraphic ug) {
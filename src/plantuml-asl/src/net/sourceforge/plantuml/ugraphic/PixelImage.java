@@ -58,6 +58,9 @@ public class PixelImage implements MutableImage {
 	}
 
 	public MutableImage withScale(double scale) {
+		if (scale == 1) {
+			return this;
+		}
 		return new PixelImage(bufferedImageScale1, type, this.scale * scale);
 	}
 
@@ -0,0 +1,222 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.ugraphic;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.Url;
+import net.sourceforge.plantuml.graphic.StringBounder;
+import net.sourceforge.plantuml.ugraphic.color.ColorMapper;
+
+/**
+ * A display list: records the primitives drawn on it, together with the changes (translation, colors, stroke,
+ * clip...) that were applied to get them, so that they can later be replayed on any other UGraphic.
+ * <p>
+ * The bounds of the drawing are accumulated while recording, so a single drawU pass on a UDrawable provides both
+ * the dimension of the image and what to draw in it.
+ */
+public class UGraphicRecorder extends AbstractCommonUGraphic {
+
+	private final StringBounder stringBounder;
+	private final FileFormat fileFormat;
+	private final List<Operation> operations;
+	private LimitFinder limitFinder;
+	private Changes changes;
+
+	public UGraphicRecorder(ColorMapper colorMapper, StringBounder stringBounder, FileFormat fileFormat) {
+		super(colorMapper);
+		this.stringBounder = stringBounder;
+		this.fileFormat = fileFormat;
+		this.operations = new ArrayList<Operation>();
+		this.limitFinder = new LimitFinder(stringBounder, true);
+		this.changes = Changes.ROOT;
+	}
+
+	private UGraphicRecorder(UGraphicRecorder other) {
+		super(other);
+		this.stringBounder = other.stringBounder;
+		this.fileFormat = other.fileFormat;
+		this.operations = other.operations;
+		this.limitFinder = other.limitFinder;
+		this.changes = other.changes;
+	}
+
+	@Override
+	protected AbstractCommonUGraphic copyUGraphic() {
+		return new UGraphicRecorder(this);
+	}
+
+	@Override
+	public UGraphic apply(UChange change) {
+		final UGraphicRecorder result = (UGraphicRecorder) super.apply(change);
+		result.limitFinder = (LimitFinder) limitFinder.apply(change);
+		result.changes = new Changes(changes, change);
+		return result;
+	}
+
+	public StringBounder getStringBounder() {
+		return stringBounder;
+	}
+
+	/**
+	 * Answers like the backend of the file format: only SVG has a property among the recorded formats.
+	 */
+	@Override
+	public boolean matchesProperty(String propertyName) {
+		if (fileFormat == FileFormat.SVG) {
+			return propertyName.equalsIgnoreCase("SVG");
+		}
+		return false;
+	}
+
+	public void draw(final UShape shape) {
+		limitFinder.draw(shape);
+		operations.add(new Operation(changes) {
+			void replay(UGraphic ug) {
+				ug.draw(shape);
+			}
+		});
+	}
+
+	@Override
+	public void startUrl(final Url url) {
+		operations.add(new Operation(changes) {
+			void replay(UGraphic ug) {
+				ug.startUrl(url);
+			}
+		});
+	}
+
+	@Override
+	public void closeUrl() {
+		operations.add(new Operation(changes) {
+			void replay(UGraphic ug) {
+				ug.closeUrl();
+			}
+		});
+	}
+
+	@Override
+	public void startGroup(final String groupId) {
+		operations.add(new Operation(changes) {
+			void replay(UGraphic ug) {
+				ug.startGroup(groupId);
+			}
+		});
+	}
+
+	@Override
+	public void closeGroup() {
+		operations.add(new Operation(changes) {
+			void replay(UGraphic ug) {
+				ug.closeGroup();
+			}
+		});
+	}
+
+	public double getMaxX() {
+		return limitFinder.getMaxX();
+	}
+
+	public double getMaxY() {
+		return limitFinder.getMaxY();
+	}
+
+	/**
+	 * Draws everything recorded so far on another UGraphic, as if it had been drawn there directly.
+	 */
+	public void replay(UGraphic ug) {
+		final Replay replay = new Replay(ug);
+		for (Operation op : operations) {
+			op.replay(replay.resolve(op.changes));
+		}
+	}
+
+	static abstract class Operation {
+
+		private final Changes changes;
+
+		Operation(Changes changes) {
+			this.changes = changes;
+		}
+
+		abstract void replay(UGraphic ug);
+	}
+
+	/**
+	 * The chain of changes applied from the original UGraphic, shared by all the UGraphic derived from it.
+	 */
+	static class Changes {
+
+		static final Changes ROOT = new Changes(null, null);
+
+		private final Changes parent;
+		private final UChange change;
+
+		private Changes(Changes parent, UChange change) {
+			this.parent = parent;
+			this.change = change;
+		}
+	}
+
+	static class Replay {
+
+		private final Map<Changes, UGraphic> resolved = new IdentityHashMap<Changes, UGraphic>();
+
+		Replay(UGraphic root) {
+			resolved.put(Changes.ROOT, root);
+		}
+
+		UGraphic resolve(Changes changes) {
+			UGraphic result = resolved.get(changes);
+			if (result != null) {
+				return result;
+			}
+			final List<Changes> todo = new ArrayList<Changes>();
+			Changes current = changes;
+			while ((result = resolved.get(current)) == null) {
+				todo.add(current);
+				current = current.parent;
+			}
+			for (int i = todo.size() - 1; i >= 0; i--) {
+				final Changes c = todo.get(i);
+				result = result.apply(c.change);
+				resolved.put(c, result);
+			}
+			return result;
+		}
+	}
+
+}
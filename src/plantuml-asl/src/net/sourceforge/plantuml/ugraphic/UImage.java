@@ -38,23 +38,36 @@ public class UImage implements UShape {
 	private final MutableImage image;
 	private final String formula;
 	private final String rawFileName;
+	private final boolean shared;
 
 	public UImage(MutableImage image) {
-		this(image, null, null);
+		this(image, null, null, false);
 	}
 
-	private UImage(MutableImage image, String rawFileName, String formula) {
+	private UImage(MutableImage image, String rawFileName, String formula, boolean shared) {
 		this.image = image;
 		this.formula = formula;
 		this.rawFileName = rawFileName;
+		this.shared = shared;
 	}
 
 	public final UImage withRawFileName(String rawFileName) {
-		return new UImage(image, rawFileName, formula);
+		return new UImage(image, rawFileName, formula, shared);
 	}
 
 	public final UImage withFormula(String formula) {
-		return new UImage(image, rawFileName, formula);
+		return new UImage(image, rawFileName, formula, shared);
+	}
+
+	/**
+	 * Marks this image as kept by a cache, so that the same raster is drawn each time.
+	 */
+	public final UImage shared() {
+		return new UImage(image, rawFileName, formula, true);
+	}
+
+	public final boolean isShared() {
+		return shared;
 	}
 
 	public final String getRawFileName() {
@@ -66,7 +79,7 @@ public class UImage implements UShape {
 	}
 
 	public UImage scale(double scale) {
-		return new UImage(image.withScale(scale), rawFileName, formula);
+		return new UImage(image.withScale(scale), rawFileName, formula, false);
 	}
 
 	public final BufferedImage getImage(double withScale) {
@@ -83,11 +96,11 @@ public class UImage implements UShape {
 	}
 
 	public UImage muteColor(Color newColor) {
-		return new UImage(image.muteColor(newColor), rawFileName, formula);
+		return new UImage(image.muteColor(newColor), rawFileName, formula, false);
 	}
 
 	public UImage muteTransparentColor(Color newColor) {
-		return new UImage(image.muteTransparentColor(newColor), rawFileName, formula);
+		return new UImage(image.muteTransparentColor(newColor), rawFileName, formula, false);
 	}
 
 }
@@ -64,7 +64,7 @@ public class DriverImagePng implements UDriver<SvgGraphics> {
 		}
 
 		try {
-			svg.svgImage(image.getImage(1), x, y);
+			svg.svgImage(image.getImage(1), x, y, image.isShared());
 		} catch (IOException e) {
 			Log.error("Error in svg for image " + e);
 		}
@@ -0,0 +1,97 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+package net.sourceforge.plantuml.utils;
+
+import java.util.Locale;
+
+/**
+ * Writes numbers the way <code>String.format(Locale.US, "%1.4f", x)</code> does, with trailing zeros and a trailing
+ * dot removed, without going through a Formatter and a regular expression for every coordinate.
+ */
+public class FixedDecimal {
+
+	private static final long POW10[] = { 1, 10, 100, 1000, 10000 };
+
+	private FixedDecimal() {
+	}
+
+	public static String format(double x, int precision) {
+		if (x == 0) {
+			return "0";
+		}
+		final StringBuilder sb = new StringBuilder(12);
+		append(sb, x, precision);
+		return sb.toString();
+	}
+
+	public static StringBuilder append(StringBuilder sb, double x, int precision) {
+		if (x == 0) {
+			return sb.append('0');
+		}
+		final double scaled = Math.abs(x) * POW10[precision];
+		if (scaled < 1e13) {
+			final double frac = scaled - Math.floor(scaled);
+			// Formatter rounds the shortest decimal representation half-up, so let it decide on near ties
+			if (Math.abs(frac - 0.5) > 4 * Math.ulp(scaled)) {
+				final long n = (long) Math.floor(scaled + 0.5);
+				if (x < 0) {
+					sb.append('-');
+				}
+				sb.append(n / POW10[precision]);
+				long decimals = n % POW10[precision];
+				if (decimals != 0) {
+					int digits = precision;
+					while (decimals % 10 == 0) {
+						decimals /= 10;
+						digits--;
+					}
+					sb.append('.');
+					for (long p = POW10[digits - 1]; p > decimals; p /= 10) {
+						sb.append('0');
+					}
+					sb.append(decimals);
+				}
+				return sb;
+			}
+		}
+		return sb.append(formatSlow(x, precision));
+	}
+
+	private static String formatSlow(double x, int precision) {
+		String s = String.format(Locale.US, "%1." + precision + "f", x);
+		s = s.replaceAll("(\\.\\d*?)0+$", "$1");
+		if (s.endsWith(".")) {
+			s = s.substring(0, s.length() - 1);
+		}
+		return s;
+	}
+
+}
@@ -31,22 +31,43 @@
 
 package smetana.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+
+import h.ST_Pedge_t;
+import h.ST_bezier;
+import h.ST_object_t;
+import h.ST_pointf;
+import h.ST_rank_t;
+import h.ST_textspan_t;
+import h.ST_tna_t;
+import h.ST_triangle_t;
+import h.ST_xlabel_t;
 
 public class CArray<O> extends UnsupportedC {
 
-	private final Class<O> cl;
-	private final List<O> data;
+	private final Storage storage;
 	private final int offset;
 
+	// Shared by all the pointers into the same array, so that a realloc is seen by
+	// all of them.
+	private static final class Storage {
+		private final Class<?> cl;
+		private Object[] elements;
+
+		private Storage(Class<?> cl, int capacity) {
+			this.cl = cl;
+			this.elements = new Object[capacity];
+		}
+	}
+
 	@Override
 	public String toString() {
-		return "Array " + cl + " offset=" + offset + " [" + data.size() + "]" + data;
+		return "Array " + storage.cl + " offset=" + offset + " [" + storage.elements.length + "]"
+				+ Arrays.asList(storage.elements);
 	}
 
 	public static <O> CArray<O> ALLOC__(int size, Class<O> cl) {
-		final CArray<O> result = new CArray<O>(new ArrayList<O>(), 0, cl);
+		final CArray<O> result = new CArray<O>(new Storage(cl, 0), 0);
 		result.reallocWithStructure(size);
 		return result;
 	}
@@ -59,42 +80,71 @@ public class CArray<O> extends UnsupportedC {
 		return old;
 	}
 
-	private CArray(List<O> data, int offset, Class<O> cl) {
-		if (offset > 0) {
-			// JUtilsDebug.LOG("offset=" + offset);
-		}
-		this.data = data;
+	private CArray(Storage storage, int offset) {
+		this.storage = storage;
 		this.offset = offset;
-		this.cl = cl;
 	}
 
 	public CArray<O> plus_(int delta) {
-		return new CArray<O>(data, offset + delta, cl);
+		if (delta == 0) {
+			return this;
+		}
+		return new CArray<O>(storage, offset + delta);
 	}
 
 	public int minus_(CArray<O> other) {
-		if (this.data != other.data) {
+		if (this.storage != other.storage) {
 			throw new IllegalArgumentException();
 		}
 		return this.offset - other.offset;
 	}
 
+	@SuppressWarnings("unchecked")
 	public O get__(int i) {
-		return data.get(i + offset);
+		return (O) storage.elements[i + offset];
 	}
 
 	private void reallocWithStructure(int size) {
 		if (offset != 0) {
 			throw new IllegalStateException();
 		}
-		try {
-			for (int i = 0; i < size; i++) {
-				data.add((O) cl.newInstance());
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-			throw new UnsupportedOperationException();
+		final Object[] old = storage.elements;
+		final Object[] elements = Arrays.copyOf(old, old.length + size);
+		for (int i = old.length; i < elements.length; i++) {
+			elements[i] = create(storage.cl);
+		}
+		storage.elements = elements;
+	}
+
+	private static Object create(Class<?> cl) {
+		if (cl == ST_pointf.class) {
+			return new ST_pointf();
+		}
+		if (cl == ST_bezier.class) {
+			return new ST_bezier();
+		}
+		if (cl == ST_rank_t.class) {
+			return new ST_rank_t();
+		}
+		if (cl == ST_Pedge_t.class) {
+			return new ST_Pedge_t();
+		}
+		if (cl == ST_triangle_t.class) {
+			return new ST_triangle_t();
+		}
+		if (cl == ST_tna_t.class) {
+			return new ST_tna_t();
+		}
+		if (cl == ST_textspan_t.class) {
+			return new ST_textspan_t();
+		}
+		if (cl == ST_object_t.class) {
+			return new ST_object_t();
+		}
+		if (cl == ST_xlabel_t.class) {
+			return new ST_xlabel_t();
 		}
+		throw new UnsupportedOperationException(cl.toString());
 	}
 
 }
@@ -31,77 +31,81 @@
 
 package smetana.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class CArrayOfStar<O> extends UnsupportedC {
 
-	private final List<O> data;
+	private final Storage storage;
 	private final int offset;
-	
-	
+
+	// Shared by all the pointers into the same array, so that a realloc is seen by
+	// all of them.
+	private static final class Storage {
+		private Object[] elements = new Object[0];
+	}
+
 	@Override
 	public String toString() {
-		return "*Array offset=" + offset + " [" + data.size() + "]" + data;
+		return "*Array offset=" + offset + " [" + storage.elements.length + "]" + Arrays.asList(storage.elements);
 	}
 
-
-	private CArrayOfStar(List<O> data, int offset) {
-		this.data = data;
+	private CArrayOfStar(Storage storage, int offset) {
+		this.storage = storage;
 		this.offset = offset;
 	}
 
 	public static <O> CArrayOfStar<O> ALLOC(int size, Class cl) {
-		final CArrayOfStar<O> result = new CArrayOfStar<O>(new ArrayList<O>(), 0);
+		final CArrayOfStar<O> result = new CArrayOfStar<O>(new Storage(), 0);
 		result.realloc(size);
 		return result;
 	}
 
 	public static <O> CArrayOfStar<O> REALLOC(int size, CArrayOfStar<O> old, Class<O> cl) {
-		if (old==null) {
+		if (old == null) {
 			return ALLOC(size, cl);
 		}
 		old.realloc(size);
 		return old;
 	}
 
-
 	public int comparePointer_(CArrayOfStar<O> other) {
-		if (this.data != other.data) {
+		if (this.storage != other.storage) {
 			throw new IllegalArgumentException();
 		}
 		return this.offset - other.offset;
 	}
 
+	@SuppressWarnings("unchecked")
 	public O get_(int i) {
-		return data.get(i + offset);
+		return (O) storage.elements[i + offset];
 	}
 
 	public void set_(int i, O value) {
-		data.set(i + offset, value);
+		storage.elements[i + offset] = value;
 	}
 
 	public void realloc(int size) {
 		if (offset != 0) {
 			throw new IllegalStateException();
 		}
-		for (int i = 0; i < size; i++) {
-			data.add(null);
-		}
+		storage.elements = Arrays.copyOf(storage.elements, storage.elements.length + size);
 	}
 
 	public CArrayOfStar<O> plus_(int delta) {
-		return new CArrayOfStar<O>(data, offset + delta);
+		if (delta == 0) {
+			return this;
+		}
+		return new CArrayOfStar<O>(storage, offset + delta);
 	}
 
 	public void _swap(int i, int j) {
 		if (offset != 0) {
 			throw new IllegalStateException();
 		}
-		final O e1 = data.get(i);
-		final O e2 = data.get(j);
-		data.set(i, e2);
-		data.set(j, e1);
+		final Object[] elements = storage.elements;
+		final Object e1 = elements[i];
+		elements[i] = elements[j];
+		elements[j] = e1;
 	}
 
 }
@@ -31,17 +31,15 @@
 
 package smetana.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import h.ST_refstr_t;
 
 public class CString extends UnsupportedC implements __ptr__ {
 
-	private static int UID = 100;
+	private static final AtomicInteger UID = new AtomicInteger(100);
 
-	private final Throwable creation = new Throwable();
-	private final List<Character> data2;
+	private final char[] data2;
 	private final int currentStart;
 
 	private final int uid;
@@ -55,17 +53,14 @@ public class CString extends UnsupportedC implements __ptr__ {
 	}
 
 	public CString(String string) {
-		this(new ArrayList<Character>(), 0);
-		for (int i = 0; i < string.length(); i++) {
-			data2.add(string.charAt(i));
-		}
-		data2.add('\0');
+		this(new char[string.length() + 1], 0);
+		string.getChars(0, string.length(), data2, 0);
 	}
 
 	public CString duplicate() {
 		// return this;
 
-		return new CString(new ArrayList<Character>(this.data2), currentStart);
+		return new CString(this.data2.clone(), currentStart);
 
 		// final CString result = new CString(this.data.size());
 		// for (int i = 0; i < result.data.size(); i++) {
@@ -84,18 +79,13 @@ public class CString extends UnsupportedC implements __ptr__ {
 
 
 	public CString(int size) {
-		this(new ArrayList<Character>(), 0);
-		for (int i = 0; i < size; i++) {
-			data2.add('\0');
-		}
+		this(new char[size], 0);
 	}
 
-	private CString(List<Character> data2, int currentStart) {
+	private CString(char[] data2, int currentStart) {
 		this.data2 = data2;
 		this.currentStart = currentStart;
-		this.uid = UID;
-		UID += 2;
-		creation.fillInStackTrace();
+		this.uid = UID.getAndAdd(2);
 	}
 
 	public __ptr__ getTheField(OFFSET bytes) {
@@ -140,7 +130,8 @@ public class CString extends UnsupportedC implements __ptr__ {
 	@Override
 	public String toString() {
 		final StringBuilder sb = new StringBuilder();
-		for (Character c : getData()) {
+		for (int i = currentStart; i < data2.length; i++) {
+			final char c = data2[i];
 			if (c == '\0') {
 				sb.append("(0)");
 			} else {
@@ -150,50 +141,42 @@ public class CString extends UnsupportedC implements __ptr__ {
 		return "CString:" + sb;
 	}
 
-	private List<Character> getData() {
-		return data2.subList(currentStart, data2.size());
-	}
-
 	public String getContent() {
-		final StringBuilder sb = new StringBuilder();
-		for (Character c : getData()) {
-			if (c == '\0') {
-				return sb.toString();
-			} else {
-				sb.append(c);
+		for (int i = currentStart; i < data2.length; i++) {
+			if (data2[i] == '\0') {
+				return new String(data2, currentStart, i - currentStart);
 			}
 		}
 		throw new UnsupportedOperationException();
 	}
 
 	public char charAt(int i) {
-		if (i >= getData().size()) {
+		if (i >= data2.length - currentStart) {
 			throw new UnsupportedOperationException();
 			// return '\0';
 		}
-		return data2.get(currentStart + i);
-		// when i<0
-		// return data2.subList(currentStart, data2.size()).get(i);
+		return data2[currentStart + i];
 	}
 
 	public char setCharAt(int i, char c) {
-		getData().set(i, c);
+		if (i < 0 || i >= data2.length - currentStart) {
+			throw new IndexOutOfBoundsException("" + i);
+		}
+		data2[currentStart + i] = c;
 		return c;
 	}
 
 	public int length() {
-		int len = 0;
-		for (Character c : getData()) {
-			if (c == '\0') {
-				return len;
+		for (int i = currentStart; i < data2.length; i++) {
+			if (data2[i] == '\0') {
+				return i - currentStart;
 			}
-			len++;
 		}
 		throw new IllegalStateException();
 	}
 
 	public int strcmp(CString other) {
-		for (int i = 0; i < data2.size() - currentStart; i++) {
+		for (int i = 0; i < data2.length - currentStart; i++) {
 			final int diff = this.charAt(i) - other.charAt(i);
 			if (this.charAt(i) == '\0' || diff != 0) {
 				return diff;
@@ -203,7 +186,7 @@ public class CString extends UnsupportedC implements __ptr__ {
 	}
 
 	public int strcmp(CString other, int num) {
-		for (int i = 0; i < data2.size() - currentStart && i < num; i++) {
+		for (int i = 0; i < data2.length - currentStart && i < num; i++) {
 			final int diff = this.charAt(i) - other.charAt(i);
 			if (this.charAt(i) == '\0' || diff != 0) {
 				return diff;
@@ -219,8 +202,8 @@ public class CString extends UnsupportedC implements __ptr__ {
 	}
 
 	public CString strchr(char c) {
-		for (int i = currentStart; i < data2.size(); i++) {
-			if (data2.get(i).charValue() == c) {
+		for (int i = currentStart; i < data2.length; i++) {
+			if (data2[i] == c) {
 				return new CString(data2, i);
 			}
 		}
@@ -0,0 +1,105 @@
+/* ========================================================================
+ * PlantUML : a free UML diagram generator
+ * ========================================================================
+ *
+ * (C) Copyright 2009-2020, Arnaud Roques
+ *
+ * Project Info:  https://plantuml.com
+ * 
+ * If you like this project or if you find it useful, you can support us at:
+ * 
+ * https://plantuml.com/patreon (only 1$ per month!)
+ * https://plantuml.com/paypal
+ * 
+ * This file is part of PlantUML.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ * Original Author:  Arnaud Roques
+ */
+
+package smetana.core;
+
+import java.util.Arrays;
+
+// Open addressing map from int keys to values, to avoid boxing the keys of
+// the identity lookups done by the layout.
+public class IntMap<O> {
+
+	private static final int FREE = Integer.MIN_VALUE;
+
+	private int[] keys;
+	private Object[] values;
+	private int size;
+
+	public IntMap() {
+		this.keys = new int[16];
+		this.values = new Object[16];
+		Arrays.fill(keys, FREE);
+	}
+
+	public void put(int key, O value) {
+		if (key == FREE) {
+			throw new IllegalArgumentException();
+		}
+		if (2 * (size + 1) > keys.length) {
+			resize(2 * keys.length);
+		}
+		final int i = indexOf(keys, key);
+		if (keys[i] == FREE) {
+			keys[i] = key;
+			size++;
+		}
+		values[i] = value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public O get(int key) {
+		final int i = indexOf(keys, key);
+		if (keys[i] == FREE) {
+			return null;
+		}
+		return (O) values[i];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private static int indexOf(int[] keys, int key) {
+		final int mask = keys.length - 1;
+		final int h = key * 0x9E3779B9;
+		int i = (h ^ (h >>> 16)) & mask;
+		while (keys[i] != FREE && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void resize(int capacity) {
+		final int[] oldKeys = keys;
+		final Object[] oldValues = values;
+		keys = new int[capacity];
+		values = new Object[capacity];
+		Arrays.fill(keys, FREE);
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != FREE) {
+				final int i = indexOf(keys, oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+}
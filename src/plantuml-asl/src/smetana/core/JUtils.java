@@ -172,7 +172,7 @@ public class JUtils {
 		if (o1 instanceof UnsupportedStarStruct && o2 instanceof UnsupportedStarStruct) {
 			UnsupportedStarStruct ooo1 = (UnsupportedStarStruct) o1;
 			UnsupportedStarStruct ooo2 = (UnsupportedStarStruct) o2;
-			if ((ooo1.UID == ooo2.UID) != result) {
+			if ((ooo1 == ooo2) != result) {
 				throw new UnsupportedOperationException();
 			}
 		}
@@ -31,19 +31,10 @@
 
 package smetana.core;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 public class UnsupportedStarStruct implements __struct__, __ptr__ {
 
-	public final static AtomicInteger CPT = new AtomicInteger();
-	public final int UID;
-	
 	public static UnsupportedStarStruct SPY_ME;
 
-	public UnsupportedStarStruct() {
-		this.UID = CPT.incrementAndGet();
-	}
-
 	final public __ptr__ unsupported() {
 		throw new UnsupportedOperationException(getClass().toString());
 	}
@@ -53,7 +44,7 @@ public class UnsupportedStarStruct implements __struct__, __ptr__ {
 	}
 
 	public __ptr__ castTo(Class dest) {
-		System.err.println("I am " + toString() + " " + UID);
+		System.err.println("I am " + toString() + " " + System.identityHashCode(this));
 		throw new UnsupportedOperationException(dest + " " + getClass().toString());
 	}
 
@@ -40,10 +40,6 @@ import static smetana.core.Macro.ARR_TYPE_GAP;
 import static smetana.core.Macro.ARR_TYPE_NORM;
 import static smetana.core.Macro.ARR_TYPE_TEE;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-
 import gen.lib.cdt.dttree__c;
 import gen.lib.cgraph.attr__c;
 import gen.lib.cgraph.edge__c;
@@ -73,8 +69,6 @@ import h.ST_deque_t;
 import h.ST_dt_s;
 import h.ST_dtdisc_s;
 import h.ST_dtmethod_s;
-import h.ST_elist;
-import h.ST_nlist_t;
 import h.ST_pointf;
 import h.ST_pointnlink_t;
 import h.ST_polygon_t;
@@ -89,9 +83,12 @@ import h.ST_triangle_t;
 public class Z {
 
 
-	private static final ThreadLocal<LinkedList<Z>> instances2 = new ThreadLocal<LinkedList<Z>>();
+	private static final ThreadLocal<Z> current = new ThreadLocal<Z>();
+
+	// The context that was current when this one was opened: layouts may be nested
+	private Z previous;
 
-	public final Map<Integer, CString> all = new HashMap<Integer, CString>();
+	public final IntMap<CString> all = new IntMap<CString>();
 
 	public final ST_dtmethod_s _Dttree = new ST_dtmethod_s();
 	public final ST_dtmethod_s Dttree = _Dttree;
@@ -187,22 +184,6 @@ public class Z {
 			E_taillabel, E_labelfontsize, E_labelfontname, E_labelfontcolor, E_labeldistance, E_labelangle, E_tailclip,
 			E_headclip, E_penwidth;
 
-	public int N_nodes, N_edges;
-
-	public int Minrank, Maxrank;
-
-	public int S_i;
-
-	public int Search_size;
-
-	public final ST_nlist_t Tree_node = new ST_nlist_t();
-
-	public final ST_elist Tree_edge = new ST_elist();
-
-	public ST_Agedge_s Enter;
-
-	public int Low, Lim, Slack;
-
 	public int Rankdir;
 
 	public boolean Flip;
@@ -304,7 +285,6 @@ public class Z {
 	public final ST_Agsubnode_s template = new ST_Agsubnode_s();
 	public final ST_Agnode_s dummy = new ST_Agnode_s();
 
-	public ST_Agraph_s G_ns;
 	public ST_Agraph_s G_decomp;
 
 	public int opl;
@@ -323,20 +303,32 @@ public class Z {
 	
 	
 	public static Z z() {
-		return instances2.get().peekFirst();
+		return current.get();
 	}
 
-	public static void open() {
-		LinkedList<Z> list = instances2.get();
-		if (list == null) {
-			list = new LinkedList<Z>();
-			instances2.set(list);
-		}
-		list.addFirst(new Z());
+	/**
+	 * Binds a new layout context to the calling thread. Each layout runs in its own
+	 * context, so that any number of them can run in parallel on different threads.
+	 * 
+	 * @return the new context
+	 */
+	public static Z open() {
+		final Z result = new Z();
+		result.previous = current.get();
+		current.set(result);
+		return result;
 	}
 
+	/**
+	 * Unbinds the current context, going back to the one it was opened over.
+	 */
 	public static void close() {
-		instances2.get().removeFirst();
+		final Z closing = current.get();
+		if (closing.previous == null)
+			current.remove();
+		else
+			current.set(closing.previous);
+		closing.previous = null;
 	}
 
 	private ST_shape_desc __Shapes__(String s, ST_shape_functions shape_functions, ST_polygon_t polygon) {
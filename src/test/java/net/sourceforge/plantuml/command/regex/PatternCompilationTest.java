@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sourceforge.plantuml.command.regex;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Guards against regular expressions being compiled again for every diagram that is rendered.
+ */
+public class PatternCompilationTest {
+    private static final String[] REFERENCE_DIAGRAMS = {
+            "@startuml\n" +
+                    "actor User\n" +
+                    "participant \"Web **Server**\" as W #lightblue\n" +
+                    "User -> W : request <b>bold</b> //italic//\n" +
+                    "activate W\n" +
+                    "W --> User : response [[http://example.org link]]\n" +
+                    "note right: a <color:red>note</color>\\n on two lines\n" +
+                    "alt ok\n" +
+                    "  W -> W : self\n" +
+                    "else failure\n" +
+                    "  W -> User : error\n" +
+                    "end\n" +
+                    "deactivate W\n" +
+                    "@enduml",
+            "@startuml\n" +
+                    "start\n" +
+                    ":step 1;\n" +
+                    "if (condition?) then (yes)\n" +
+                    "  :step **2**;\n" +
+                    "else (no)\n" +
+                    "  :step 3;\n" +
+                    "  note right: --strike-- __underline__ \"\"mono\"\"\n" +
+                    "endif\n" +
+                    "stop\n" +
+                    "@enduml",
+            "@startuml\n" +
+                    "participant Foo\n" +
+                    "note over Foo\n" +
+                    " * item <size:18>big</size> <font color=red>font</font> x<sup>2</sup> <&star>\n" +
+                    " # numbered <back:yellow>back</back> <u:red>underline</u>\n" +
+                    " == heading ==\n" +
+                    " |= h1 |= h2 |\n" +
+                    " | <color:blue>c</color> | d |\n" +
+                    "end note\n" +
+                    "@enduml"
+    };
+
+    @Test
+    public void testRenderingDoesNotCompilePatternsRepeatedly() throws IOException {
+        renderReferenceDiagrams();
+
+        final int before = MyPattern.getCompileCount();
+        renderReferenceDiagrams();
+        assertThat(MyPattern.getCompileCount() - before, is(0));
+    }
+
+    private static void renderReferenceDiagrams() throws IOException {
+        for (String diagram : REFERENCE_DIAGRAMS) {
+            new SourceStringReader(diagram).outputImage(new ByteArrayOutputStream(), new FileFormatOption(FileFormat.SVG));
+        }
+    }
+}
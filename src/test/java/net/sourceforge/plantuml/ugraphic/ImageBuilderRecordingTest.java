@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sourceforge.plantuml.ugraphic;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Checks that drawing a diagram once into a {@link UGraphicRecorder} and replaying it gives exactly the image
+ * drawn by the former two passes, for every output format.
+ */
+public class ImageBuilderRecordingTest {
+    private static final FileFormat[] FORMATS = {FileFormat.PNG, FileFormat.SVG, FileFormat.EPS, FileFormat.EPS_TEXT,
+            FileFormat.LATEX, FileFormat.LATEX_NO_PREAMBLE, FileFormat.VDX};
+
+    private static final String[] DIAGRAMS = {
+            "@startuml\n" +
+                    "Alice -> Bob : hello **bold**\n" +
+                    "note right: a <color:red>note</color>\n" +
+                    "Bob --> Alice\n" +
+                    "@enduml\n",
+            "@startuml\n" +
+                    "!pragma graphviz_dot smetana\n" +
+                    "class Foo {\n" +
+                    " +bar() : int\n" +
+                    "}\n" +
+                    "interface I\n" +
+                    "I <|.. Foo\n" +
+                    "@enduml\n",
+            "@startuml\n" +
+                    "start\n" +
+                    ":step //1//;\n" +
+                    "if (ok?) then (yes)\n" +
+                    " :two;\n" +
+                    "else\n" +
+                    " :three;\n" +
+                    "endif\n" +
+                    "stop\n" +
+                    "@enduml\n",
+            "@startmindmap\n" +
+                    "* root\n" +
+                    "** a\n" +
+                    "** b\n" +
+                    "@endmindmap\n"
+    };
+
+    @AfterEach
+    public void restoreRecording() {
+        ImageBuilder.recording = true;
+    }
+
+    @Test
+    public void testRecordedImagesEqualImagesDrawnTwice() throws IOException {
+        for (FileFormat format : FORMATS) {
+            for (int i = 0; i < DIAGRAMS.length; i++) {
+                ImageBuilder.recording = false;
+                byte[] drawnTwice = render(DIAGRAMS[i], format);
+                ImageBuilder.recording = true;
+                byte[] recorded = render(DIAGRAMS[i], format);
+
+                assertThat(format + " diagram " + i, drawnTwice.length, greaterThan(0));
+                assertThat(format + " diagram " + i, recorded, equalTo(drawnTwice));
+            }
+        }
+    }
+
+    private static byte[] render(String diagram, FileFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SourceStringReader(diagram).outputImage(out, new FileFormatOption(format));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sourceforge.plantuml.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that coordinates in vector output are written exactly as the former
+ * {@code String.format} and regular expression combination wrote them.
+ */
+public class FixedDecimalTest {
+    private static final double[] SPECIAL = {0.5, -0.5, 2.5, 0.00005, 0.00015, 1.00005, -0.00001, 1e-9, 0.005, 1.005,
+            2.675, 99.99995, 123456.78905, 1e13, 1e20, -0.0, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY};
+
+    @Test
+    public void testSpecialValues() {
+        for (double value : SPECIAL) assertSameAsFormatter(value);
+    }
+
+    @Test
+    public void testRandomCoordinates() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 100000; i++) {
+            assertSameAsFormatter((random.nextDouble() - 0.3) * 2000);
+            assertSameAsFormatter(random.nextInt(2000000) / 20000.0);
+            assertSameAsFormatter(random.nextInt(1000) / 3.0 * 1.5);
+            assertSameAsFormatter(Double.longBitsToDouble(random.nextLong()));
+        }
+    }
+
+    private static void assertSameAsFormatter(double value) {
+        for (int precision : new int[]{2, 4}) {
+            assertThat(value + " with precision " + precision,
+                    FixedDecimal.format(value, precision), equalTo(formatter(value, precision)));
+        }
+    }
+
+    private static String formatter(double value, int precision) {
+        if (value == 0) return "0";
+        String s = String.format(Locale.US, "%1." + precision + "f", value).replaceAll("(\\.\\d*?)0+$", "$1");
+        return s.endsWith(".") ? s.substring(0, s.length() - 1) : s;
+    }
+}
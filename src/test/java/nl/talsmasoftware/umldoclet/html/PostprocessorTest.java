@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.html;
+
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.logging.TestLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PostprocessorTest {
+    private static final String HTML = "<html>\r\n<body>\n<hr>\n<pre>class Foo</pre>\n<div class=\"summary\">\n";
+
+    private File tempdir;
+    private Configuration config;
+
+    @BeforeEach
+    public void createTempdir() throws IOException {
+        tempdir = Files.createTempDirectory("Postprocessor-test").toFile();
+        config = mock(Configuration.class);
+        when(config.htmlCharset()).thenReturn(UTF_8);
+        when(config.logger()).thenReturn(new TestLogger());
+    }
+
+    @AfterEach
+    public void deleteTempdir() {
+        for (File f : tempdir.listFiles()) f.delete();
+        assertThat("Delete temporary directory", tempdir.delete(), is(true));
+    }
+
+    @Test
+    public void testInsertMultipleDiagramsInOnePass() throws IOException {
+        Path html = tempdir.toPath().resolve("Foo.html");
+        StringBuilder content = new StringBuilder(HTML);
+        for (int i = 0; i < 10000; i++) content.append("line ").append(i).append('\n');
+        Files.write(html, content.append("</body>").toString().getBytes(UTF_8));
+        List<DiagramFile> diagrams = asList(
+                new ClassDiagramInserter(tempdir, new File(tempdir, "Foo.svg"), false),
+                new ClassDiagramInserter(tempdir, new File(tempdir, "Foo.png"), false));
+
+        assertThat(new Postprocessor(new HtmlFile(config, html), diagrams).call(), is(true));
+
+        String result = new String(Files.readAllBytes(html), UTF_8);
+        assertThat(result, containsString("<hr>" + System.lineSeparator() + "<object type=\"image/svg+xml\" data=\"Foo.svg\""));
+        assertThat(result, containsString("<img src=\"Foo.png\""));
+        assertThat(result, containsString("<pre style=\"white-space:pre-wrap;\">class Foo</pre>"));
+        assertThat(result, containsString("<div class=\"summary\" style=\"clear:right;\""));
+        assertThat(result, endsWith("line 9999\n</body>"));
+        assertThat(tempdir.list(), arrayContaining("Foo.html"));
+    }
+
+    @Test
+    public void testDiagramsAreNotInsertedTwice() throws IOException {
+        Path html = tempdir.toPath().resolve("Foo.html");
+        Files.write(html, (HTML + "</body>").getBytes(UTF_8));
+        List<DiagramFile> diagrams = asList(new ClassDiagramInserter(tempdir, new File(tempdir, "Foo.svg"), false));
+        assertThat(new Postprocessor(new HtmlFile(config, html), diagrams).call(), is(true));
+        byte[] processed = Files.readAllBytes(html);
+
+        assertThat(new Postprocessor(new HtmlFile(config, html), diagrams).call(), is(false));
+
+        assertThat(Files.readAllBytes(html), is(processed));
+        assertThat(tempdir.list(), arrayContaining("Foo.html"));
+    }
+
+    @Test
+    public void testDiagramAfterInsertionPointIsNotInsertedAgain() throws IOException {
+        Path html = tempdir.toPath().resolve("Foo.html");
+        StringBuilder content = new StringBuilder(HTML);
+        for (int i = 0; i < 10000; i++) content.append("line ").append(i).append('\n');
+        Files.write(html, content.append("<img src=\"Foo.png\">\n</body>").toString().getBytes(UTF_8));
+        long lastModified = html.toFile().lastModified();
+        List<DiagramFile> diagrams = asList(new ClassDiagramInserter(tempdir, new File(tempdir, "Foo.png"), false));
+
+        assertThat(new Postprocessor(new HtmlFile(config, html), diagrams).call(), is(false));
+
+        assertThat(html.toFile().lastModified(), is(lastModified));
+        assertThat(tempdir.list(), arrayContaining("Foo.html"));
+    }
+
+    @Test
+    public void testNothingWrittenWithoutInsertionPoint() throws IOException {
+        Path html = tempdir.toPath().resolve("Foo.html");
+        Files.write(html, "<html><body>No insertion point</body></html>".getBytes(UTF_8));
+        long lastModified = html.toFile().lastModified();
+        List<DiagramFile> diagrams = asList(new ClassDiagramInserter(tempdir, new File(tempdir, "Foo.png"), false));
+
+        assertThat(new Postprocessor(new HtmlFile(config, html), diagrams).call(), is(false));
+
+        assertThat(html.toFile().lastModified(), is(lastModified));
+        assertThat(tempdir.list(), arrayContaining("Foo.html"));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.talsmasoftware.umldoclet.uml;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.core.Diagram;
+import nl.talsmasoftware.umldoclet.configuration.Configuration;
+import nl.talsmasoftware.umldoclet.configuration.FieldConfig;
+import nl.talsmasoftware.umldoclet.configuration.ImageConfig;
+import nl.talsmasoftware.umldoclet.configuration.MethodConfig;
+import nl.talsmasoftware.umldoclet.configuration.TypeDisplay;
+import nl.talsmasoftware.umldoclet.configuration.Visibility;
+import nl.talsmasoftware.umldoclet.logging.TestLogger;
+import nl.talsmasoftware.umldoclet.rendering.indent.Indentation;
+import nl.talsmasoftware.umldoclet.rendering.indent.IndentingPrintWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static nl.talsmasoftware.umldoclet.configuration.ImageConfig.Format.SVG;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that class diagrams built directly from the model render exactly like
+ * the PlantUML source parsed by a {@link SourceStringReader}.
+ */
+public class ClassDiagramBridgeTest {
+    private static final String SMETANA = "!pragma graphviz_dot smetana";
+
+    private Configuration config;
+
+    @BeforeEach
+    public void initializeMocks() {
+        config = mock(Configuration.class);
+        ImageConfig images = mock(ImageConfig.class);
+        FieldConfig fields = mock(FieldConfig.class);
+        MethodConfig methods = mock(MethodConfig.class);
+        when(config.images()).thenReturn(images);
+        when(images.formats()).thenReturn(singleton(SVG));
+        when(images.directory()).thenReturn(Optional.empty());
+        when(config.logger()).thenReturn(new TestLogger());
+        when(config.indentation()).thenReturn(Indentation.DEFAULT);
+        when(config.destinationDirectory()).thenReturn("target/test-uml/classdiagrambridge");
+        when(config.customPlantumlDirectives()).thenReturn(singletonList(SMETANA));
+        when(config.fields()).thenReturn(fields);
+        when(config.methods()).thenReturn(methods);
+        when(fields.include(any(Visibility.class))).thenReturn(true);
+        when(fields.typeDisplay()).thenReturn(TypeDisplay.SIMPLE);
+        when(methods.include(any(Visibility.class))).thenReturn(true);
+        when(methods.paramNames()).thenReturn(MethodConfig.ParamNames.BEFORE_TYPE);
+        when(methods.paramTypes()).thenReturn(TypeDisplay.SIMPLE);
+        when(methods.returnType()).thenReturn(TypeDisplay.SIMPLE);
+    }
+
+    @Test
+    public void testBridgeRendersLikeParsedSource() throws IOException {
+        Namespace foo = new Namespace(null, "foo");
+        Type bar = new Type(new Namespace(null, "foo.bar"), Type.Classification.CLASS,
+                new TypeName("Bar", "foo.bar.Bar", new TypeName("T", "T")));
+        Field field = new Field(bar, "names", new TypeName("List", "java.util.List", new TypeName("String", "java.lang.String")));
+        field.setVisibility(Visibility.PRIVATE);
+        bar.addChild(field);
+        Method method = new Method(bar, "compute", new TypeName("int", "int"));
+        method.addParameter("value", new TypeName("T", "T"));
+        method.isAbstract = true;
+        bar.addChild(method);
+
+        ClassDiagram classDiagram = new ClassDiagram(config, bar);
+        classDiagram.addChild(new Type(foo, Type.Classification.INTERFACE, new TypeName("Foo", "foo.Foo")).deprecated());
+        classDiagram.addChild(new Type(foo, Type.Classification.ENUM, new TypeName("Kind", "foo.Kind")));
+        classDiagram.addChild(new Reference(Reference.Side.from("foo.Foo", null), "<|..", Reference.Side.to("foo.bar.Bar", null)));
+        classDiagram.addChild(new Reference(Reference.Side.from("foo.bar.Bar", null), "+--", Reference.Side.to("foo.Kind", null)));
+        String source = uml(classDiagram);
+
+        Diagram diagram = new ClassDiagramBridge(classDiagram, source).createDiagram();
+
+        assertThat(diagram, is(notNullValue()));
+        String svg = new String(render(null, source, FileFormat.SVG), UTF_8);
+        assertThat(svg, not(containsString("An error has occured")));
+        assertThat(new String(render(diagram, source, FileFormat.SVG), UTF_8), equalTo(svg));
+        assertThat(render(diagram, source, FileFormat.PNG), equalTo(render(null, source, FileFormat.PNG)));
+    }
+
+    @Test
+    public void testPreprocessedDirectivesAreParsed() {
+        when(config.customPlantumlDirectives()).thenReturn(asList(SMETANA, "!define BAR foo.bar.Bar"));
+        ClassDiagram classDiagram = new ClassDiagram(config,
+                new Type(new Namespace(null, "foo.bar"), Type.Classification.CLASS, new TypeName("Bar", "foo.bar.Bar")));
+
+        assertThat(new ClassDiagramBridge(classDiagram, uml(classDiagram)).createDiagram(), is(nullValue()));
+    }
+
+    @Test
+    public void testSourceIsParsedUnlessConfigured() {
+        ClassDiagram classDiagram = new ClassDiagram(config,
+                new Type(new Namespace(null, "foo.bar"), Type.Classification.CLASS, new TypeName("Bar", "foo.bar.Bar")));
+        String source = uml(classDiagram);
+        assertThat(classDiagram.createPlantumlDiagram(source), is(nullValue()));
+
+        when(config.classDiagramsFromModel()).thenReturn(true);
+        assertThat(classDiagram.createPlantumlDiagram(source), is(notNullValue()));
+    }
+
+    private static String uml(ClassDiagram classDiagram) {
+        return classDiagram.writeTo(IndentingPrintWriter.wrap(new StringWriter(), Indentation.DEFAULT)).toString();
+    }
+
+    private static byte[] render(Diagram diagram, String source, FileFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (diagram == null) new SourceStringReader(source).outputImage(out, new FileFormatOption(format));
+        else diagram.exportDiagram(out, 0, new FileFormatOption(format));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-2020 Talsma ICT
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package smetana.core;
+
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Lays out many small diagrams with the pure-Java (smetana) layout in parallel
+ * and checks that each result equals the one of a serial run.
+ */
+public class SmetanaConcurrencyTest {
+    private static final int DISTINCT_DIAGRAMS = 20;
+    private static final int LAYOUTS = 200;
+
+    @Test
+    public void testParallelLayoutsMatchSerialLayouts() throws Exception {
+        final String[] serial = new String[DISTINCT_DIAGRAMS];
+        for (int i = 0; i < DISTINCT_DIAGRAMS; i++) {
+            serial[i] = render(diagram(i));
+            assertThat(serial[i], not(containsString("An error has occured")));
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<ForkJoinTask<String>> layouts = new ArrayList<>(LAYOUTS);
+            for (int n = 0; n < LAYOUTS; n++) {
+                final String diagram = diagram(n % DISTINCT_DIAGRAMS);
+                layouts.add(pool.submit(() -> render(diagram)));
+            }
+            for (int n = 0; n < LAYOUTS; n++) {
+                assertThat("Layout " + n, layouts.get(n).get(), equalTo(serial[n % DISTINCT_DIAGRAMS]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String diagram(int i) {
+        final int classes = 3 + i % 5;
+        final StringBuilder uml = new StringBuilder("@startuml\n!pragma graphviz_dot smetana\n");
+        for (int c = 0; c < classes; c++) uml.append("class A").append(i).append('_').append(c).append('\n');
+        for (int c = 1; c < classes; c++) {
+            uml.append('A').append(i).append('_').append((7 * c + i) % c)
+                    .append(" --> A").append(i).append('_').append(c).append('\n');
+        }
+        return uml.append("@enduml\n").toString();
+    }
+
+    private static String render(String diagram) {
+        try {
+            final ByteArrayOutputStream svg = new ByteArrayOutputStream();
+            new SourceStringReader(diagram).outputImage(svg, new FileFormatOption(FileFormat.SVG));
+            return new String(svg.toByteArray(), UTF_8);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}